@@ -1,27 +1,49 @@
 package co.com.bancolombia.config;
 
 
+import co.com.bancolombia.model.idempotency.gateways.IdempotencyRepository;
 import co.com.bancolombia.model.loanApplication.gateways.LoanApplicationRepository;
 import co.com.bancolombia.model.loanApplication.gateways.LoggerRepository;
 import co.com.bancolombia.model.loanType.gateways.LoanTypeRepository;
+import co.com.bancolombia.model.metrics.gateways.MetricsRepository;
+import co.com.bancolombia.model.status.gateways.StatusCounterRepository;
 import co.com.bancolombia.model.status.gateways.StatusRepository;
 import co.com.bancolombia.usecase.client.IUserClient;
+import co.com.bancolombia.usecase.idempotency.IdempotencySettings;
+import co.com.bancolombia.usecase.idempotency.IdempotencyUseCase;
 import co.com.bancolombia.usecase.loanApplication.LoanApplicationCase;
+import co.com.bancolombia.usecase.loanApplication.UserSnapshotRefresher;
+import co.com.bancolombia.usecase.loanType.LoanTypeCase;
+import co.com.bancolombia.usecase.statusLoan.EnrichmentSettings;
+import co.com.bancolombia.usecase.statusLoan.StatusCatalogCase;
+import co.com.bancolombia.usecase.statusLoan.StatusCounterCase;
 import co.com.bancolombia.usecase.statusLoan.StatusUseCase;
 import co.com.bancolombia.usecase.validation.LoanValidation;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 @Configuration
 public class UseCasesConfig {
 
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public LoanTypeCase loanTypeCase(
+            LoanTypeRepository loanTypeRepository,
+            LoggerRepository logger,
+            MetricsRepository metrics,
+            @Value("${loan-type.catalog.reconcile-interval:PT5M}") Duration reconcileInterval
+    ) {
+        return new LoanTypeCase(loanTypeRepository, logger, metrics, reconcileInterval);
+    }
+
     @Bean
     public LoanValidation loanValidation(
-            LoanApplicationRepository loanApplicationRepository,
-            LoanTypeRepository loanTypeRepository,
+            LoanTypeCase loanTypeCase,
             LoggerRepository logger
     ) {
-        return new LoanValidation(loanApplicationRepository, loanTypeRepository, logger);
+        return new LoanValidation(loanTypeCase, logger);
     }
 
     @Bean
@@ -29,18 +51,74 @@ public class UseCasesConfig {
             LoanApplicationRepository repo,
             LoanValidation loanValidation,
             LoggerRepository logger,
-            IUserClient iUserClient
+            IUserClient iUserClient,
+            MetricsRepository metrics
+    ) {
+        return new LoanApplicationCase(repo, loanValidation, logger, iUserClient, metrics);
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public IdempotencyUseCase idempotencyUseCase(
+            IdempotencyRepository idempotencyRepository,
+            LoanApplicationRepository loanApplicationRepository,
+            LoggerRepository logger,
+            @Value("${idempotency.ttl:PT24H}") Duration ttl,
+            @Value("${idempotency.lease:PT30S}") Duration lease,
+            @Value("${idempotency.max-local-entries:10000}") int maxLocalEntries,
+            @Value("${idempotency.wait-timeout:PT10S}") Duration waitTimeout,
+            @Value("${idempotency.purge-interval:PT15M}") Duration purgeInterval
+    ) {
+        return new IdempotencyUseCase(idempotencyRepository, loanApplicationRepository, logger,
+                new IdempotencySettings(ttl, lease, maxLocalEntries, waitTimeout, purgeInterval));
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public StatusCatalogCase statusCatalogCase(
+            StatusRepository statusRepository,
+            LoggerRepository logger,
+            MetricsRepository metrics,
+            @Value("${loan-status.catalog.reconcile-interval:PT5M}") Duration reconcileInterval
+    ) {
+        return new StatusCatalogCase(statusRepository, logger, metrics, reconcileInterval);
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public UserSnapshotRefresher userSnapshotRefresher(
+            LoanApplicationRepository loanApplicationRepository,
+            IUserClient userClient,
+            LoggerRepository logger,
+            MetricsRepository metrics,
+            @Value("${loan-application.user-snapshot.refresh-interval:PT1M}") Duration refreshInterval,
+            @Value("${loan-application.user-snapshot.max-age:PT24H}") Duration maxAge,
+            @Value("${loan-application.user-snapshot.batch-size:500}") int batchSize
+    ) {
+        return new UserSnapshotRefresher(loanApplicationRepository, userClient, logger, metrics,
+                refreshInterval, maxAge, batchSize);
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public StatusCounterCase statusCounterCase(
+            StatusCounterRepository statusCounterRepository,
+            LoggerRepository logger,
+            MetricsRepository metrics,
+            @Value("${loan-status.counter.reconcile-interval:PT10S}") Duration reconcileInterval,
+            @Value("${loan-status.counter.verify-interval:PT1H}") Duration verifyInterval
     ) {
-        return new LoanApplicationCase(repo, loanValidation, logger, iUserClient);
+        return new StatusCounterCase(statusCounterRepository, logger, metrics, reconcileInterval, verifyInterval);
     }
 
     @Bean
     public StatusUseCase statusUseCase(
            LoanApplicationRepository loanApplicationRepository,
-           StatusRepository statusRepository,
+           StatusCatalogCase statusCatalogCase,
+           StatusCounterCase statusCounterCase,
            LoggerRepository logger,
-           IUserClient userClient
+           IUserClient userClient,
+           MetricsRepository metrics,
+           @Value("${loan-application.list.enrich.chunk-size:100}") int enrichChunkSize,
+           @Value("${loan-application.list.enrich.concurrency:4}") int enrichConcurrency
     ) {
-        return new StatusUseCase(loanApplicationRepository, statusRepository, logger,userClient);
+        return new StatusUseCase(loanApplicationRepository, statusCatalogCase, statusCounterCase, logger,userClient,
+                metrics, new EnrichmentSettings(enrichChunkSize, enrichConcurrency));
     }
 }
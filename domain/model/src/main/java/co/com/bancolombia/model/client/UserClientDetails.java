@@ -4,6 +4,8 @@ import lombok.*;
 
 import java.math.BigInteger;
 import java.time.LocalDate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Getter
 @Setter
@@ -21,4 +23,11 @@ public class UserClientDetails {
     private String phone;
     private String email;
     private BigInteger baseSalary;
+
+    /** Nombre y apellido para mostrar, omitiendo los que no vengan. */
+    public String fullName() {
+        return Stream.of(name, lastName)
+                .filter(part -> part != null && !part.isBlank())
+                .collect(Collectors.joining(" "));
+    }
 }
@@ -0,0 +1,41 @@
+package co.com.bancolombia.model.context;
+
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Quién hizo la petición en curso, viajando en el contexto de Reactor desde la entrada HTTP
+ * hasta los adaptadores. Lo usan los adaptadores que necesitan distinguir clientes sin
+ * depender de Spring Security.
+ */
+public final class CallerContext {
+
+    private static final String KEY = CallerContext.class.getName();
+    private static final String LAST_WRITE_KEY = KEY + ".lastWrite";
+
+    private CallerContext() {
+    }
+
+    public static Context with(String caller) {
+        return Context.of(KEY, caller);
+    }
+
+    public static Optional<String> caller(ContextView context) {
+        return context.getOrEmpty(KEY);
+    }
+
+    /**
+     * Última escritura del cliente en epoch millis. Llega con la petición (la informó cualquier
+     * nodo en una respuesta anterior) y los adaptadores la adelantan cuando escriben.
+     */
+    public static Context withLastWrite(AtomicLong lastWriteMillis) {
+        return Context.of(LAST_WRITE_KEY, lastWriteMillis);
+    }
+
+    public static Optional<AtomicLong> lastWrite(ContextView context) {
+        return context.getOrEmpty(LAST_WRITE_KEY);
+    }
+}
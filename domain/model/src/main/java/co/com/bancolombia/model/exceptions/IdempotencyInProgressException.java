@@ -0,0 +1,7 @@
+package co.com.bancolombia.model.exceptions;
+
+public class IdempotencyInProgressException extends RuntimeException {
+    public IdempotencyInProgressException(String key) {
+        super("La solicitud con Idempotency-Key " + key + " aun se esta procesando");
+    }
+}
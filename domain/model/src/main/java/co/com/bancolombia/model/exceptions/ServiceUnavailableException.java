@@ -0,0 +1,7 @@
+package co.com.bancolombia.model.exceptions;
+
+public class ServiceUnavailableException extends RuntimeException {
+    public ServiceUnavailableException(String m) {
+        super(m);
+    }
+}
@@ -0,0 +1,23 @@
+package co.com.bancolombia.model.idempotency;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+public class IdempotencyRecord {
+
+    public static final String IN_PROGRESS = "IN_PROGRESS";
+    public static final String COMPLETED = "COMPLETED";
+
+    private String key;
+    private String fingerprint;
+    private String status;
+    private Long loanApplicationId;
+
+    public boolean isCompleted() {
+        return COMPLETED.equals(status);
+    }
+}
@@ -0,0 +1,20 @@
+package co.com.bancolombia.model.idempotency.gateways;
+
+import co.com.bancolombia.model.idempotency.IdempotencyRecord;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+public interface IdempotencyRepository {
+
+    /** true si esta ejecución quedó dueña de la llave (no existía o estaba vencida). */
+    Mono<Boolean> tryAcquire(String key, String fingerprint, Duration ttl);
+
+    Mono<IdempotencyRecord> find(String key);
+
+    Mono<Void> complete(String key, Long loanApplicationId, Duration ttl);
+
+    Mono<Void> release(String key);
+
+    Mono<Long> deleteExpired();
+}
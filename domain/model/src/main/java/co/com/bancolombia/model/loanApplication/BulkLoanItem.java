@@ -0,0 +1,31 @@
+package co.com.bancolombia.model.loanApplication;
+
+/**
+ * Una solicitud dentro de un lote, con su posición original y, si falló, el motivo.
+ */
+@lombok.Value
+public class BulkLoanItem {
+    long index;
+    LoanApplication loanApplication;
+    Throwable error;
+
+    public static BulkLoanItem of(long index, LoanApplication loanApplication) {
+        return new BulkLoanItem(index, loanApplication, null);
+    }
+
+    public static BulkLoanItem failed(long index, Throwable error) {
+        return new BulkLoanItem(index, null, error);
+    }
+
+    public BulkLoanItem fail(Throwable cause) {
+        return new BulkLoanItem(index, loanApplication, cause);
+    }
+
+    public BulkLoanItem withLoanApplication(LoanApplication saved) {
+        return new BulkLoanItem(index, saved, error);
+    }
+
+    public boolean isOk() {
+        return error == null;
+    }
+}
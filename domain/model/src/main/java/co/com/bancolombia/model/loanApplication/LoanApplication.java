@@ -25,4 +25,6 @@ public class LoanApplication {
     private BigInteger baseSalary;
     private BigDecimal interestRate;
     private OffsetDateTime createdAt;
+    // Cuándo se copiaron names y baseSalary desde auth; nulo si nunca
+    private OffsetDateTime userSyncedAt;
 }
@@ -0,0 +1,17 @@
+package co.com.bancolombia.model.loanApplication;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Posición en el listado ordenado por (created_at, id) descendente: la siguiente página
+ * empieza justo después de esta fila.
+ */
+@lombok.Value
+public class PageCursor {
+    OffsetDateTime createdAt;
+    Long id;
+
+    public static PageCursor after(LoanApplication last) {
+        return new PageCursor(last.getCreatedAt(), last.getLoanApplicationId());
+    }
+}
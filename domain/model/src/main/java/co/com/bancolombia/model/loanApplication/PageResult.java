@@ -5,5 +5,9 @@ public class PageResult<T> {
     java.util.List<T> content;
     int page;
     int size;
-    long totalElements;
+    // Nulo cuando totalKind es NONE
+    Long totalElements;
+    TotalKind totalKind;
+    boolean hasNext;
+    PageCursor nextCursor;
 }
@@ -0,0 +1,14 @@
+package co.com.bancolombia.model.loanApplication;
+
+/** Qué tan confiable es el total que acompaña una página del listado. */
+public enum TotalKind {
+    /**
+     * Contadores por estado mantenidos en memoria: pueden ir atrasados hasta un
+     * {@code loan-status.counter.reconcile-interval} respecto de la tabla.
+     */
+    CACHED,
+    /** Estimado del planificador a partir de las estadísticas de la tabla. */
+    ESTIMATED,
+    /** Sin total; solo se sabe si hay página siguiente. */
+    NONE
+}
@@ -1,19 +1,63 @@
 package co.com.bancolombia.model.loanApplication.gateways;
 
+import co.com.bancolombia.model.client.UserClientDetails;
 import co.com.bancolombia.model.loanApplication.LoanApplication;
+import co.com.bancolombia.model.loanApplication.PageCursor;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.OffsetDateTime;
 import java.util.Collection;
+import java.util.List;
 
 public interface LoanApplicationRepository {
 
     Mono<LoanApplication> save(LoanApplication u);
 
+    Mono<LoanApplication> findById(Long id);
+
+    /**
+     * Inserta la solicitud solo si el cliente no tiene otra pendiente, en una única sentencia.
+     * Emite LoanPendingException cuando ya existe una.
+     */
+    Mono<LoanApplication> saveIfNoPending(LoanApplication loanApplication);
+
+    /**
+     * Versión por lotes de saveIfNoPending. Emite una solicitud por cada entrada y en el mismo
+     * orden; las que chocan con una pendiente vuelven sin loanApplicationId.
+     */
+    Flux<LoanApplication> saveAllIfNoPending(List<LoanApplication> loanApplications);
+
     Mono<Boolean> existsByEmailAndStatus(String email, String status);
 
-    Flux<LoanApplication> findByStatuses(Collection<String> statuses, int page, int size);
-    Mono<Long> countByStatuses(Collection<String> statuses);
+    Flux<String> findEmailsWithStatus(Collection<String> emails, String status);
+
+    /** Hasta {@code limit} filas saltando las primeras {@code offset}, por (created_at, id) descendente. */
+    Flux<LoanApplication> findByStatuses(Collection<String> statuses, long offset, int limit);
+
+    /**
+     * Keyset: hasta {@code limit} filas siguientes a {@code after} por (created_at, id) descendente.
+     * Con {@code after} nulo devuelve la primera página.
+     */
+    Flux<LoanApplication> findByStatusesAfter(Collection<String> statuses, PageCursor after, int limit);
+
+    /**
+     * Igual que {@link #findByStatusesAfter}, pero trae las filas de la base por tandas a medida que
+     * se consumen: la memoria no crece con {@code limit}.
+     */
+    Flux<LoanApplication> streamByStatusesAfter(Collection<String> statuses, PageCursor after, int limit);
+
+    /** Usuarios con solicitudes cuyo snapshot de datos del cliente falta o es anterior a {@code syncedBefore}. */
+    Flux<Long> findUserIdsWithStaleSnapshot(OffsetDateTime syncedBefore, int limit);
+
+    /**
+     * Copia nombre y salario de {@code users} en las solicitudes de cada uno y marca como
+     * sincronizados todos los {@code userIds}, aunque auth no haya devuelto alguno.
+     */
+    Mono<Long> updateUserSnapshots(Collection<Long> userIds, Collection<UserClientDetails> users);
+
+    /** Filas estimadas por el planificador; no recorre la tabla. */
+    Mono<Long> estimateCountByStatuses(Collection<String> statuses);
 
 
 }
@@ -0,0 +1,28 @@
+package co.com.bancolombia.model.loanType;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@lombok.Value
+public class LoanTypeCatalog {
+
+    public static final LoanTypeCatalog EMPTY = new LoanTypeCatalog(0L, Map.of());
+
+    long version;
+    Map<String, LoanType> byName;
+
+    public static LoanTypeCatalog of(long version, Collection<LoanType> types) {
+        return new LoanTypeCatalog(version, Map.copyOf(types.stream()
+                .collect(Collectors.toMap(LoanType::getName, Function.identity(), (a, b) -> a))));
+    }
+
+    public LoanType find(String name) {
+        return name != null ? byName.get(name) : null;
+    }
+
+    public boolean isLoaded() {
+        return version > 0;
+    }
+}
@@ -1,6 +1,7 @@
 package co.com.bancolombia.model.loanType.gateways;
 
 import co.com.bancolombia.model.loanType.LoanType;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 public interface LoanTypeRepository {
@@ -9,5 +10,8 @@ public interface LoanTypeRepository {
 
     Mono<LoanType> existsByNameForAmount(String name);
 
+    Flux<LoanType> findAll();
+
+    Flux<String> listenChanges();
 
 }
@@ -0,0 +1,9 @@
+package co.com.bancolombia.model.metrics.gateways;
+
+import java.time.Duration;
+
+public interface MetricsRepository {
+    void recordTime(String name, Duration duration, String... tags);
+    void increment(String name, String... tags);
+    void recordValue(String name, double value, String... tags);
+}
@@ -0,0 +1,25 @@
+package co.com.bancolombia.model.status;
+
+import java.util.Collection;
+import java.util.Set;
+
+@lombok.Value
+public class StatusCatalog {
+
+    public static final StatusCatalog EMPTY = new StatusCatalog(0L, Set.of());
+
+    long version;
+    Set<String> names;
+
+    public static StatusCatalog of(long version, Collection<String> names) {
+        return new StatusCatalog(version, Set.copyOf(names));
+    }
+
+    public boolean contains(String name) {
+        return name != null && names.contains(name);
+    }
+
+    public boolean isLoaded() {
+        return version > 0;
+    }
+}
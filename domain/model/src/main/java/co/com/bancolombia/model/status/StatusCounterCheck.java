@@ -0,0 +1,17 @@
+package co.com.bancolombia.model.status;
+
+/** Contador mantenido frente al conteo real de un estado. */
+@lombok.Value
+public class StatusCounterCheck {
+    String status;
+    long counted;
+    long actual;
+
+    public long drift() {
+        return counted - actual;
+    }
+
+    public boolean hasDrift() {
+        return counted != actual;
+    }
+}
@@ -0,0 +1,29 @@
+package co.com.bancolombia.model.status;
+
+import java.util.Collection;
+import java.util.Map;
+
+/** Copia en memoria de loan_status_counter: solicitudes por estado. */
+@lombok.Value
+public class StatusCounts {
+
+    public static final StatusCounts EMPTY = new StatusCounts(0L, Map.of());
+
+    long version;
+    Map<String, Long> byStatus;
+
+    public static StatusCounts of(long version, Map<String, Long> byStatus) {
+        return new StatusCounts(version, Map.copyOf(byStatus));
+    }
+
+    public long sum(Collection<String> statuses) {
+        return statuses.stream()
+                .distinct()
+                .mapToLong(status -> byStatus.getOrDefault(status, 0L))
+                .sum();
+    }
+
+    public boolean isLoaded() {
+        return version > 0;
+    }
+}
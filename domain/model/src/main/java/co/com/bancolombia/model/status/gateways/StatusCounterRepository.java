@@ -0,0 +1,21 @@
+package co.com.bancolombia.model.status.gateways;
+
+import co.com.bancolombia.model.status.StatusCounterCheck;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.Map;
+
+public interface StatusCounterRepository {
+    Mono<Map<String, Long>> findAll();
+    Mono<Long> sumByStatuses(Collection<String> statuses);
+
+    /** Compara cada contador con el COUNT(*) real, ambos leídos en la misma instantánea. */
+    Flux<StatusCounterCheck> verify();
+
+    /** Recalcula los contadores desde loan_application. False si otro nodo ya lo estaba haciendo. */
+    Mono<Boolean> rebuild();
+
+    Flux<String> listenChanges();
+}
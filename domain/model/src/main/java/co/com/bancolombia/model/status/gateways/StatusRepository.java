@@ -7,5 +7,7 @@ import java.util.Collection;
 
 public interface StatusRepository {
     Mono<Boolean> existsByName(String name);
-    //Flux<String> findExistingNamesIn(Collection<String> names);
+    Flux<String> findExistingNamesIn(Collection<String> names);
+    Flux<String> findAllNames();
+    Flux<String> listenChanges();
 }
@@ -8,6 +8,12 @@ import java.util.List;
 
 public interface IUserClient {
 
+    /**
+     * Clave del contexto de Reactor con la que una tarea de fondo declara que llama con la identidad
+     * del servicio. Sin usuario autenticado y sin esta marca la llamada se rechaza.
+     */
+    String SERVICE_CALL = "userClient.serviceCall";
+
     Mono<UserClientDetails> findByEmail(String email);
 
     Flux<UserClientDetails> findByIds(List<Long> ids);
@@ -0,0 +1,15 @@
+package co.com.bancolombia.usecase.idempotency;
+
+import java.time.Duration;
+
+/**
+ * {@code ttl} es cuánto se recuerda una llave ya completada; {@code lease} cuánto la retiene un
+ * nodo mientras ejecuta. Si ese nodo se cae, a lo sumo tras {@code lease} otro puede retomarla.
+ */
+public record IdempotencySettings(
+        Duration ttl,
+        Duration lease,
+        int maxLocalEntries,
+        Duration waitTimeout,
+        Duration purgeInterval) {
+}
@@ -0,0 +1,192 @@
+package co.com.bancolombia.usecase.idempotency;
+
+import co.com.bancolombia.model.exceptions.BadRequestException;
+import co.com.bancolombia.model.exceptions.IdempotencyInProgressException;
+import co.com.bancolombia.model.loanApplication.LoanApplication;
+import co.com.bancolombia.model.loanApplication.gateways.LoanApplicationRepository;
+import co.com.bancolombia.model.loanApplication.gateways.LoggerRepository;
+import co.com.bancolombia.model.idempotency.IdempotencyRecord;
+import co.com.bancolombia.model.idempotency.gateways.IdempotencyRepository;
+import lombok.RequiredArgsConstructor;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Ejecuta una creación de préstamo a lo sumo una vez por Idempotency-Key.
+ * En el nodo, los duplicados comparten la misma ejecución (en curso o terminada).
+ * Entre nodos, la tabla idempotency_key decide quién ejecuta; los demás esperan
+ * a que quede COMPLETED y devuelven la solicitud ya creada. Si el dueño libera la llave
+ * o se le vence el lease mientras esperan, la vuelven a disputar en vez de rendirse.
+ */
+@RequiredArgsConstructor
+public class IdempotencyUseCase {
+
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(100);
+    private static final int COMPLETE_RETRIES = 2;
+
+    private final IdempotencyRepository idempotencyRepository;
+    private final LoanApplicationRepository loanApplicationRepository;
+    private final LoggerRepository logger;
+    private final IdempotencySettings settings;
+
+    private final Map<String, LocalEntry> local = new ConcurrentHashMap<>();
+    private final Queue<LocalEntry> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger tracked = new AtomicInteger();
+    private Disposable purger;
+
+    public void start() {
+        purger = Flux.interval(settings.purgeInterval(), settings.purgeInterval())
+                .concatMap(tick -> idempotencyRepository.deleteExpired()
+                        .onErrorResume(e -> {
+                            logger.warn("No se pudieron depurar las llaves de idempotencia vencidas: {}", e.getMessage());
+                            return Mono.empty();
+                        }))
+                .subscribe();
+    }
+
+    public void stop() {
+        if (purger != null) {
+            purger.dispose();
+        }
+    }
+
+    public Mono<LoanApplication> execute(String key, LoanApplication request, Supplier<Mono<LoanApplication>> action) {
+        String fingerprint = fingerprint(request);
+        return Mono.defer(() -> {
+            LocalEntry entry = local.compute(key, (k, current) ->
+                    current != null && !current.isExpired() ? current : newEntry(k, fingerprint, action));
+            evictOverflow();
+            if (!entry.fingerprint.equals(fingerprint)) {
+                return Mono.error(new BadRequestException("La Idempotency-Key ya se uso con otra solicitud"));
+            }
+            return entry.result;
+        });
+    }
+
+    private LocalEntry newEntry(String key, String fingerprint, Supplier<Mono<LoanApplication>> action) {
+        LocalEntry entry = new LocalEntry(key, fingerprint, System.nanoTime() + settings.ttl().toNanos());
+        // cache(): los duplicados concurrentes se suscriben a la misma ejecución y luego reciben su resultado
+        entry.result = acrossNodes(key, fingerprint, action)
+                .doOnError(e -> local.remove(key, entry))
+                .doFinally(signal -> entry.done = true)
+                .cache();
+        insertionOrder.add(entry);
+        tracked.incrementAndGet();
+        return entry;
+    }
+
+    /**
+     * Saca las entradas más viejas ya terminadas; las que siguen en curso vuelven a la cola para
+     * que un duplicado concurrente no dispare una segunda ejecución. Cada entrada está una sola
+     * vez en la cola, y las que ya se reemplazaron solo se descartan.
+     */
+    private void evictOverflow() {
+        int requeued = 0;
+        while (tracked.get() > settings.maxLocalEntries() && requeued < settings.maxLocalEntries()) {
+            LocalEntry oldest = insertionOrder.poll();
+            if (oldest == null) {
+                return;
+            }
+            if (!oldest.done && local.get(oldest.key) == oldest) {
+                insertionOrder.add(oldest);
+                requeued++;
+                continue;
+            }
+            tracked.decrementAndGet();
+            local.remove(oldest.key, oldest);
+        }
+    }
+
+    private Mono<LoanApplication> acrossNodes(String key, String fingerprint, Supplier<Mono<LoanApplication>> action) {
+        return idempotencyRepository.tryAcquire(key, fingerprint, settings.lease())
+                .flatMap(acquired -> acquired
+                        ? run(key, action)
+                        : replay(key, fingerprint, action));
+    }
+
+    private Mono<LoanApplication> run(String key, Supplier<Mono<LoanApplication>> action) {
+        return action.get()
+                .onErrorResume(e -> release(key).then(Mono.error(e)))
+                // Si se corta a mitad (cancelación, apagado) la llave no queda tomada hasta que venza el lease
+                .doOnCancel(() -> release(key).subscribe())
+                .flatMap(saved -> idempotencyRepository.complete(key, saved.getLoanApplicationId(), settings.ttl())
+                        .retryWhen(Retry.backoff(COMPLETE_RETRIES, POLL_INTERVAL))
+                        .onErrorResume(e -> {
+                            // La solicitud ya existe: la llave se libera sola al vencer el lease
+                            logger.warn("No se pudo marcar completada la llave de idempotencia {}: {}", key, e.getMessage());
+                            return Mono.empty();
+                        })
+                        .thenReturn(saved));
+    }
+
+    private Mono<Void> release(String key) {
+        return idempotencyRepository.release(key)
+                .onErrorResume(e -> {
+                    logger.warn("No se pudo liberar la llave de idempotencia {}: {}", key, e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<LoanApplication> replay(String key, String fingerprint, Supplier<Mono<LoanApplication>> action) {
+        long maxPolls = Math.max(1, settings.waitTimeout().toMillis() / POLL_INTERVAL.toMillis());
+        return Mono.defer(() -> idempotencyRepository.find(key))
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(found -> {
+                    if (found.isEmpty()) {
+                        // El dueño la liberó o se le venció el lease: se vuelve a disputar
+                        return idempotencyRepository.tryAcquire(key, fingerprint, settings.lease())
+                                .filter(Boolean::booleanValue)
+                                .flatMap(acquired -> run(key, action));
+                    }
+                    IdempotencyRecord stored = found.get();
+                    if (!fingerprint.equals(stored.getFingerprint())) {
+                        return Mono.error(new BadRequestException("La Idempotency-Key ya se uso con otra solicitud"));
+                    }
+                    // Aún en proceso en otro nodo: vacío para volver a consultar
+                    return stored.isCompleted()
+                            ? loanApplicationRepository.findById(stored.getLoanApplicationId())
+                            : Mono.<LoanApplication>empty();
+                })
+                .repeatWhenEmpty(polls -> polls.take(maxPolls).delayElements(POLL_INTERVAL))
+                .switchIfEmpty(Mono.error(() -> new IdempotencyInProgressException(key)))
+                .doOnNext(loan -> logger.info("Respuesta repetida por Idempotency-Key {} id={}", key, loan.getLoanApplicationId()));
+    }
+
+    private static String fingerprint(LoanApplication request) {
+        return String.join("|",
+                String.valueOf(request.getEmail()),
+                String.valueOf(request.getAmount()),
+                String.valueOf(request.getLoanTermMonths()),
+                String.valueOf(request.getLoanType()));
+    }
+
+    private static final class LocalEntry {
+        private final String key;
+        private final String fingerprint;
+        private final long expiresAtNanos;
+        private Mono<LoanApplication> result;
+        private volatile boolean done;
+
+        private LocalEntry(String key, String fingerprint, long expiresAtNanos) {
+            this.key = key;
+            this.fingerprint = fingerprint;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+
+        private boolean isExpired() {
+            return System.nanoTime() - expiresAtNanos > 0;
+        }
+    }
+}
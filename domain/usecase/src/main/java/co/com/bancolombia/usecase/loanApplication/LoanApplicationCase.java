@@ -1,35 +1,67 @@
 package co.com.bancolombia.usecase.loanApplication;
 
+import co.com.bancolombia.model.client.UserClientDetails;
+import co.com.bancolombia.model.exceptions.LoanPendingException;
+import co.com.bancolombia.model.exceptions.NotFoundException;
+import co.com.bancolombia.model.loanApplication.BulkLoanItem;
 import co.com.bancolombia.model.loanApplication.LoanApplication;
 import co.com.bancolombia.model.loanApplication.gateways.LoggerRepository;
 import co.com.bancolombia.model.loanApplication.gateways.LoanApplicationRepository;
 import co.com.bancolombia.model.loanType.LoanType;
+import co.com.bancolombia.model.metrics.gateways.MetricsRepository;
 import co.com.bancolombia.usecase.client.IUserClient;
 import co.com.bancolombia.usecase.validation.LoanValidation;
 import lombok.RequiredArgsConstructor;
 
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.time.OffsetDateTime;
 import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @RequiredArgsConstructor
 public class LoanApplicationCase {
 
+    private static final String VALIDATION_TIMER = "loan.create.validation";
+    private static final String USER_SOURCE_COUNTER = "loan.create.user.source";
+    private static final String PENDING = "PENDING_REVIEW";
+    private static final int USER_LOOKUP_CONCURRENCY = 16;
+
     private final LoanApplicationRepository loanApplicationRepository;
     private final LoanValidation validation;
     private final LoggerRepository logger;
     private final IUserClient iUserClient;
+    private final MetricsRepository metrics;
 
     public Mono<LoanApplication> create(LoanApplication loanApplication) {
-        final String PENDING = "PENDING_REVIEW";
+        return create(loanApplication, null);
+    }
+
+    /**
+     * Igual que {@link #create(LoanApplication)}, pero si ya se conocen los datos del cliente
+     * (p. ej. desde los claims del token) no se consulta el micro de autenticación.
+     */
+    public Mono<LoanApplication> create(LoanApplication loanApplication, UserClientDetails knownUser) {
         final String loanTypeName = loanApplication.getLoanType();
         final String email = loanApplication.getEmail();
 
-        return validation.validateNoPendingLoan(email, PENDING)
-                .then(validation.validateLoanTypeExists(loanTypeName))
-                .then(validation.validateAndGetLoanType(loanTypeName, loanApplication.getAmount()))
-                .zipWhen(loanType -> iUserClient.findByEmail(email))
+        metrics.increment(USER_SOURCE_COUNTER, "source", knownUser != null ? "token" : "auth");
+        Mono<UserClientDetails> user = knownUser != null
+                ? Mono.just(knownUser)
+                : iUserClient.findByEmail(email);
+
+        // Las validaciones arrancan juntas; zip falla con el primer error y cancela la otra.
+        // La regla de una sola pendiente la garantiza el insert condicional (saveIfNoPending)
+        return Mono.zip(
+                        timed("loanType", validation.validateAndGetLoanType(loanTypeName, loanApplication.getAmount())),
+                        timed("user", user))
                 .flatMap(tuple -> {
                     LoanType loanType = tuple.getT1();
                     var userClientDetails = tuple.getT2();
@@ -39,15 +71,140 @@ public class LoanApplicationCase {
                     loanApplication.setStatus(PENDING);
                     loanApplication.setDocument(userClientDetails.getDocument());
                     loanApplication.setUserId(userClientDetails.getUserId());
-                    loanApplication.setNames(userClientDetails.getName());
                     loanApplication.setCreatedAt(OffsetDateTime.now(ZoneId.of("America/Bogota")));
                     loanApplication.setInterestRate(loanType.getInterestRate());
+                    // Los claims del token no traen salario: ese snapshot lo completa el refresco
+                    snapshotUser(loanApplication, userClientDetails, knownUser == null);
 
-                    return loanApplicationRepository.save(loanApplication);
+                    return loanApplicationRepository.saveIfNoPending(loanApplication);
                 })
                 .doOnSuccess(u -> logger.info("Prestamo creado doc={}, valor={}, estado={}, id={}",
                         u.getDocument(), u.getAmount(), u.getStatus(), u.getLoanApplicationId()));
     }
 
+    /**
+     * Crea solicitudes en lotes de {@code chunkSize}: por lote hace una sola consulta de pendientes,
+     * valida el tipo contra el catálogo en memoria, busca cada cliente una vez y guarda todo en un
+     * único batch. Los ítems que ya llegan con error se devuelven tal cual. Un lote no empieza hasta
+     * que el anterior termina, así la velocidad la marca quien consume la respuesta.
+     */
+    public Flux<BulkLoanItem> createAll(Flux<BulkLoanItem> items, int chunkSize) {
+        return items.buffer(chunkSize)
+                .concatMap(this::createChunk, 1);
+    }
+
+    private Flux<BulkLoanItem> createChunk(List<BulkLoanItem> chunk) {
+        List<String> emails = emailsOf(chunk);
+        if (emails.isEmpty()) {
+            return Flux.fromIterable(chunk);
+        }
+        return loanApplicationRepository.findEmailsWithStatus(emails, PENDING)
+                .collect(Collectors.toSet())
+                .flatMapMany(pending -> Flux.fromIterable(chunk)
+                        .concatMap(item -> validateItem(item, pending)))
+                .collectList()
+                .flatMapMany(validated -> findUsers(emailsOf(validated))
+                        .flatMapMany(users -> persist(validated.stream()
+                                .map(item -> withUser(item, users))
+                                .toList())))
+                .doOnComplete(() -> logger.info("Lote de {} solicitudes procesado", chunk.size()));
+    }
+
+    private Mono<BulkLoanItem> validateItem(BulkLoanItem item, Set<String> pendingEmails) {
+        if (!item.isOk()) {
+            return Mono.just(item);
+        }
+        LoanApplication loan = item.getLoanApplication();
+        if (pendingEmails.contains(loan.getEmail())) {
+            return Mono.just(item.fail(new LoanPendingException(loan.getEmail())));
+        }
+        return validation.validateAndGetLoanType(loan.getLoanType(), loan.getAmount())
+                .map(loanType -> {
+                    loan.setInterestRate(loanType.getInterestRate());
+                    return item;
+                })
+                .onErrorResume(e -> Mono.just(item.fail(e)));
+    }
+
+    private Mono<Map<String, UserLookup>> findUsers(List<String> emails) {
+        return Flux.fromIterable(emails)
+                .flatMap(email -> iUserClient.findByEmail(email)
+                        .map(user -> new UserLookup(email, user, null))
+                        .switchIfEmpty(Mono.fromSupplier(() ->
+                                new UserLookup(email, null, new NotFoundException("El usuario no existe"))))
+                        .onErrorResume(e -> Mono.just(new UserLookup(email, null, e))), USER_LOOKUP_CONCURRENCY)
+                .collectMap(UserLookup::email);
+    }
+
+    private BulkLoanItem withUser(BulkLoanItem item, Map<String, UserLookup> users) {
+        if (!item.isOk()) {
+            return item;
+        }
+        LoanApplication loan = item.getLoanApplication();
+        UserLookup lookup = users.get(loan.getEmail());
+        if (lookup.error() != null) {
+            return item.fail(lookup.error());
+        }
+        loan.setStatus(PENDING);
+        loan.setDocument(lookup.user().getDocument());
+        loan.setUserId(lookup.user().getUserId());
+        loan.setCreatedAt(OffsetDateTime.now(ZoneId.of("America/Bogota")));
+        snapshotUser(loan, lookup.user(), true);
+        return item;
+    }
+
+    // Copia de los datos del cliente que muestra el listado, para no pedirlos a auth al listar
+    private static void snapshotUser(LoanApplication loan, UserClientDetails user, boolean complete) {
+        loan.setNames(user.fullName());
+        loan.setBaseSalary(user.getBaseSalary());
+        loan.setUserSyncedAt(complete ? loan.getCreatedAt() : null);
+    }
+
+    private Flux<BulkLoanItem> persist(List<BulkLoanItem> items) {
+        List<BulkLoanItem> toSave = items.stream().filter(BulkLoanItem::isOk).toList();
+        if (toSave.isEmpty()) {
+            return Flux.fromIterable(items);
+        }
+        return loanApplicationRepository.saveAllIfNoPending(toSave.stream()
+                        .map(BulkLoanItem::getLoanApplication)
+                        .toList())
+                .collectList()
+                .flatMapMany(saved -> {
+                    Map<Long, BulkLoanItem> byIndex = new HashMap<>();
+                    for (int i = 0; i < toSave.size(); i++) {
+                        BulkLoanItem item = toSave.get(i);
+                        LoanApplication result = saved.get(i);
+                        byIndex.put(item.getIndex(), result.getLoanApplicationId() != null
+                                ? item.withLoanApplication(result)
+                                : item.fail(new LoanPendingException(result.getEmail())));
+                    }
+                    List<BulkLoanItem> merged = new ArrayList<>(items.size());
+                    items.forEach(item -> merged.add(byIndex.getOrDefault(item.getIndex(), item)));
+                    return Flux.fromIterable(merged);
+                })
+                // Si falla el batch completo, fallan todas las que iban a guardarse
+                .onErrorResume(e -> Flux.fromIterable(items)
+                        .map(item -> item.isOk() ? item.fail(e) : item));
+    }
+
+    private static List<String> emailsOf(List<BulkLoanItem> items) {
+        return items.stream()
+                .filter(BulkLoanItem::isOk)
+                .map(item -> item.getLoanApplication().getEmail())
+                .distinct()
+                .toList();
+    }
+
+    private record UserLookup(String email, UserClientDetails user, Throwable error) {
+    }
+
+    private <T> Mono<T> timed(String branch, Mono<T> source) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return source.doFinally(signal -> metrics.recordTime(VALIDATION_TIMER,
+                    Duration.ofNanos(System.nanoTime() - start),
+                    "branch", branch, "signal", signal.name()));
+        });
+    }
 
-}
\ No newline at end of file
+}
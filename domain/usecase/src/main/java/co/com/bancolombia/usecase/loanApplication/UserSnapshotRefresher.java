@@ -0,0 +1,77 @@
+package co.com.bancolombia.usecase.loanApplication;
+
+import co.com.bancolombia.model.exceptions.ForbiddenRoleException;
+import co.com.bancolombia.model.exceptions.UnauthorizedException;
+import co.com.bancolombia.model.loanApplication.gateways.LoanApplicationRepository;
+import co.com.bancolombia.model.loanApplication.gateways.LoggerRepository;
+import co.com.bancolombia.model.metrics.gateways.MetricsRepository;
+import co.com.bancolombia.usecase.client.IUserClient;
+import lombok.RequiredArgsConstructor;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+
+@RequiredArgsConstructor
+public class UserSnapshotRefresher {
+
+    private static final String REFRESH_COUNTER = "loan.user.snapshot.refresh";
+    private static final String MISSING_SUMMARY = "loan.user.snapshot.missing";
+
+    private final LoanApplicationRepository loanApplicationRepository;
+    private final IUserClient userClient;
+    private final LoggerRepository logger;
+    private final MetricsRepository metrics;
+    private final Duration interval;
+    private final Duration maxAge;
+    private final int batchSize;
+
+    private Disposable task;
+
+    /** Cada {@code interval} refresca un lote de hasta {@code batchSize} usuarios con snapshot vencido. */
+    public void start() {
+        task = Flux.interval(interval, interval)
+                .onBackpressureDrop()
+                .concatMap(tick -> refreshStale().onErrorResume(e -> Mono.empty()), 1)
+                .subscribe();
+    }
+
+    public void stop() {
+        if (task != null) {
+            task.dispose();
+        }
+    }
+
+    /** Emite cuántas solicitudes se actualizaron. */
+    public Mono<Long> refreshStale() {
+        return Mono.defer(() -> loanApplicationRepository
+                        .findUserIdsWithStaleSnapshot(OffsetDateTime.now().minus(maxAge), batchSize)
+                        .collectList())
+                .filter(ids -> !ids.isEmpty())
+                .flatMap(ids -> userClient.findByIds(ids)
+                        // No hay petición de origen: se llama explícitamente como el servicio
+                        .contextWrite(Context.of(IUserClient.SERVICE_CALL, Boolean.TRUE))
+                        .collectList()
+                        .flatMap(users -> loanApplicationRepository.updateUserSnapshots(ids, users)
+                                .doOnNext(updated -> {
+                                    metrics.increment(REFRESH_COUNTER, "outcome", "success");
+                                    metrics.recordValue(MISSING_SUMMARY, Math.max(0, ids.size() - users.size()));
+                                    logger.info("Snapshot de {} usuarios refrescado en {} solicitudes", ids.size(), updated);
+                                })))
+                .defaultIfEmpty(0L)
+                .doOnError(e -> {
+                    // Un rechazo de auth no se arregla solo: es el token de servicio o su rol
+                    if (e instanceof UnauthorizedException || e instanceof ForbiddenRoleException) {
+                        metrics.increment(REFRESH_COUNTER, "outcome", "unauthorized");
+                        logger.error("Auth rechazo el refresco de snapshots, revisar el token de servicio: {}",
+                                e.getMessage());
+                    } else {
+                        metrics.increment(REFRESH_COUNTER, "outcome", "error");
+                        logger.warn("No se pudo refrescar el snapshot de usuarios: {}", e.getMessage());
+                    }
+                });
+    }
+}
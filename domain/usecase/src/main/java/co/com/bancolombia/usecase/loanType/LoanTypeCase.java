@@ -1,4 +1,94 @@
 package co.com.bancolombia.usecase.loanType;
 
+import co.com.bancolombia.model.loanApplication.gateways.LoggerRepository;
+import co.com.bancolombia.model.loanType.LoanType;
+import co.com.bancolombia.model.loanType.LoanTypeCatalog;
+import co.com.bancolombia.model.loanType.gateways.LoanTypeRepository;
+import co.com.bancolombia.model.metrics.gateways.MetricsRepository;
+import co.com.bancolombia.usecase.snapshot.VersionedSnapshot;
+import lombok.RequiredArgsConstructor;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+@RequiredArgsConstructor
 public class LoanTypeCase {
+
+    private static final String LOOKUP_COUNTER = "loan.type.catalog.lookup";
+    private static final String RELOAD_COUNTER = "loan.type.catalog.reload";
+
+    private final LoanTypeRepository loanTypeRepository;
+    private final LoggerRepository logger;
+    private final MetricsRepository metrics;
+    private final Duration reconcileInterval;
+
+    private final VersionedSnapshot<LoanTypeCatalog> catalog =
+            new VersionedSnapshot<>(LoanTypeCatalog.EMPTY, LoanTypeCatalog::getVersion);
+    private Disposable refresher;
+
+    /**
+     * Carga el catálogo y lo mantiene al día: recarga con cada NOTIFY de la base
+     * y cada {@code reconcileInterval} por si se perdió alguna notificación.
+     */
+    public void start() {
+        Flux<String> triggers = Flux.merge(
+                Mono.just("startup"),
+                loanTypeRepository.listenChanges().map(channel -> "notify"),
+                Flux.interval(reconcileInterval, reconcileInterval).map(tick -> "reconcile"));
+
+        refresher = triggers
+                .onBackpressureLatest()
+                .concatMap(trigger -> reload(trigger).onErrorResume(e -> Mono.empty()), 1)
+                .subscribe();
+    }
+
+    public void stop() {
+        if (refresher != null) {
+            refresher.dispose();
+        }
+    }
+
+    public LoanTypeCatalog current() {
+        return catalog.get();
+    }
+
+    public Mono<LoanTypeCatalog> reload(String trigger) {
+        return catalog.reload(version -> loanTypeRepository.findAll()
+                        .collectList()
+                        .map(types -> LoanTypeCatalog.of(version, types)))
+                .doOnNext(swapped -> {
+                    metrics.increment(RELOAD_COUNTER, "trigger", trigger, "outcome", "success");
+                    logger.info("Catalogo de tipos de prestamo recargado version={} tipos={} origen={}",
+                            swapped.getVersion(), swapped.getByName().size(), trigger);
+                })
+                .doOnError(e -> {
+                    metrics.increment(RELOAD_COUNTER, "trigger", trigger, "outcome", "error");
+                    logger.warn("No se pudo recargar el catalogo de tipos de prestamo: {}", e.getMessage());
+                });
+    }
+
+    public Mono<LoanType> findByName(String name) {
+        return Mono.defer(() -> {
+            LoanTypeCatalog snapshot = catalog.get();
+            LoanType cached = snapshot.find(name);
+            if (cached != null) {
+                metrics.increment(LOOKUP_COUNTER, "result", "hit");
+                return Mono.just(cached);
+            }
+            metrics.increment(LOOKUP_COUNTER, "result", "miss");
+            return loanTypeRepository.existsByNameForAmount(name)
+                    .doOnNext(found -> {
+                        // Existe en la base pero no en memoria: el catálogo está desactualizado
+                        if (snapshot.isLoaded()) {
+                            reload("miss").onErrorResume(e -> Mono.empty()).subscribe();
+                        }
+                    });
+        });
+    }
+
+    public Mono<Boolean> existsByName(String name) {
+        return findByName(name).hasElement();
+    }
 }
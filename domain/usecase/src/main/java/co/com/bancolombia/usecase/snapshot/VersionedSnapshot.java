@@ -0,0 +1,36 @@
+package co.com.bancolombia.usecase.snapshot;
+
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Copia en memoria que se recarga desde la base (catálogos, contadores). Cada recarga toma su
+ * número de versión al empezar; si dos se cruzan queda la que empezó de última aunque termine
+ * antes la otra, así una lectura vieja nunca pisa a una más nueva.
+ */
+public class VersionedSnapshot<T> {
+
+    private final AtomicReference<T> current;
+    private final ToLongFunction<T> versionOf;
+    private final AtomicLong versions = new AtomicLong();
+
+    public VersionedSnapshot(T empty, ToLongFunction<T> versionOf) {
+        this.current = new AtomicReference<>(empty);
+        this.versionOf = versionOf;
+    }
+
+    public T get() {
+        return current.get();
+    }
+
+    /** {@code loader} arma la copia con la versión que recibe; emite la que quedó publicada. */
+    public Mono<T> reload(LongFunction<Mono<T>> loader) {
+        return Mono.defer(() -> loader.apply(versions.incrementAndGet()))
+                .map(next -> current.accumulateAndGet(next, (published, candidate) ->
+                        versionOf.applyAsLong(candidate) > versionOf.applyAsLong(published) ? candidate : published));
+    }
+}
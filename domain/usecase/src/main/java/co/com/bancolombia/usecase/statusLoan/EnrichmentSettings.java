@@ -0,0 +1,7 @@
+package co.com.bancolombia.usecase.statusLoan;
+
+/** Cómo se piden los datos del cliente al micro de autenticación al armar un listado. */
+public record EnrichmentSettings(
+        int chunkSize,
+        int concurrency) {
+}
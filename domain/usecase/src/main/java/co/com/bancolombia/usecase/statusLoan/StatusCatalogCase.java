@@ -0,0 +1,102 @@
+package co.com.bancolombia.usecase.statusLoan;
+
+import co.com.bancolombia.model.loanApplication.gateways.LoggerRepository;
+import co.com.bancolombia.model.metrics.gateways.MetricsRepository;
+import co.com.bancolombia.model.status.StatusCatalog;
+import co.com.bancolombia.model.status.gateways.StatusRepository;
+import co.com.bancolombia.usecase.snapshot.VersionedSnapshot;
+import lombok.RequiredArgsConstructor;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@RequiredArgsConstructor
+public class StatusCatalogCase {
+
+    private static final String LOOKUP_COUNTER = "loan.status.catalog.lookup";
+    private static final String RELOAD_COUNTER = "loan.status.catalog.reload";
+
+    private final StatusRepository statusRepository;
+    private final LoggerRepository logger;
+    private final MetricsRepository metrics;
+    private final Duration reconcileInterval;
+
+    private final VersionedSnapshot<StatusCatalog> catalog =
+            new VersionedSnapshot<>(StatusCatalog.EMPTY, StatusCatalog::getVersion);
+    private Disposable refresher;
+
+    /**
+     * Carga los estados y los mantiene al día con los NOTIFY de la base y una
+     * reconciliación cada {@code reconcileInterval}.
+     */
+    public void start() {
+        Flux<String> triggers = Flux.merge(
+                Mono.just("startup"),
+                statusRepository.listenChanges().map(channel -> "notify"),
+                Flux.interval(reconcileInterval, reconcileInterval).map(tick -> "reconcile"));
+
+        refresher = triggers
+                .onBackpressureLatest()
+                .concatMap(trigger -> reload(trigger).onErrorResume(e -> Mono.empty()), 1)
+                .subscribe();
+    }
+
+    public void stop() {
+        if (refresher != null) {
+            refresher.dispose();
+        }
+    }
+
+    public StatusCatalog current() {
+        return catalog.get();
+    }
+
+    public Mono<StatusCatalog> reload(String trigger) {
+        return catalog.reload(version -> statusRepository.findAllNames()
+                        .collectList()
+                        .map(names -> StatusCatalog.of(version, names)))
+                .doOnNext(swapped -> {
+                    metrics.increment(RELOAD_COUNTER, "trigger", trigger, "outcome", "success");
+                    logger.info("Catalogo de estados recargado version={} estados={} origen={}",
+                            swapped.getVersion(), swapped.getNames().size(), trigger);
+                })
+                .doOnError(e -> {
+                    metrics.increment(RELOAD_COUNTER, "trigger", trigger, "outcome", "error");
+                    logger.warn("No se pudo recargar el catalogo de estados: {}", e.getMessage());
+                });
+    }
+
+    /**
+     * Devuelve los nombres que no existen como estado, en el orden recibido. Si todos están
+     * en memoria no consulta la base; si no, resuelve los desconocidos con una sola consulta.
+     */
+    public Mono<Set<String>> findMissing(Collection<String> names) {
+        return Mono.defer(() -> {
+            StatusCatalog snapshot = catalog.get();
+            Set<String> unknown = names.stream()
+                    .filter(name -> !snapshot.contains(name))
+                    .collect(Collectors.toCollection(LinkedHashSet::new));
+            if (unknown.isEmpty()) {
+                metrics.increment(LOOKUP_COUNTER, "result", "hit");
+                return Mono.just(Set.<String>of());
+            }
+            metrics.increment(LOOKUP_COUNTER, "result", "miss");
+            return statusRepository.findExistingNamesIn(unknown)
+                    .collect(Collectors.toSet())
+                    .map(existing -> {
+                        // Existe en la base pero no en memoria: el catálogo está desactualizado
+                        if (!existing.isEmpty() && snapshot.isLoaded()) {
+                            reload("miss").onErrorResume(e -> Mono.empty()).subscribe();
+                        }
+                        unknown.removeAll(existing);
+                        return unknown;
+                    });
+        });
+    }
+}
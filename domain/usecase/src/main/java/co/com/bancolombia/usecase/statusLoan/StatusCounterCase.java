@@ -0,0 +1,131 @@
+package co.com.bancolombia.usecase.statusLoan;
+
+import co.com.bancolombia.model.loanApplication.gateways.LoggerRepository;
+import co.com.bancolombia.model.metrics.gateways.MetricsRepository;
+import co.com.bancolombia.model.status.StatusCounterCheck;
+import co.com.bancolombia.model.status.StatusCounts;
+import co.com.bancolombia.model.status.gateways.StatusCounterRepository;
+import co.com.bancolombia.usecase.snapshot.VersionedSnapshot;
+import lombok.RequiredArgsConstructor;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Collection;
+
+@RequiredArgsConstructor
+public class StatusCounterCase {
+
+    private static final String LOOKUP_COUNTER = "loan.status.counter.lookup";
+    private static final String RELOAD_COUNTER = "loan.status.counter.reload";
+    private static final String VERIFY_COUNTER = "loan.status.counter.verify";
+    private static final String DRIFT_SUMMARY = "loan.status.counter.drift";
+    // Solo notifica la reconstrucción; si varios nodos reconstruyen seguido se recarga una vez
+    private static final Duration NOTIFY_WINDOW = Duration.ofMillis(250);
+
+    private final StatusCounterRepository counterRepository;
+    private final LoggerRepository logger;
+    private final MetricsRepository metrics;
+    private final Duration reconcileInterval;
+    private final Duration verifyInterval;
+
+    private final VersionedSnapshot<StatusCounts> counts =
+            new VersionedSnapshot<>(StatusCounts.EMPTY, StatusCounts::getVersion);
+    private Disposable refresher;
+    private Disposable verifier;
+
+    /**
+     * Carga los contadores y los refresca cada {@code reconcileInterval} y cuando otro nodo los
+     * reconstruye; cada {@code verifyInterval} los compara con el conteo real.
+     */
+    public void start() {
+        Flux<String> triggers = Flux.merge(
+                Mono.just("startup"),
+                counterRepository.listenChanges().sample(NOTIFY_WINDOW).map(status -> "notify"),
+                Flux.interval(reconcileInterval, reconcileInterval).map(tick -> "reconcile"));
+
+        refresher = triggers
+                .onBackpressureLatest()
+                .concatMap(trigger -> reload(trigger).onErrorResume(e -> Mono.empty()), 1)
+                .subscribe();
+
+        verifier = Flux.interval(verifyInterval, verifyInterval)
+                .onBackpressureDrop()
+                .concatMap(tick -> verify().onErrorResume(e -> {
+                    logger.warn("No se pudo verificar los contadores por estado: {}", e.getMessage());
+                    return Mono.empty();
+                }), 1)
+                .subscribe();
+    }
+
+    public void stop() {
+        if (refresher != null) {
+            refresher.dispose();
+        }
+        if (verifier != null) {
+            verifier.dispose();
+        }
+    }
+
+    public StatusCounts current() {
+        return counts.get();
+    }
+
+    public Mono<StatusCounts> reload(String trigger) {
+        return counts.reload(version -> counterRepository.findAll()
+                        .map(byStatus -> StatusCounts.of(version, byStatus)))
+                .doOnNext(swapped -> metrics.increment(RELOAD_COUNTER, "trigger", trigger, "outcome", "success"))
+                .doOnError(e -> {
+                    metrics.increment(RELOAD_COUNTER, "trigger", trigger, "outcome", "error");
+                    logger.warn("No se pudo recargar los contadores por estado: {}", e.getMessage());
+                });
+    }
+
+    /** Total de solicitudes en esos estados; desde memoria si ya se cargaron los contadores. */
+    public Mono<Long> count(Collection<String> statuses) {
+        return Mono.defer(() -> {
+            StatusCounts snapshot = counts.get();
+            if (snapshot.isLoaded()) {
+                metrics.increment(LOOKUP_COUNTER, "result", "hit");
+                return Mono.just(snapshot.sum(statuses));
+            }
+            metrics.increment(LOOKUP_COUNTER, "result", "miss");
+            return counterRepository.sumByStatuses(statuses);
+        });
+    }
+
+    /**
+     * Compara los contadores con el conteo real y, si alguno se desvió, los reconstruye.
+     * Emite true cuando hubo que reconstruir.
+     */
+    public Mono<Boolean> verify() {
+        return counterRepository.verify()
+                .filter(StatusCounterCheck::hasDrift)
+                .doOnNext(check -> {
+                    metrics.recordValue(DRIFT_SUMMARY, Math.abs(check.drift()), "status", check.getStatus());
+                    logger.warn("Contador desviado estado={} contador={} real={}",
+                            check.getStatus(), check.getCounted(), check.getActual());
+                })
+                .collectList()
+                .flatMap(drifted -> {
+                    metrics.increment(VERIFY_COUNTER, "outcome", drifted.isEmpty() ? "ok" : "drift");
+                    if (drifted.isEmpty()) {
+                        return Mono.just(false);
+                    }
+                    return counterRepository.rebuild()
+                            .flatMap(rebuilt -> {
+                                if (!rebuilt) {
+                                    // Otro nodo vio el mismo desvío y ya reconstruye; su NOTIFY nos recarga
+                                    logger.info("Contadores por estado: otro nodo ya los esta reconstruyendo");
+                                    return Mono.just(false);
+                                }
+                                return reload("rebuild")
+                                        .doOnNext(reloaded -> logger.info(
+                                                "Contadores por estado reconstruidos, {} estado(s) desviados",
+                                                drifted.size()))
+                                        .thenReturn(true);
+                            });
+                });
+    }
+}
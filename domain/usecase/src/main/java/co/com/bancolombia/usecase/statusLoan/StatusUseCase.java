@@ -2,97 +2,203 @@ package co.com.bancolombia.usecase.statusLoan;
 
 import co.com.bancolombia.model.client.UserClientDetails;
 import co.com.bancolombia.model.exceptions.NotFoundException;
+import co.com.bancolombia.model.exceptions.ServiceUnavailableException;
 import co.com.bancolombia.model.loanApplication.LoanApplication;
+import co.com.bancolombia.model.loanApplication.PageCursor;
 import co.com.bancolombia.model.loanApplication.PageResult;
+import co.com.bancolombia.model.loanApplication.TotalKind;
 import co.com.bancolombia.model.loanApplication.gateways.LoanApplicationRepository;
 import co.com.bancolombia.model.loanApplication.gateways.LoggerRepository;
-import co.com.bancolombia.model.status.gateways.StatusRepository;
+import co.com.bancolombia.model.metrics.gateways.MetricsRepository;
 import co.com.bancolombia.usecase.client.IUserClient;
 import lombok.RequiredArgsConstructor;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 
 @RequiredArgsConstructor
 public class StatusUseCase {
 
+    private static final Duration STREAM_WINDOW_TIMEOUT = Duration.ofMillis(50);
+    private static final String ENRICH_CHUNK_TIMER = "loan.list.enrich.chunk";
+    private static final String ENRICH_MISSING = "loan.list.enrich.missing";
+
     private final LoanApplicationRepository loanApplicationRepository;
-    private final StatusRepository statusRepository;
+    private final StatusCatalogCase statusCatalog;
+    private final StatusCounterCase statusCounter;
     private final LoggerRepository logger;
     private final IUserClient userClient;
+    private final MetricsRepository metrics;
+    private final EnrichmentSettings enrichment;
 
     public Mono<PageResult<LoanApplication>> list(int page, int size, Collection<String> states) {
+        return list(page, size, states, TotalKind.CACHED, true);
+    }
+
+    /**
+     * Con {@code liveUsers} los datos del cliente se piden a auth para todas las filas; si no, se usa
+     * el snapshot guardado y solo se consultan las filas que aún no lo tienen completo.
+     */
+    public Mono<PageResult<LoanApplication>> list(int page, int size, Collection<String> states, TotalKind totalKind,
+                                                  boolean liveUsers) {
+        return page(states, page, size, totalKind, liveUsers,
+                () -> loanApplicationRepository.findByStatuses(states, (long) page * size, size + 1));
+    }
+
+    /**
+     * Página que sigue a {@code after} en orden (created_at, id) descendente; sin cursor es la
+     * primera. El costo no depende de qué tan profunda sea la página.
+     */
+    public Mono<PageResult<LoanApplication>> listAfter(PageCursor after, int size, Collection<String> states,
+                                                       TotalKind totalKind, boolean liveUsers) {
+        return page(states, 0, size, totalKind, liveUsers,
+                () -> loanApplicationRepository.findByStatusesAfter(states, after, size + 1));
+    }
+
+    /**
+     * Listado por streaming: las filas salen de la base a medida que se consumen y se completan
+     * con los datos del cliente en ventanas de hasta {@code window}, en el mismo orden. Solo hay
+     * una ventana en memoria mientras se consulta auth, sin importar {@code limit}.
+     */
+    public Flux<LoanApplication> stream(Collection<String> states, PageCursor after, int limit, int window,
+                                        boolean liveUsers) {
+        if (states == null || states.isEmpty()) {
+            return Flux.error(new NotFoundException("Debes proporcionar al menos un estado"));
+        }
+        return statusCatalog.findMissing(states)
+                .flatMapMany(missing -> {
+                    if (!missing.isEmpty()) {
+                        return Flux.error(new NotFoundException("Estado(s) no encontrados: " + String.join(", ", missing)));
+                    }
+                    return loanApplicationRepository.streamByStatusesAfter(states, after, limit)
+                            // Ventana incompleta sale por tiempo: el primer byte no espera a llenarla
+                            .bufferTimeout(window, STREAM_WINDOW_TIMEOUT, true)
+                            .concatMap(items -> withUsers(items, liveUsers), 1)
+                            .concatMapIterable(items -> items);
+                });
+    }
+
+    private Mono<PageResult<LoanApplication>> page(Collection<String> states, int page, int size, TotalKind totalKind,
+                                                   boolean liveUsers, Supplier<Flux<LoanApplication>> rows) {
         if (states == null || states.isEmpty()) {
             return Mono.error(new NotFoundException("Debes proporcionar al menos un estado"));
         }
 
-        return Flux.fromIterable(states)
-                .flatMap(name ->
-                        statusRepository.existsByName(name)
-                                .map(exists -> reactor.util.function.Tuples.of(name, exists))
-                )
-                .collectList()
-                .flatMap(pairs -> {
-                    var missing = pairs.stream()
-                            .filter(t -> !t.getT2())
-                            .map(reactor.util.function.Tuple2::getT1)
-                            .toList();
+        return statusCatalog.findMissing(states)
+                .flatMap(missing -> {
                     if (!missing.isEmpty()) {
                         return Mono.error(new NotFoundException("Estado(s) no encontrados: " + String.join(", ", missing)));
                     }
-                    return loanApplicationRepository.countByStatuses(states)
-                            .flatMap(total -> loanApplicationRepository.findByStatuses(states, page, size)
-                                    .collectList()
-                                    .flatMap(items -> {
-                                        // ------ NUEVO: construir lista de userIds y pedir al micro de autenticación ------
-                                        var userIds = items.stream()
-                                                .map(LoanApplication::getUserId)
-                                                .filter(Objects::nonNull)
-                                                .distinct()
-                                                .toList();
-
-                                        if (userIds.isEmpty()) {
-                                            logger.info("Página sin userIds asociados (page={}, size={})", page, size);
-                                            return Mono.just(new PageResult<>(items, page, size, total));
-                                        }
-
-                                        // 2) Llamada micro de autenticación
-                                        return userClient.findByIds(userIds)
-                                                .collectList()
-                                                .map(users -> {
-                                                    // Mapear id -> UserClientDetails
-                                                    var userMap = users.stream()
-                                                            .collect(Collectors.toMap(
-                                                                    UserClientDetails::getUserId,
-                                                                    u -> u,
-                                                                    (a, b) -> a
-                                                            ));
-
-                                                    // 4) Mezclar: setear  en cada LoanApplication
-                                                    items.forEach(loan -> {
-                                                        var user = userMap.get(loan.getUserId());
-                                                        if (user != null) {
-                                                            loan.setBaseSalary(user.getBaseSalary());
-                                                            loan.setNames((user.getName() + " " + user.getLastName()).trim());
-                                                        }
-                                                    });
-                                                    logger.info("Usuarios obtenidos desde auth: {}", users.size());
-                                                    var missingUsers = userIds.stream()
-                                                            .filter(id -> !userMap.containsKey(id))
-                                                            .toList();
-                                                    if (!missingUsers.isEmpty()) {
-                                                        logger.warn("Usuarios no encontrados en auth para IDs: {}", missingUsers);
-                                                    }
-                                                    return new PageResult<>(items, page, size, total);
-                                                });
-                                    })
-                            );
+                    // Total y página van en paralelo, cada consulta por su propia conexión
+                    return Mono.zip(total(states, totalKind), rows.get().collectList())
+                            .flatMap(tuple -> {
+                                List<LoanApplication> fetched = tuple.getT2();
+                                // Se pide una fila de más solo para saber si hay página siguiente
+                                boolean hasNext = fetched.size() > size;
+                                List<LoanApplication> items = hasNext ? fetched.subList(0, size) : fetched;
+                                Long total = tuple.getT1().orElse(null);
+                                return withUsers(items, liveUsers)
+                                        .map(enriched -> new PageResult<>(enriched, page, size, total, totalKind,
+                                                hasNext, hasNext ? PageCursor.after(enriched.get(size - 1)) : null));
+                            });
+                });
+    }
+
+    private Mono<Optional<Long>> total(Collection<String> states, TotalKind totalKind) {
+        return switch (totalKind) {
+            case CACHED -> statusCounter.count(states).map(Optional::of);
+            case ESTIMATED -> loanApplicationRepository.estimateCountByStatuses(states).map(Optional::of);
+            case NONE -> Mono.just(Optional.empty());
+        };
+    }
+
+    /**
+     * Completa nombre y salario pidiendo los userIds en tandas de {@code chunkSize}, hasta
+     * {@code concurrency} a la vez. Las respuestas se van guardando por id; una tanda que falla
+     * solo deja sin datos a sus solicitudes.
+     */
+    private Mono<List<LoanApplication>> withUsers(List<LoanApplication> items, boolean liveUsers) {
+        var targets = liveUsers ? items : items.stream()
+                .filter(loan -> loan.getUserSyncedAt() == null)
+                .toList();
+        if (!liveUsers && targets.isEmpty()) {
+            return Mono.just(items);
+        }
+        var userIds = targets.stream()
+                .map(LoanApplication::getUserId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+
+        if (userIds.isEmpty()) {
+            logger.info("Sin userIds asociados en {} solicitudes", items.size());
+            return Mono.just(items);
+        }
+
+        return Flux.fromIterable(chunks(userIds, enrichment.chunkSize()))
+                .flatMap(this::findUsersChunk, enrichment.concurrency())
+                .collect(HashMap<Long, UserClientDetails>::new, (byId, user) -> byId.putIfAbsent(user.getUserId(), user))
+                .map(userMap -> {
+                    targets.forEach(loan -> {
+                        var user = userMap.get(loan.getUserId());
+                        if (user != null) {
+                            loan.setBaseSalary(user.getBaseSalary());
+                            loan.setNames(user.fullName());
+                        }
+                    });
+                    logger.info("Usuarios obtenidos desde auth: {}", userMap.size());
+                    var missingUsers = userIds.stream()
+                            .filter(id -> !userMap.containsKey(id))
+                            .toList();
+                    metrics.recordValue(ENRICH_MISSING, missingUsers.size());
+                    if (!missingUsers.isEmpty()) {
+                        logger.warn("Usuarios no encontrados en auth para IDs: {}", missingUsers);
+                    }
+                    return items;
                 });
     }
 
+    private Flux<UserClientDetails> findUsersChunk(List<Long> ids) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return userClient.findByIds(ids)
+                    .collectList()
+                    .doOnSuccess(users -> metrics.recordTime(ENRICH_CHUNK_TIMER,
+                            Duration.ofNanos(System.nanoTime() - start), "outcome", "success"))
+                    // Auth caído, breaker abierto o usuarios inexistentes: esas solicitudes salen sin datos
+                    .onErrorResume(StatusUseCase::degradable, e -> {
+                        metrics.recordTime(ENRICH_CHUNK_TIMER,
+                                Duration.ofNanos(System.nanoTime() - start), "outcome", "error");
+                        logger.warn("Tanda de {} usuarios sin datos: {}", ids.size(), e.getMessage());
+                        return Mono.just(List.of());
+                    });
+        }).flatMapIterable(users -> users);
+    }
+
+    // Solo usuarios inexistentes y fallas pasajeras de auth (5xx, breaker abierto, timeout); el cliente
+    // de auth ya entrega 5xx y breaker como ServiceUnavailableException. Lo demás (401/403, bugs) se propaga
+    private static boolean degradable(Throwable e) {
+        return e instanceof NotFoundException
+                || e instanceof ServiceUnavailableException
+                || e instanceof TimeoutException;
+    }
+
+    private static <T> List<List<T>> chunks(List<T> values, int chunkSize) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int from = 0; from < values.size(); from += chunkSize) {
+            chunks.add(values.subList(from, Math.min(from + chunkSize, values.size())));
+        }
+        return chunks;
+    }
 }
@@ -2,55 +2,28 @@ package co.com.bancolombia.usecase.validation;
 
 
 import co.com.bancolombia.model.exceptions.BadRequestException;
-import co.com.bancolombia.model.exceptions.LoanPendingException;
 import co.com.bancolombia.model.exceptions.NotFoundException;
-import co.com.bancolombia.model.loanApplication.gateways.LoanApplicationRepository;
 import co.com.bancolombia.model.loanApplication.gateways.LoggerRepository;
 import co.com.bancolombia.model.loanType.LoanType;
-import co.com.bancolombia.model.loanType.gateways.LoanTypeRepository;
+import co.com.bancolombia.usecase.loanType.LoanTypeCase;
 import reactor.core.publisher.Mono;
 
 import java.math.BigInteger;
 
 public final class LoanValidation {
 
-    private final LoanApplicationRepository loanApplicationRepository;
-    private final LoanTypeRepository loanTypeRepository;
+    private final LoanTypeCase loanTypeCase;
     private final LoggerRepository logger;
 
-    public LoanValidation(LoanApplicationRepository loanApplicationRepository,
-                                     LoanTypeRepository loanTypeRepository,
-                                     LoggerRepository logger) {
-        this.loanApplicationRepository = loanApplicationRepository;
-        this.loanTypeRepository = loanTypeRepository;
+    // La regla de una sola solicitud pendiente la aplica el insert condicional del repositorio
+    public LoanValidation(LoanTypeCase loanTypeCase,
+                          LoggerRepository logger) {
+        this.loanTypeCase = loanTypeCase;
         this.logger = logger;
     }
 
-    public Mono<Void> validateNoPendingLoan(String email, String status) {
-        return loanApplicationRepository.existsByEmailAndStatus(email, status)
-                .flatMap(hasPending -> {
-                    if (hasPending) {
-                        logger.info("Tienes un prestamo en estado pendiente");
-                        return Mono.error(new LoanPendingException(email));
-                    }
-                    return Mono.empty();
-                });
-    }
-
-    public Mono<Void> validateLoanTypeExists(String loanTypeName) {
-        return loanTypeRepository.existsByName(loanTypeName)
-                .flatMap(exist -> {
-                    if (!exist) {
-                        String error = "Tipo de prestamo no valido: " + loanTypeName;
-                        logger.info(error);
-                        return Mono.error(new NotFoundException(error));
-                    }
-                    return Mono.empty();
-                });
-    }
-
     public Mono<Void> validateLoanType(String loanTypeName, BigInteger amount) {
-        return loanTypeRepository.existsByNameForAmount(loanTypeName)
+        return loanTypeCase.findByName(loanTypeName)
                 .flatMap(loanType -> {
                     if (amount.compareTo(loanType.getMinimumAmount()) < 0
                             || amount.compareTo(loanType.getMaximumAmount()) > 0 ) {
@@ -63,7 +36,7 @@ public final class LoanValidation {
     }
 
     public Mono<LoanType> validateAndGetLoanType(String loanTypeName, BigInteger amount) {
-        return loanTypeRepository.existsByNameForAmount(loanTypeName)
+        return loanTypeCase.findByName(loanTypeName)
                 .switchIfEmpty(Mono.error(new NotFoundException("No existe el tipo de préstamo: " + loanTypeName)))
                 .flatMap(loanType -> {
                     if (amount.compareTo(loanType.getMinimumAmount()) < 0
@@ -0,0 +1,217 @@
+package co.com.bancolombia.usecase;
+
+import co.com.bancolombia.model.exceptions.BadRequestException;
+import co.com.bancolombia.model.idempotency.IdempotencyRecord;
+import co.com.bancolombia.model.idempotency.gateways.IdempotencyRepository;
+import co.com.bancolombia.model.loanApplication.LoanApplication;
+import co.com.bancolombia.model.loanApplication.gateways.LoanApplicationRepository;
+import co.com.bancolombia.model.loanApplication.gateways.LoggerRepository;
+import co.com.bancolombia.usecase.idempotency.IdempotencySettings;
+import co.com.bancolombia.usecase.idempotency.IdempotencyUseCase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyUseCaseTest {
+
+    private static final String KEY = "carol@example.com:abc-123";
+
+    @Mock
+    private IdempotencyRepository idempotencyRepository;
+
+    @Mock
+    private LoanApplicationRepository loanApplicationRepository;
+
+    @Mock
+    private LoggerRepository logger;
+
+    private IdempotencyUseCase useCase;
+    private LoanApplication request;
+    private LoanApplication saved;
+
+    @BeforeEach
+    void setUp() {
+        useCase = new IdempotencyUseCase(idempotencyRepository, loanApplicationRepository, logger,
+                new IdempotencySettings(Duration.ofHours(1), Duration.ofSeconds(30), 100, Duration.ofMillis(300),
+                        Duration.ofMinutes(15)));
+        request = LoanApplication.builder()
+                .email("carol@example.com")
+                .amount(new BigInteger("5000000"))
+                .loanTermMonths(12)
+                .loanType("HIPOTECARIO")
+                .build();
+        saved = request.toBuilder().loanApplicationId(77L).build();
+    }
+
+    // ---- duplicados en el mismo nodo comparten una sola ejecución ----
+    @Test
+    void execute_concurrentDuplicates_shouldRunActionOnce() {
+        when(idempotencyRepository.tryAcquire(eq(KEY), anyString(), any())).thenReturn(Mono.just(true));
+        when(idempotencyRepository.complete(KEY, 77L, Duration.ofHours(1))).thenReturn(Mono.empty());
+        Sinks.One<LoanApplication> inFlight = Sinks.one();
+        AtomicInteger calls = new AtomicInteger();
+
+        Mono<LoanApplication> first = useCase.execute(KEY, request, () -> {
+            calls.incrementAndGet();
+            return inFlight.asMono();
+        });
+        Mono<LoanApplication> second = useCase.execute(KEY, request, () -> {
+            calls.incrementAndGet();
+            return Mono.just(saved);
+        });
+
+        StepVerifier.create(Mono.zip(first, second))
+                .then(() -> inFlight.tryEmitValue(saved))
+                .assertNext(both -> {
+                    assertEquals(77L, both.getT1().getLoanApplicationId());
+                    assertSame(both.getT1(), both.getT2());
+                })
+                .verifyComplete();
+
+        assertEquals(1, calls.get());
+        verify(idempotencyRepository, times(1)).tryAcquire(eq(KEY), anyString(), any());
+    }
+
+    // ---- repetición tras completar: no se vuelve a ejecutar ----
+    @Test
+    void execute_afterCompletion_shouldReplayLocally() {
+        when(idempotencyRepository.tryAcquire(eq(KEY), anyString(), any())).thenReturn(Mono.just(true));
+        when(idempotencyRepository.complete(KEY, 77L, Duration.ofHours(1))).thenReturn(Mono.empty());
+        AtomicInteger calls = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            StepVerifier.create(useCase.execute(KEY, request, () -> {
+                        calls.incrementAndGet();
+                        return Mono.just(saved);
+                    }))
+                    .expectNext(saved)
+                    .verifyComplete();
+        }
+
+        assertEquals(1, calls.get());
+        verifyNoInteractions(loanApplicationRepository);
+    }
+
+    // ---- otro nodo ya la completó: se devuelve la solicitud guardada ----
+    @Test
+    void execute_whenOtherNodeCompleted_shouldReplayById() {
+        when(idempotencyRepository.tryAcquire(eq(KEY), anyString(), any())).thenReturn(Mono.just(false));
+        when(idempotencyRepository.find(KEY))
+                .thenReturn(Mono.just(IdempotencyRecord.builder()
+                        .key(KEY)
+                        .fingerprint("carol@example.com|5000000|12|HIPOTECARIO")
+                        .status(IdempotencyRecord.COMPLETED)
+                        .loanApplicationId(77L)
+                        .build()));
+        when(loanApplicationRepository.findById(77L)).thenReturn(Mono.just(saved));
+
+        StepVerifier.create(useCase.execute(KEY, request, () -> Mono.error(new AssertionError("no debe ejecutar"))))
+                .expectNext(saved)
+                .verifyComplete();
+    }
+
+    // ---- misma llave, distinto cuerpo ----
+    @Test
+    void execute_sameKeyDifferentBody_shouldFailWithBadRequest() {
+        when(idempotencyRepository.tryAcquire(eq(KEY), anyString(), any())).thenReturn(Mono.just(true));
+        when(idempotencyRepository.complete(KEY, 77L, Duration.ofHours(1))).thenReturn(Mono.empty());
+        useCase.execute(KEY, request, () -> Mono.just(saved)).block();
+
+        LoanApplication other = request.toBuilder().amount(new BigInteger("9000000")).build();
+
+        StepVerifier.create(useCase.execute(KEY, other, () -> Mono.just(saved)))
+                .expectError(BadRequestException.class)
+                .verify();
+    }
+
+    // ---- si la creación falla se libera la llave y se puede reintentar ----
+    @Test
+    void execute_whenActionFails_shouldReleaseAndAllowRetry() {
+        when(idempotencyRepository.tryAcquire(eq(KEY), anyString(), any())).thenReturn(Mono.just(true));
+        when(idempotencyRepository.release(KEY)).thenReturn(Mono.empty());
+        when(idempotencyRepository.complete(KEY, 77L, Duration.ofHours(1))).thenReturn(Mono.empty());
+
+        StepVerifier.create(useCase.execute(KEY, request, () -> Mono.error(new RuntimeException("db-down"))))
+                .expectErrorMessage("db-down")
+                .verify();
+
+        StepVerifier.create(useCase.execute(KEY, request, () -> Mono.just(saved)))
+                .expectNext(saved)
+                .verifyComplete();
+
+        verify(idempotencyRepository).release(KEY);
+        verify(idempotencyRepository, times(2)).tryAcquire(eq(KEY), anyString(), any());
+    }
+
+    // ---- el lease en curso dura poco, no el TTL de la respuesta ----
+    @Test
+    void execute_shouldLeaseForShortTimeAndRememberForTtl() {
+        when(idempotencyRepository.tryAcquire(eq(KEY), anyString(), any())).thenReturn(Mono.just(true));
+        when(idempotencyRepository.complete(KEY, 77L, Duration.ofHours(1))).thenReturn(Mono.empty());
+
+        StepVerifier.create(useCase.execute(KEY, request, () -> Mono.just(saved)))
+                .expectNext(saved)
+                .verifyComplete();
+
+        verify(idempotencyRepository).tryAcquire(eq(KEY), anyString(), eq(Duration.ofSeconds(30)));
+    }
+
+    // ---- el dueño liberó la llave mientras se esperaba: se vuelve a disputar ----
+    @Test
+    void execute_whenOwnerReleasesWhileWaiting_shouldAcquireAndRun() {
+        when(idempotencyRepository.tryAcquire(eq(KEY), anyString(), any()))
+                .thenReturn(Mono.just(false))
+                .thenReturn(Mono.just(true));
+        when(idempotencyRepository.find(KEY)).thenReturn(Mono.empty());
+        when(idempotencyRepository.complete(KEY, 77L, Duration.ofHours(1))).thenReturn(Mono.empty());
+
+        StepVerifier.create(useCase.execute(KEY, request, () -> Mono.just(saved)))
+                .expectNext(saved)
+                .verifyComplete();
+
+        verify(idempotencyRepository, times(2)).tryAcquire(eq(KEY), anyString(), any());
+    }
+
+    // ---- con el cache local lleno no se desaloja una ejecución en curso ----
+    @Test
+    void execute_whenLocalCacheFull_shouldKeepInFlightEntries() {
+        useCase = new IdempotencyUseCase(idempotencyRepository, loanApplicationRepository, logger,
+                new IdempotencySettings(Duration.ofHours(1), Duration.ofSeconds(30), 1, Duration.ofMillis(300),
+                        Duration.ofMinutes(15)));
+        when(idempotencyRepository.tryAcquire(anyString(), anyString(), any())).thenReturn(Mono.just(true));
+        when(idempotencyRepository.complete(anyString(), any(), any())).thenReturn(Mono.empty());
+        Sinks.One<LoanApplication> inFlight = Sinks.one();
+        AtomicInteger calls = new AtomicInteger();
+
+        Mono<LoanApplication> first = useCase.execute(KEY, request, () -> {
+            calls.incrementAndGet();
+            return inFlight.asMono();
+        });
+        first.subscribe();
+        useCase.execute("otra-llave", request, () -> Mono.just(saved)).block();
+        Mono<LoanApplication> duplicate = useCase.execute(KEY, request, () -> {
+            calls.incrementAndGet();
+            return Mono.just(saved);
+        });
+
+        StepVerifier.create(duplicate)
+                .then(() -> inFlight.tryEmitValue(saved))
+                .expectNext(saved)
+                .verifyComplete();
+        assertEquals(1, calls.get());
+    }
+}
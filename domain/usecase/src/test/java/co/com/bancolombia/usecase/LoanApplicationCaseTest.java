@@ -1,26 +1,33 @@
 package co.com.bancolombia.usecase;
 
 import co.com.bancolombia.model.client.UserClientDetails;
+import co.com.bancolombia.model.exceptions.BadRequestException;
+import co.com.bancolombia.model.exceptions.LoanPendingException;
+import co.com.bancolombia.model.loanApplication.BulkLoanItem;
 import co.com.bancolombia.model.loanApplication.LoanApplication;
 import co.com.bancolombia.model.loanApplication.gateways.LoanApplicationRepository;
 import co.com.bancolombia.model.loanApplication.gateways.LoggerRepository;
 import co.com.bancolombia.model.loanType.LoanType;
+import co.com.bancolombia.model.metrics.gateways.MetricsRepository;
 import co.com.bancolombia.usecase.client.IUserClient;
 import co.com.bancolombia.usecase.loanApplication.LoanApplicationCase;
 import co.com.bancolombia.usecase.validation.LoanValidation;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
+import reactor.test.publisher.PublisherProbe;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.time.Duration;
 import java.time.OffsetDateTime;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -41,6 +48,9 @@ class LoanApplicationCaseTest {
     @Mock
     private IUserClient iUserClient;
 
+    @Mock
+    private MetricsRepository metrics;
+
     @InjectMocks
     private LoanApplicationCase useCase;
 
@@ -73,14 +83,10 @@ class LoanApplicationCaseTest {
     // ------- create(): éxito -------
     @Test
     void create_whenValid_shouldSetFieldsSaveAndLog() {
-        when(validation.validateNoPendingLoan("carol@example.com", "PENDING_REVIEW"))
-                .thenReturn(Mono.empty());
-        when(validation.validateLoanTypeExists("HIPOTECARIO"))
-                .thenReturn(Mono.empty());
         when(validation.validateAndGetLoanType(eq("HIPOTECARIO"), any(BigInteger.class)))
                 .thenReturn(Mono.just(loanType));
         when(iUserClient.findByEmail("carol@example.com")).thenReturn(Mono.just(user));
-        when(loanApplicationRepository.save(any(LoanApplication.class)))
+        when(loanApplicationRepository.saveIfNoPending(any(LoanApplication.class)))
                 .thenAnswer(inv -> Mono.just(inv.getArgument(0)));
 
         StepVerifier.create(useCase.create(toCreate))
@@ -95,12 +101,11 @@ class LoanApplicationCaseTest {
                 })
                 .verifyComplete();
 
-        InOrder inOrder = inOrder(validation, iUserClient, loanApplicationRepository);
-        inOrder.verify(validation).validateNoPendingLoan("carol@example.com", "PENDING_REVIEW");
-        inOrder.verify(validation).validateLoanTypeExists("HIPOTECARIO");
-        inOrder.verify(validation).validateAndGetLoanType(eq("HIPOTECARIO"), any(BigInteger.class));
-        inOrder.verify(iUserClient).findByEmail("carol@example.com");
-        inOrder.verify(loanApplicationRepository).save(any(LoanApplication.class));
+        verify(validation).validateAndGetLoanType(eq("HIPOTECARIO"), any(BigInteger.class));
+        verify(loanApplicationRepository, never()).existsByEmailAndStatus(anyString(), anyString());
+        verify(iUserClient).findByEmail("carol@example.com");
+        verify(loanApplicationRepository).saveIfNoPending(any(LoanApplication.class));
+        verify(loanApplicationRepository, never()).save(any());
 
         verify(logger).info(startsWith("Inicio creacion de prestamo del cliente con documento="), any());
         // 4 argumentos: doc, valor, estado, id
@@ -108,124 +113,130 @@ class LoanApplicationCaseTest {
         verifyNoMoreInteractions(logger);
     }
 
+    // ------- create(): una medición por rama de validación -------
+    @Test
+    void create_whenValid_shouldRecordTimingPerBranch() {
+        when(validation.validateAndGetLoanType(eq("HIPOTECARIO"), any(BigInteger.class))).thenReturn(Mono.just(loanType));
+        when(iUserClient.findByEmail(anyString())).thenReturn(Mono.just(user));
+        when(loanApplicationRepository.saveIfNoPending(any(LoanApplication.class))).thenAnswer(inv -> Mono.just(inv.getArgument(0)));
+
+        StepVerifier.create(useCase.create(toCreate))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        verify(metrics).recordTime(eq("loan.create.validation"), any(Duration.class),
+                eq("branch"), eq("loanType"), eq("signal"), eq("ON_COMPLETE"));
+        verify(metrics).recordTime(eq("loan.create.validation"), any(Duration.class),
+                eq("branch"), eq("user"), eq("signal"), eq("ON_COMPLETE"));
+    }
+
 
+    // ------- create(): datos del cliente desde el token -------
     @Test
-    void create_whenHasPendingLoan_shouldStopAndReturnError() {
-        when(validation.validateNoPendingLoan("carol@example.com", "PENDING_REVIEW"))
-                .thenReturn(Mono.error(new RuntimeException("Loan is pending review")));
-        // Evita NPE en el encadenamiento .then(...): estos Monos se crean en tiempo de ensamblaje
-        when(validation.validateLoanTypeExists(anyString())).thenReturn(Mono.never());
-        when(validation.validateAndGetLoanType(anyString(), any())).thenReturn(Mono.never());
+    void create_whenUserKnownFromToken_shouldSkipAuthLookup() {
+        when(validation.validateAndGetLoanType(eq("HIPOTECARIO"), any(BigInteger.class))).thenReturn(Mono.just(loanType));
+        when(loanApplicationRepository.saveIfNoPending(any(LoanApplication.class))).thenAnswer(inv -> Mono.just(inv.getArgument(0)));
+
+        StepVerifier.create(useCase.create(toCreate, user))
+                .assertNext(saved -> {
+                    assertEquals(123L, saved.getUserId());
+                    assertEquals("CC-9999", saved.getDocument());
+                    assertEquals("Carol", saved.getNames());
+                    // El token no trae salario: queda pendiente para el refresco
+                    assertNull(saved.getUserSyncedAt());
+                })
+                .verifyComplete();
+
+        verifyNoInteractions(iUserClient);
+        verify(metrics).increment("loan.create.user.source", "source", "token");
+    }
+
+    @Test
+    void create_whenUserUnknown_shouldFallBackToAuthLookup() {
+        when(validation.validateAndGetLoanType(eq("HIPOTECARIO"), any(BigInteger.class))).thenReturn(Mono.just(loanType));
+        when(iUserClient.findByEmail("carol@example.com")).thenReturn(Mono.just(user));
+        when(loanApplicationRepository.saveIfNoPending(any(LoanApplication.class))).thenAnswer(inv -> Mono.just(inv.getArgument(0)));
+
+        StepVerifier.create(useCase.create(toCreate, null))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        verify(iUserClient).findByEmail("carol@example.com");
+        verify(metrics).increment("loan.create.user.source", "source", "auth");
+    }
+
+    @Test
+    void create_whenHasPendingLoan_shouldReturnConflictFromConditionalInsert() {
+        when(validation.validateAndGetLoanType(eq("HIPOTECARIO"), any(BigInteger.class))).thenReturn(Mono.just(loanType));
+        when(iUserClient.findByEmail("carol@example.com")).thenReturn(Mono.just(user));
+        when(loanApplicationRepository.saveIfNoPending(any(LoanApplication.class)))
+                .thenReturn(Mono.error(new LoanPendingException("carol@example.com")));
 
         StepVerifier.create(useCase.create(toCreate))
-                .expectErrorMessage("Loan is pending review")
+                .expectError(LoanPendingException.class)
                 .verify();
 
-        verify(validation).validateNoPendingLoan("carol@example.com", "PENDING_REVIEW");
-        // OJO: NO verificar "never" en las siguientes porque se invocan al ensamblar la cadena
-        verifyNoInteractions(iUserClient, loanApplicationRepository);
-        verifyNoInteractions(logger);
+        verify(loanApplicationRepository, never()).existsByEmailAndStatus(anyString(), anyString());
+        verify(logger).info(startsWith("Inicio creacion de prestamo del cliente con documento="), any());
+        verify(logger, never()).info(startsWith("Prestamo creado doc="), any(), any(), any(), any());
     }
 
 
 
     @Test
     void create_whenLoanTypeInvalid_shouldStopAndReturnError() {
-        when(validation.validateNoPendingLoan("carol@example.com", "PENDING_REVIEW"))
-                .thenReturn(Mono.empty());
-        when(validation.validateLoanTypeExists("HIPOTECARIO"))
+        when(validation.validateAndGetLoanType(eq("HIPOTECARIO"), any(BigInteger.class)))
                 .thenReturn(Mono.error(new RuntimeException("Invalid loan type")));
-        // Evita NPE en el siguiente .then(...): se crea el Mono al ensamblar
-        when(validation.validateAndGetLoanType(anyString(), any())).thenReturn(Mono.never());
+        when(iUserClient.findByEmail(anyString())).thenReturn(Mono.never());
 
         StepVerifier.create(useCase.create(toCreate))
                 .expectErrorMessage("Invalid loan type")
                 .verify();
 
-        verify(validation).validateNoPendingLoan("carol@example.com", "PENDING_REVIEW");
-        verify(validation).validateLoanTypeExists("HIPOTECARIO");
-        // NO verificar "never()" sobre validateAndGetLoanType: se invoca al ensamblar
-        verifyNoInteractions(iUserClient, loanApplicationRepository);
+        verify(validation).validateAndGetLoanType(eq("HIPOTECARIO"), any(BigInteger.class));
+        verifyNoInteractions(loanApplicationRepository);
         verifyNoInteractions(logger);
     }
 
 
 
     @Test
-    void create_whenUserClientFails_shouldPropagateError() {
-        when(validation.validateNoPendingLoan(anyString(), anyString())).thenReturn(Mono.empty());
-        when(validation.validateLoanTypeExists(anyString())).thenReturn(Mono.empty());
-        when(validation.validateAndGetLoanType(eq("HIPOTECARIO"), any(BigInteger.class))).thenReturn(Mono.just(loanType));
+    void create_whenUserClientFails_shouldPropagateErrorAndCancelOtherBranches() {
+        PublisherProbe<LoanType> type = PublisherProbe.of(Mono.never());
+        when(validation.validateAndGetLoanType(eq("HIPOTECARIO"), any(BigInteger.class))).thenReturn(type.mono());
         when(iUserClient.findByEmail("carol@example.com")).thenReturn(Mono.error(new RuntimeException("user-client-down")));
 
         StepVerifier.create(useCase.create(toCreate))
                 .expectErrorMessage("user-client-down")
-                .verify();
+                .verify(Duration.ofSeconds(1));
 
-        verify(validation).validateNoPendingLoan("carol@example.com", "PENDING_REVIEW");
-        verify(validation).validateLoanTypeExists("HIPOTECARIO");
-        verify(validation).validateAndGetLoanType(eq("HIPOTECARIO"), any(BigInteger.class));
-        verify(iUserClient).findByEmail("carol@example.com");
-        verify(loanApplicationRepository, never()).save(any());
+        type.assertWasCancelled();
+        verify(metrics).recordTime(eq("loan.create.validation"), any(Duration.class),
+                eq("branch"), eq("loanType"), eq("signal"), eq("CANCEL"));
+        verify(loanApplicationRepository, never()).saveIfNoPending(any());
         verifyNoInteractions(logger);
     }
 
     @Test
-    void create_whenLoanTypeAmountOutOfRange_shouldErrorAndStopBeforeUserClient() {
-        when(validation.validateNoPendingLoan("carol@example.com", "PENDING_REVIEW")).thenReturn(Mono.empty());
-        when(validation.validateLoanTypeExists("HIPOTECARIO")).thenReturn(Mono.empty());
+    void create_whenLoanTypeAmountOutOfRange_shouldErrorAndNotSave() {
         when(validation.validateAndGetLoanType(eq("HIPOTECARIO"), any(BigInteger.class)))
                 .thenReturn(Mono.error(new RuntimeException("amount-out-of-range")));
+        when(iUserClient.findByEmail(anyString())).thenReturn(Mono.never());
 
         StepVerifier.create(useCase.create(toCreate))
                 .expectErrorMessage("amount-out-of-range")
                 .verify();
 
-        verify(validation).validateNoPendingLoan("carol@example.com", "PENDING_REVIEW");
-        verify(validation).validateLoanTypeExists("HIPOTECARIO");
         verify(validation).validateAndGetLoanType(eq("HIPOTECARIO"), any(BigInteger.class));
-        verify(iUserClient, never()).findByEmail(anyString());
-        verify(loanApplicationRepository, never()).save(any());
+        verify(loanApplicationRepository, never()).saveIfNoPending(any());
         verifyNoInteractions(logger);
     }
 
-    @Test
-    void create_whenLoanTypeAmountInRange_shouldCallValidateAndGetAndContinue() {
-        when(validation.validateNoPendingLoan("carol@example.com", "PENDING_REVIEW")).thenReturn(Mono.empty());
-        when(validation.validateLoanTypeExists("HIPOTECARIO")).thenReturn(Mono.empty());
-        when(validation.validateAndGetLoanType(eq("HIPOTECARIO"), any(BigInteger.class))).thenReturn(Mono.just(loanType));
-        when(iUserClient.findByEmail("carol@example.com")).thenReturn(Mono.just(user));
-        when(loanApplicationRepository.save(any(LoanApplication.class))).thenAnswer(inv -> Mono.just(inv.getArgument(0)));
-
-        StepVerifier.create(useCase.create(toCreate))
-                .assertNext(saved -> {
-                    assertEquals("PENDING_REVIEW", saved.getStatus());
-                    assertEquals("CC-9999", saved.getDocument());
-                    assertEquals(123L, saved.getUserId());
-                    assertEquals(new BigDecimal("0.019"), saved.getInterestRate());
-                    assertNotNull(saved.getCreatedAt());
-                })
-                .verifyComplete();
-
-        InOrder inOrder = inOrder(validation, iUserClient, loanApplicationRepository);
-        inOrder.verify(validation).validateNoPendingLoan("carol@example.com", "PENDING_REVIEW");
-        inOrder.verify(validation).validateLoanTypeExists("HIPOTECARIO");
-        inOrder.verify(validation).validateAndGetLoanType(eq("HIPOTECARIO"), any(BigInteger.class));
-        inOrder.verify(iUserClient).findByEmail("carol@example.com");
-        inOrder.verify(loanApplicationRepository).save(any(LoanApplication.class));
-
-        verify(logger).info(startsWith("Inicio creacion de prestamo del cliente con documento="), any());
-        verify(logger).info(startsWith("Prestamo creado doc="), any(), any(), any(), any());
-        verifyNoMoreInteractions(logger);
-    }
-
     @Test
     void create_whenSaveFails_shouldPropagateErrorAndNotLogSuccess() {
-        when(validation.validateNoPendingLoan(anyString(), anyString())).thenReturn(Mono.empty());
-        when(validation.validateLoanTypeExists(anyString())).thenReturn(Mono.empty());
         when(validation.validateAndGetLoanType(eq("HIPOTECARIO"), any(BigInteger.class))).thenReturn(Mono.just(loanType));
         when(iUserClient.findByEmail(anyString())).thenReturn(Mono.just(user));
-        when(loanApplicationRepository.save(any(LoanApplication.class)))
+        when(loanApplicationRepository.saveIfNoPending(any(LoanApplication.class)))
                 .thenReturn(Mono.error(new RuntimeException("db-down")));
 
         StepVerifier.create(useCase.create(toCreate))
@@ -236,4 +247,49 @@ class LoanApplicationCaseTest {
         verify(logger, never()).info(startsWith("Prestamo creado doc="), any(), any(), any(), any());
         verifyNoMoreInteractions(logger);
     }
+
+    // ------- createAll(): un lote con ítems válidos, pendientes y rechazados -------
+    private LoanApplication bulkLoan(String email) {
+        return LoanApplication.builder()
+                .loanType("HIPOTECARIO").email(email).amount(new BigInteger("5000000")).build();
+    }
+
+    @Test
+    void createAll_shouldQueryOncePerChunkAndKeepPerItemResults() {
+        when(loanApplicationRepository.findEmailsWithStatus(anyCollection(), eq("PENDING_REVIEW")))
+                .thenReturn(Flux.just("pending@example.com"));
+        when(validation.validateAndGetLoanType(eq("HIPOTECARIO"), any(BigInteger.class))).thenReturn(Mono.just(loanType));
+        when(iUserClient.findByEmail(anyString())).thenReturn(Mono.just(user));
+        when(loanApplicationRepository.saveAllIfNoPending(anyList())).thenAnswer(inv -> {
+            List<LoanApplication> loans = inv.getArgument(0);
+            return Flux.just(
+                    loans.get(0).toBuilder().loanApplicationId(1L).build(),
+                    loans.get(1));
+        });
+
+        Flux<BulkLoanItem> items = Flux.just(
+                BulkLoanItem.of(0, bulkLoan("ok@example.com")),
+                BulkLoanItem.of(1, bulkLoan("pending@example.com")),
+                BulkLoanItem.failed(2, new BadRequestException("email: invalido")),
+                BulkLoanItem.of(3, bulkLoan("race@example.com")));
+
+        StepVerifier.create(useCase.createAll(items, 10))
+                .assertNext(item -> {
+                    assertTrue(item.isOk());
+                    assertEquals(1L, item.getLoanApplication().getLoanApplicationId());
+                    assertEquals("PENDING_REVIEW", item.getLoanApplication().getStatus());
+                    assertEquals(new BigDecimal("0.019"), item.getLoanApplication().getInterestRate());
+                })
+                .assertNext(item -> assertInstanceOf(LoanPendingException.class, item.getError()))
+                .assertNext(item -> assertInstanceOf(BadRequestException.class, item.getError()))
+                .assertNext(item -> {
+                    assertEquals(3, item.getIndex());
+                    assertInstanceOf(LoanPendingException.class, item.getError());
+                })
+                .verifyComplete();
+
+        verify(loanApplicationRepository, times(1)).findEmailsWithStatus(anyCollection(), anyString());
+        verify(loanApplicationRepository, times(1)).saveAllIfNoPending(anyList());
+        verify(iUserClient, never()).findByEmail("pending@example.com");
+    }
 }
@@ -0,0 +1,132 @@
+package co.com.bancolombia.usecase;
+
+import co.com.bancolombia.model.loanApplication.gateways.LoggerRepository;
+import co.com.bancolombia.model.loanType.LoanType;
+import co.com.bancolombia.model.loanType.gateways.LoanTypeRepository;
+import co.com.bancolombia.model.metrics.gateways.MetricsRepository;
+import co.com.bancolombia.usecase.loanType.LoanTypeCase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.math.BigInteger;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LoanTypeCaseTest {
+
+    @Mock
+    private LoanTypeRepository loanTypeRepository;
+
+    @Mock
+    private LoggerRepository logger;
+
+    @Mock
+    private MetricsRepository metrics;
+
+    private LoanTypeCase loanTypeCase;
+    private LoanType hipotecario;
+
+    @BeforeEach
+    void setUp() {
+        loanTypeCase = new LoanTypeCase(loanTypeRepository, logger, metrics, Duration.ofHours(1));
+        hipotecario = LoanType.builder()
+                .name("HIPOTECARIO")
+                .minimumAmount(BigInteger.valueOf(1_000_000))
+                .maximumAmount(BigInteger.valueOf(10_000_000))
+                .build();
+    }
+
+    // ---- catálogo cargado: se responde desde memoria ----
+    @Test
+    void findByName_whenLoaded_shouldServeFromMemory() {
+        when(loanTypeRepository.findAll()).thenReturn(Flux.just(hipotecario));
+
+        StepVerifier.create(loanTypeCase.reload("startup"))
+                .assertNext(catalog -> assertEquals(1L, catalog.getVersion()))
+                .verifyComplete();
+
+        StepVerifier.create(loanTypeCase.findByName("HIPOTECARIO"))
+                .expectNext(hipotecario)
+                .verifyComplete();
+        StepVerifier.create(loanTypeCase.existsByName("HIPOTECARIO"))
+                .expectNext(true)
+                .verifyComplete();
+
+        verify(loanTypeRepository, never()).existsByNameForAmount(anyString());
+        verify(metrics, times(2)).increment("loan.type.catalog.lookup", "result", "hit");
+    }
+
+    // ---- miss: se consulta la base ----
+    @Test
+    void findByName_whenMissing_shouldFallBackToRepository() {
+        when(loanTypeRepository.existsByNameForAmount("HIPOTECARIO")).thenReturn(Mono.just(hipotecario));
+
+        StepVerifier.create(loanTypeCase.findByName("HIPOTECARIO"))
+                .expectNext(hipotecario)
+                .verifyComplete();
+
+        verify(metrics).increment("loan.type.catalog.lookup", "result", "miss");
+        // Catálogo aún sin cargar: no se dispara recarga
+        verify(loanTypeRepository, never()).findAll();
+    }
+
+    @Test
+    void findByName_whenUnknownEverywhere_shouldBeEmpty() {
+        when(loanTypeRepository.findAll()).thenReturn(Flux.just(hipotecario));
+        when(loanTypeRepository.existsByNameForAmount("NOPE")).thenReturn(Mono.empty());
+        loanTypeCase.reload("startup").block();
+
+        StepVerifier.create(loanTypeCase.existsByName("NOPE"))
+                .expectNext(false)
+                .verifyComplete();
+
+        verify(loanTypeRepository, times(1)).findAll();
+    }
+
+    // ---- recarga por NOTIFY ----
+    @Test
+    void start_shouldReloadOnStartupAndOnNotification() {
+        Sinks.Many<String> changes = Sinks.many().multicast().directBestEffort();
+        when(loanTypeRepository.listenChanges()).thenReturn(changes.asFlux());
+        when(loanTypeRepository.findAll()).thenReturn(Flux.just(hipotecario));
+
+        loanTypeCase.start();
+        assertEquals(1L, loanTypeCase.current().getVersion());
+
+        changes.tryEmitNext("loan_type_changed");
+        loanTypeCase.stop();
+
+        assertEquals(2L, loanTypeCase.current().getVersion());
+        verify(metrics).increment("loan.type.catalog.reload", "trigger", "startup", "outcome", "success");
+        verify(metrics).increment("loan.type.catalog.reload", "trigger", "notify", "outcome", "success");
+    }
+
+    // ---- error en la recarga: se conserva el catálogo anterior ----
+    @Test
+    void reload_whenRepositoryFails_shouldKeepPreviousCatalog() {
+        when(loanTypeRepository.findAll())
+                .thenReturn(Flux.just(hipotecario))
+                .thenReturn(Flux.error(new RuntimeException("db-down")));
+
+        loanTypeCase.reload("startup").block();
+
+        StepVerifier.create(loanTypeCase.reload("reconcile"))
+                .expectErrorMessage("db-down")
+                .verify();
+
+        assertEquals(1L, loanTypeCase.current().getVersion());
+        assertNotNull(loanTypeCase.current().find("HIPOTECARIO"));
+        verify(metrics).increment("loan.type.catalog.reload", "trigger", "reconcile", "outcome", "error");
+    }
+}
@@ -1,12 +1,10 @@
 package co.com.bancolombia.usecase;
 
 import co.com.bancolombia.model.exceptions.BadRequestException;
-import co.com.bancolombia.model.exceptions.LoanPendingException;
 import co.com.bancolombia.model.exceptions.NotFoundException;
-import co.com.bancolombia.model.loanApplication.gateways.LoanApplicationRepository;
 import co.com.bancolombia.model.loanApplication.gateways.LoggerRepository;
 import co.com.bancolombia.model.loanType.LoanType;
-import co.com.bancolombia.model.loanType.gateways.LoanTypeRepository;
+import co.com.bancolombia.usecase.loanType.LoanTypeCase;
 import co.com.bancolombia.usecase.validation.LoanValidation;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -26,10 +24,7 @@ import static org.mockito.Mockito.*;
 class LoanValidationTest {
 
     @Mock
-    private LoanApplicationRepository loanApplicationRepository;
-
-    @Mock
-    private LoanTypeRepository loanTypeRepository;
+    private LoanTypeCase loanTypeCase;
 
     @Mock
     private LoggerRepository logger;
@@ -38,65 +33,7 @@ class LoanValidationTest {
 
     @BeforeEach
     void setUp() {
-        validation = new LoanValidation(loanApplicationRepository, loanTypeRepository, logger);
-    }
-
-    // ---- validateNoPendingLoan: sin pendiente -> OK ----
-    @Test
-    void validateNoPendingLoan_whenNoPending_shouldComplete() {
-        when(loanApplicationRepository.existsByEmailAndStatus("carol@example.com", "PENDING_REVIEW"))
-                .thenReturn(Mono.just(false));
-
-        StepVerifier.create(validation.validateNoPendingLoan("carol@example.com", "PENDING_REVIEW"))
-                .verifyComplete();
-
-        verify(loanApplicationRepository).existsByEmailAndStatus("carol@example.com", "PENDING_REVIEW");
-        verifyNoMoreInteractions(loanApplicationRepository);
-        verifyNoInteractions(logger);
-    }
-
-    // ---- validateNoPendingLoan: hay pendiente -> error y log ----
-    @Test
-    void validateNoPendingLoan_whenHasPending_shouldErrorAndLog() {
-        when(loanApplicationRepository.existsByEmailAndStatus(anyString(), anyString()))
-                .thenReturn(Mono.just(true));
-
-        StepVerifier.create(validation.validateNoPendingLoan("carol@example.com", "PENDING_REVIEW"))
-                .expectErrorSatisfies(err -> {
-                    assertTrue(err instanceof LoanPendingException);
-                    assertTrue(err.getMessage().contains("carol@example.com"));
-                })
-                .verify();
-
-        verify(loanApplicationRepository).existsByEmailAndStatus("carol@example.com", "PENDING_REVIEW");
-        verify(logger).info("Tienes un prestamo en estado pendiente");
-        verifyNoMoreInteractions(logger);
-    }
-
-    // ---- validateLoanTypeExists: existe -> complete ----
-    @Test
-    void validateLoanTypeExists_whenExists_shouldComplete() {
-        when(loanTypeRepository.existsByName("HIPOTECARIO")).thenReturn(Mono.just(true));
-
-        StepVerifier.create(validation.validateLoanTypeExists("HIPOTECARIO"))
-                .verifyComplete();
-
-        verify(loanTypeRepository).existsByName("HIPOTECARIO");
-        verifyNoInteractions(logger);
-    }
-
-    // ---- validateLoanTypeExists: no existe -> NotFound y log ----
-    @Test
-    void validateLoanTypeExists_whenNotExists_shouldErrorAndLog() {
-        when(loanTypeRepository.existsByName("LIBRE_INVERSION")).thenReturn(Mono.just(false));
-
-        StepVerifier.create(validation.validateLoanTypeExists("LIBRE_INVERSION"))
-                .expectError(NotFoundException.class)
-                .verify();
-
-        verify(loanTypeRepository).existsByName("LIBRE_INVERSION");
-        verify(logger).info("Tipo de prestamo no valido: LIBRE_INVERSION");
-        verifyNoMoreInteractions(logger);
+        validation = new LoanValidation(loanTypeCase, logger);
     }
 
     private LoanType loanType(BigInteger min, BigInteger max) {
@@ -106,20 +43,20 @@ class LoanValidationTest {
     // ---- validateLoanType: OK dentro de rango ----
     @Test
     void validateLoanType_whenAmountInRange_shouldComplete() {
-        when(loanTypeRepository.existsByNameForAmount("HIPOTECARIO"))
+        when(loanTypeCase.findByName("HIPOTECARIO"))
                 .thenReturn(Mono.just(loanType(BigInteger.valueOf(1_000_000), BigInteger.valueOf(10_000_000))));
 
         StepVerifier.create(validation.validateLoanType("HIPOTECARIO", BigInteger.valueOf(5_000_000)))
                 .verifyComplete();
 
-        verify(loanTypeRepository).existsByNameForAmount("HIPOTECARIO");
+        verify(loanTypeCase).findByName("HIPOTECARIO");
         verifyNoInteractions(logger);
     }
 
     // ---- validateLoanType: menor al mínimo ----
     @Test
     void validateLoanType_whenAmountBelowMinimum_shouldErrorAndLog() {
-        when(loanTypeRepository.existsByNameForAmount("HIPOTECARIO"))
+        when(loanTypeCase.findByName("HIPOTECARIO"))
                 .thenReturn(Mono.just(loanType(BigInteger.valueOf(2_000_000), BigInteger.valueOf(10_000_000))));
 
         StepVerifier.create(validation.validateLoanType("HIPOTECARIO", BigInteger.valueOf(1_000_000)))
@@ -129,7 +66,7 @@ class LoanValidationTest {
                 })
                 .verify();
 
-        verify(loanTypeRepository).existsByNameForAmount("HIPOTECARIO");
+        verify(loanTypeCase).findByName("HIPOTECARIO");
         verify(logger).info(startsWith("El valor del prestamo"));
         verifyNoMoreInteractions(logger);
     }
@@ -137,7 +74,7 @@ class LoanValidationTest {
     // ---- validateLoanType: mayor al máximo ----
     @Test
     void validateLoanType_whenAmountAboveMaximum_shouldErrorAndLog() {
-        when(loanTypeRepository.existsByNameForAmount("LIBRE_INVERSION"))
+        when(loanTypeCase.findByName("LIBRE_INVERSION"))
                 .thenReturn(Mono.just(loanType(BigInteger.valueOf(500_000), BigInteger.valueOf(3_000_000))));
 
         StepVerifier.create(validation.validateLoanType("LIBRE_INVERSION", BigInteger.valueOf(4_000_000)))
@@ -147,26 +84,11 @@ class LoanValidationTest {
                 })
                 .verify();
 
-        verify(loanTypeRepository).existsByNameForAmount("LIBRE_INVERSION");
+        verify(loanTypeCase).findByName("LIBRE_INVERSION");
         verify(logger).info(startsWith("El valor del prestamo"));
         verifyNoMoreInteractions(logger);
     }
 
-    @Test
-    void validateLoanTypeExists_ok_shouldComplete() {
-        when(loanTypeRepository.existsByName("LIBRE_INVERSION")).thenReturn(Mono.just(true));
-        StepVerifier.create(validation.validateLoanTypeExists("LIBRE_INVERSION"))
-                .verifyComplete();
-    }
-
-    @Test
-    void validateLoanTypeExists_missing_shouldErrorNotFound() {
-        when(loanTypeRepository.existsByName("NOPE")).thenReturn(Mono.just(false));
-        StepVerifier.create(validation.validateLoanTypeExists("NOPE"))
-                .expectError(NotFoundException.class)
-                .verify();
-    }
-
     // ------- validateAndGetLoanType: ok --------
     @Test
     void validateAndGetLoanType_ok() {
@@ -175,20 +97,20 @@ class LoanValidationTest {
                 .minimumAmount(BigInteger.valueOf(1_000_000))
                 .maximumAmount(BigInteger.valueOf(5_000_000))
                 .build();
-        when(loanTypeRepository.existsByNameForAmount("LIBRE_INVERSION")).thenReturn(Mono.just(type));
+        when(loanTypeCase.findByName("LIBRE_INVERSION")).thenReturn(Mono.just(type));
 
         StepVerifier.create(validation.validateAndGetLoanType("LIBRE_INVERSION", BigInteger.valueOf(3_000_000)))
                 .expectNext(type)
                 .verifyComplete();
 
-        verify(loanTypeRepository).existsByNameForAmount("LIBRE_INVERSION");
+        verify(loanTypeCase).findByName("LIBRE_INVERSION");
         verifyNoInteractions(logger);
     }
 
     // ------- validateAndGetLoanType: not found (repo vacío) --------
     @Test
     void validateAndGetLoanType_notFound_shouldError() {
-        when(loanTypeRepository.existsByNameForAmount("X")).thenReturn(Mono.empty());
+        when(loanTypeCase.findByName("X")).thenReturn(Mono.empty());
 
         StepVerifier.create(validation.validateAndGetLoanType("X", BigInteger.valueOf(1_000_000)))
                 .expectError(NotFoundException.class)
@@ -203,7 +125,7 @@ class LoanValidationTest {
                 .minimumAmount(BigInteger.valueOf(2_000_000))
                 .maximumAmount(BigInteger.valueOf(3_000_000))
                 .build();
-        when(loanTypeRepository.existsByNameForAmount("LIBRE_INVERSION")).thenReturn(Mono.just(type));
+        when(loanTypeCase.findByName("LIBRE_INVERSION")).thenReturn(Mono.just(type));
 
         StepVerifier.create(validation.validateAndGetLoanType("LIBRE_INVERSION", BigInteger.valueOf(1_000_000)))
                 .expectError(BadRequestException.class)
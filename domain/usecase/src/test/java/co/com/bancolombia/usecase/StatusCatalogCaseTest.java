@@ -0,0 +1,106 @@
+package co.com.bancolombia.usecase;
+
+import co.com.bancolombia.model.loanApplication.gateways.LoggerRepository;
+import co.com.bancolombia.model.metrics.gateways.MetricsRepository;
+import co.com.bancolombia.model.status.gateways.StatusRepository;
+import co.com.bancolombia.usecase.statusLoan.StatusCatalogCase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StatusCatalogCaseTest {
+
+    private static final List<String> ALL = List.of(
+            "PENDING_REVIEW", "APPROVED", "REJECTED", "MANUAL_REVIEW", "CANCELLED");
+
+    @Mock
+    private StatusRepository statusRepository;
+
+    @Mock
+    private LoggerRepository logger;
+
+    @Mock
+    private MetricsRepository metrics;
+
+    private StatusCatalogCase catalog;
+
+    @BeforeEach
+    void setUp() {
+        catalog = new StatusCatalogCase(statusRepository, logger, metrics, Duration.ofHours(1));
+    }
+
+    // ---- cinco estados cargados: ninguna consulta extra ----
+    @Test
+    void findMissing_whenAllCached_shouldNotQuery() {
+        when(statusRepository.findAllNames()).thenReturn(Flux.fromIterable(ALL));
+        catalog.reload("startup").block();
+
+        StepVerifier.create(catalog.findMissing(ALL))
+                .expectNext(Set.of())
+                .verifyComplete();
+
+        verify(statusRepository, times(1)).findAllNames();
+        verify(statusRepository, never()).findExistingNamesIn(anyCollection());
+        verify(statusRepository, never()).existsByName(anyString());
+        verify(metrics).increment("loan.status.catalog.lookup", "result", "hit");
+    }
+
+    // ---- sin catálogo: una sola consulta ANY para todos ----
+    @Test
+    void findMissing_whenNotLoaded_shouldResolveWithOneQuery() {
+        when(statusRepository.findExistingNamesIn(anyCollection())).thenReturn(Flux.just("APPROVED"));
+
+        StepVerifier.create(catalog.findMissing(List.of("APPROVED", "NOPE")))
+                .expectNext(Set.of("NOPE"))
+                .verifyComplete();
+
+        verify(statusRepository, times(1)).findExistingNamesIn(anyCollection());
+        // Aún sin cargar: no dispara recarga
+        verify(statusRepository, never()).findAllNames();
+    }
+
+    // ---- estado nuevo en la base que el catálogo no conoce: se recarga ----
+    @Test
+    void findMissing_whenDatabaseHasNewStatus_shouldTriggerReload() {
+        when(statusRepository.findAllNames())
+                .thenReturn(Flux.just("APPROVED"))
+                .thenReturn(Flux.just("APPROVED", "ON_HOLD"));
+        when(statusRepository.findExistingNamesIn(anyCollection())).thenReturn(Flux.just("ON_HOLD"));
+        catalog.reload("startup").block();
+
+        StepVerifier.create(catalog.findMissing(List.of("APPROVED", "ON_HOLD")))
+                .expectNext(Set.of())
+                .verifyComplete();
+
+        assertTrue(catalog.current().contains("ON_HOLD"));
+        verify(metrics).increment("loan.status.catalog.reload", "trigger", "miss", "outcome", "success");
+    }
+
+    // ---- NOTIFY de la base recarga el catálogo ----
+    @Test
+    void start_shouldReloadOnNotification() {
+        Sinks.Many<String> changes = Sinks.many().multicast().directBestEffort();
+        when(statusRepository.listenChanges()).thenReturn(changes.asFlux());
+        when(statusRepository.findAllNames()).thenReturn(Flux.fromIterable(ALL));
+
+        catalog.start();
+        changes.tryEmitNext("loan_status_changed");
+        catalog.stop();
+
+        assertEquals(2L, catalog.current().getVersion());
+    }
+}
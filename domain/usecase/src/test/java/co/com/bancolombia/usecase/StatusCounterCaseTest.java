@@ -0,0 +1,112 @@
+package co.com.bancolombia.usecase;
+
+import co.com.bancolombia.model.loanApplication.gateways.LoggerRepository;
+import co.com.bancolombia.model.metrics.gateways.MetricsRepository;
+import co.com.bancolombia.model.status.StatusCounterCheck;
+import co.com.bancolombia.model.status.gateways.StatusCounterRepository;
+import co.com.bancolombia.usecase.statusLoan.StatusCounterCase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StatusCounterCaseTest {
+
+    @Mock
+    private StatusCounterRepository counterRepository;
+
+    @Mock
+    private LoggerRepository logger;
+
+    @Mock
+    private MetricsRepository metrics;
+
+    private StatusCounterCase statusCounter;
+
+    @BeforeEach
+    void setUp() {
+        statusCounter = new StatusCounterCase(counterRepository, logger, metrics,
+                Duration.ofHours(1), Duration.ofHours(1));
+    }
+
+    // ---- contadores cargados: se suman en memoria ----
+    @Test
+    void count_whenLoaded_shouldSumFromMemory() {
+        when(counterRepository.findAll()).thenReturn(Mono.just(Map.of("PENDING_REVIEW", 7L, "APPROVED", 3L)));
+        statusCounter.reload("startup").block();
+
+        StepVerifier.create(statusCounter.count(List.of("PENDING_REVIEW", "APPROVED", "REJECTED")))
+                .expectNext(10L)
+                .verifyComplete();
+
+        verify(counterRepository, never()).sumByStatuses(anyCollection());
+        verify(metrics).increment("loan.status.counter.lookup", "result", "hit");
+    }
+
+    @Test
+    void count_whenNotLoaded_shouldSumCounterTable() {
+        when(counterRepository.sumByStatuses(List.of("PENDING_REVIEW"))).thenReturn(Mono.just(7L));
+
+        StepVerifier.create(statusCounter.count(List.of("PENDING_REVIEW")))
+                .expectNext(7L)
+                .verifyComplete();
+
+        verify(metrics).increment("loan.status.counter.lookup", "result", "miss");
+    }
+
+    // ---- verificación ----
+    @Test
+    void verify_whenInStep_shouldNotRebuild() {
+        when(counterRepository.verify()).thenReturn(Flux.just(new StatusCounterCheck("APPROVED", 3, 3)));
+
+        StepVerifier.create(statusCounter.verify())
+                .expectNext(false)
+                .verifyComplete();
+
+        verify(counterRepository, never()).rebuild();
+        verify(metrics).increment("loan.status.counter.verify", "outcome", "ok");
+    }
+
+    @Test
+    void verify_whenDrifted_shouldRebuildAndReload() {
+        when(counterRepository.verify()).thenReturn(Flux.just(
+                new StatusCounterCheck("APPROVED", 3, 3),
+                new StatusCounterCheck("PENDING_REVIEW", 9, 7)));
+        when(counterRepository.rebuild()).thenReturn(Mono.just(true));
+        when(counterRepository.findAll()).thenReturn(Mono.just(Map.of("PENDING_REVIEW", 7L, "APPROVED", 3L)));
+
+        StepVerifier.create(statusCounter.verify())
+                .expectNext(true)
+                .verifyComplete();
+
+        assertEquals(7L, statusCounter.current().getByStatus().get("PENDING_REVIEW"));
+        verify(metrics).recordValue("loan.status.counter.drift", 2.0, "status", "PENDING_REVIEW");
+        verify(metrics).increment("loan.status.counter.verify", "outcome", "drift");
+    }
+
+    @Test
+    void verify_whenAnotherNodeIsRebuilding_shouldNotReload() {
+        when(counterRepository.verify()).thenReturn(Flux.just(new StatusCounterCheck("PENDING_REVIEW", 9, 7)));
+        when(counterRepository.rebuild()).thenReturn(Mono.just(false));
+
+        StepVerifier.create(statusCounter.verify())
+                .expectNext(false)
+                .verifyComplete();
+
+        verify(counterRepository, never()).findAll();
+        verify(metrics).increment("loan.status.counter.verify", "outcome", "drift");
+    }
+}
@@ -2,17 +2,23 @@ package co.com.bancolombia.usecase;
 
 import co.com.bancolombia.model.client.UserClientDetails;
 import co.com.bancolombia.model.exceptions.NotFoundException;
+import co.com.bancolombia.model.exceptions.ServiceUnavailableException;
+import co.com.bancolombia.model.exceptions.UnauthorizedException;
 import co.com.bancolombia.model.loanApplication.LoanApplication;
+import co.com.bancolombia.model.loanApplication.PageCursor;
 import co.com.bancolombia.model.loanApplication.PageResult;
+import co.com.bancolombia.model.loanApplication.TotalKind;
 import co.com.bancolombia.model.loanApplication.gateways.LoanApplicationRepository;
 import co.com.bancolombia.model.loanApplication.gateways.LoggerRepository;
-import co.com.bancolombia.model.status.gateways.StatusRepository;
+import co.com.bancolombia.model.metrics.gateways.MetricsRepository;
 import co.com.bancolombia.usecase.client.IUserClient;
+import co.com.bancolombia.usecase.statusLoan.EnrichmentSettings;
+import co.com.bancolombia.usecase.statusLoan.StatusCatalogCase;
+import co.com.bancolombia.usecase.statusLoan.StatusCounterCase;
 import co.com.bancolombia.usecase.statusLoan.StatusUseCase;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import reactor.core.publisher.Flux;
@@ -20,6 +26,8 @@ import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import java.math.BigInteger;
+import java.time.OffsetDateTime;
+import java.util.List;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -30,11 +38,12 @@ import static org.mockito.Mockito.*;
 class StatusUseCaseTest {
 
     @Mock private LoanApplicationRepository loanApplicationRepository;
-    @Mock private StatusRepository statusRepository;
+    @Mock private StatusCatalogCase statusCatalog;
+    @Mock private StatusCounterCase statusCounter;
     @Mock private LoggerRepository logger;
     @Mock private IUserClient userClient;
+    @Mock private MetricsRepository metrics;
 
-    @InjectMocks
     private StatusUseCase statusUseCase;
 
     private LoanApplication l1;
@@ -42,6 +51,8 @@ class StatusUseCaseTest {
 
     @BeforeEach
     void init() {
+        statusUseCase = new StatusUseCase(loanApplicationRepository, statusCatalog, statusCounter, logger, userClient,
+                metrics, new EnrichmentSettings(100, 4));
         l1 = LoanApplication.builder()
                 .loanApplicationId(1L).userId(10L)
                 .email("a@x.com").amount(BigInteger.valueOf(1_000_000))
@@ -68,8 +79,7 @@ class StatusUseCaseTest {
 
     @Test
     void list_missingStatus_shouldError() {
-        when(statusRepository.existsByName("APPROVED")).thenReturn(Mono.just(true));
-        when(statusRepository.existsByName("REJECTED")).thenReturn(Mono.just(false));
+        when(statusCatalog.findMissing(anyCollection())).thenReturn(Mono.just(Set.of("REJECTED")));
 
         StepVerifier.create(statusUseCase.list(0, 10, Set.of("APPROVED", "REJECTED")))
                 .expectError(NotFoundException.class)
@@ -78,11 +88,10 @@ class StatusUseCaseTest {
 
     @Test
     void list_ok_shouldReturnPageAndMapUsers() {
-        when(statusRepository.existsByName(anyString())).thenReturn(Mono.just(true));
-        when(loanApplicationRepository.findByStatuses(anyCollection(), eq(0), eq(10)))
+        when(statusCatalog.findMissing(anyCollection())).thenReturn(Mono.just(Set.of()));
+        when(loanApplicationRepository.findByStatuses(anyCollection(), eq(0L), eq(11)))
                 .thenReturn(Flux.just(l1.toBuilder().build(), l2.toBuilder().build()));
-        when(loanApplicationRepository.countByStatuses(anyCollection()))
-                .thenReturn(Mono.just(2L));
+        when(statusCounter.count(anyCollection())).thenReturn(Mono.just(2L));
 
         UserClientDetails u1 = UserClientDetails.builder()
                 .userId(10L).name("Ana").lastName("Lopez").baseSalary(BigInteger.valueOf(9_000_000)).build();
@@ -108,12 +117,12 @@ class StatusUseCaseTest {
 
     @Test
     void list_ok_whenNoUserIds_shouldSkipAuthCall() {
-        when(statusRepository.existsByName(anyString())).thenReturn(Mono.just(true));
+        when(statusCatalog.findMissing(anyCollection())).thenReturn(Mono.just(Set.of()));
         LoanApplication a = l1.toBuilder().userId(null).build();
         LoanApplication b = l2.toBuilder().userId(null).build();
-        when(loanApplicationRepository.findByStatuses(anyCollection(), eq(0), eq(10)))
+        when(loanApplicationRepository.findByStatuses(anyCollection(), eq(0L), eq(11)))
                 .thenReturn(Flux.just(a, b));
-        when(loanApplicationRepository.countByStatuses(anyCollection())).thenReturn(Mono.just(2L));
+        when(statusCounter.count(anyCollection())).thenReturn(Mono.just(2L));
 
         StepVerifier.create(statusUseCase.list(0, 10, Set.of("APPROVED")))
                 .assertNext(page -> {
@@ -125,4 +134,210 @@ class StatusUseCaseTest {
 
         verifyNoInteractions(userClient);
     }
+
+    @Test
+    void list_whenAuthUnavailable_shouldReturnPageWithoutUserData() {
+        when(statusCatalog.findMissing(anyCollection())).thenReturn(Mono.just(Set.of()));
+        when(loanApplicationRepository.findByStatuses(anyCollection(), eq(0L), eq(11)))
+                .thenReturn(Flux.just(l1.toBuilder().build(), l2.toBuilder().build()));
+        when(statusCounter.count(anyCollection())).thenReturn(Mono.just(2L));
+        when(userClient.findByIds(anyList()))
+                .thenReturn(Flux.error(new ServiceUnavailableException("breaker abierto")));
+
+        StepVerifier.create(statusUseCase.list(0, 10, Set.of("APPROVED")))
+                .assertNext(page -> {
+                    assertEquals(2, page.getContent().size());
+                    assertNull(page.getContent().get(0).getNames());
+                    assertNull(page.getContent().get(0).getBaseSalary());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void list_whenAuthRejectsToken_shouldPropagateInsteadOfDegrading() {
+        when(statusCatalog.findMissing(anyCollection())).thenReturn(Mono.just(Set.of()));
+        when(loanApplicationRepository.findByStatuses(anyCollection(), eq(0L), eq(11)))
+                .thenReturn(Flux.just(l1.toBuilder().build(), l2.toBuilder().build()));
+        when(statusCounter.count(anyCollection())).thenReturn(Mono.just(2L));
+        when(userClient.findByIds(anyList())).thenReturn(Flux.error(new UnauthorizedException("No autorizado")));
+
+        StepVerifier.create(statusUseCase.list(0, 10, Set.of("APPROVED")))
+                .expectError(UnauthorizedException.class)
+                .verify();
+    }
+
+    @Test
+    void list_whenEnrichmentHitsUnexpectedError_shouldPropagate() {
+        when(statusCatalog.findMissing(anyCollection())).thenReturn(Mono.just(Set.of()));
+        when(loanApplicationRepository.findByStatuses(anyCollection(), eq(0L), eq(11)))
+                .thenReturn(Flux.just(l1.toBuilder().build()));
+        when(statusCounter.count(anyCollection())).thenReturn(Mono.just(1L));
+        when(userClient.findByIds(anyList())).thenReturn(Flux.error(new IllegalStateException("mapeo roto")));
+
+        StepVerifier.create(statusUseCase.list(0, 10, Set.of("APPROVED")))
+                .expectError(IllegalStateException.class)
+                .verify();
+    }
+
+    @Test
+    void list_whenUsersNotFound_shouldReturnPageWithoutUserData() {
+        when(statusCatalog.findMissing(anyCollection())).thenReturn(Mono.just(Set.of()));
+        when(loanApplicationRepository.findByStatuses(anyCollection(), eq(0L), eq(11)))
+                .thenReturn(Flux.just(l1.toBuilder().build()));
+        when(statusCounter.count(anyCollection())).thenReturn(Mono.just(1L));
+        when(userClient.findByIds(anyList())).thenReturn(Flux.error(new NotFoundException("El usuario no existe")));
+
+        StepVerifier.create(statusUseCase.list(0, 10, Set.of("APPROVED")))
+                .assertNext(page -> assertNull(page.getContent().get(0).getNames()))
+                .verifyComplete();
+    }
+
+    // ---- keyset: página llena devuelve cursor a la última fila ----
+    @Test
+    void listAfter_fullPage_shouldReturnNextCursor() {
+        OffsetDateTime t = OffsetDateTime.parse("2025-01-10T10:00:00-05:00");
+        PageCursor after = new PageCursor(t.plusMinutes(5), 9L);
+        when(statusCatalog.findMissing(anyCollection())).thenReturn(Mono.just(Set.of()));
+        when(loanApplicationRepository.findByStatusesAfter(anyCollection(), eq(after), eq(3)))
+                .thenReturn(Flux.just(
+                        l1.toBuilder().userId(null).createdAt(t.plusMinutes(1)).build(),
+                        l2.toBuilder().userId(null).createdAt(t).build(),
+                        l2.toBuilder().loanApplicationId(3L).userId(null).createdAt(t.minusMinutes(1)).build()));
+        when(statusCounter.count(anyCollection())).thenReturn(Mono.just(5L));
+
+        StepVerifier.create(statusUseCase.listAfter(after, 2, Set.of("APPROVED"), TotalKind.CACHED, true))
+                .assertNext(page -> {
+                    assertEquals(2, page.getContent().size());
+                    assertTrue(page.isHasNext());
+                    assertEquals(new PageCursor(t, 2L), page.getNextCursor());
+                    // El total sale de los contadores en memoria: no se presenta como exacto
+                    assertEquals(5L, page.getTotalElements());
+                    assertEquals(TotalKind.CACHED, page.getTotalKind());
+                })
+                .verifyComplete();
+
+        verify(loanApplicationRepository, never()).findByStatuses(anyCollection(), anyLong(), anyInt());
+    }
+
+    @Test
+    void listAfter_lastPage_shouldNotReturnCursor() {
+        when(statusCatalog.findMissing(anyCollection())).thenReturn(Mono.just(Set.of()));
+        when(loanApplicationRepository.findByStatusesAfter(anyCollection(), isNull(), eq(11)))
+                .thenReturn(Flux.just(l1.toBuilder().userId(null).build()));
+        when(statusCounter.count(anyCollection())).thenReturn(Mono.just(1L));
+
+        StepVerifier.create(statusUseCase.listAfter(null, 10, Set.of("APPROVED"), TotalKind.CACHED, true))
+                .assertNext(page -> {
+                    assertFalse(page.isHasNext());
+                    assertNull(page.getNextCursor());
+                })
+                .verifyComplete();
+    }
+
+    // ---- sin total: no se cuenta, la fila extra dice si hay más ----
+    @Test
+    void list_withoutTotal_shouldSkipCountAndProbeNextPage() {
+        when(statusCatalog.findMissing(anyCollection())).thenReturn(Mono.just(Set.of()));
+        when(loanApplicationRepository.findByStatuses(anyCollection(), eq(2L), eq(3)))
+                .thenReturn(Flux.just(
+                        l1.toBuilder().userId(null).build(),
+                        l2.toBuilder().userId(null).build(),
+                        l2.toBuilder().loanApplicationId(3L).userId(null).build()));
+
+        StepVerifier.create(statusUseCase.list(1, 2, Set.of("APPROVED"), TotalKind.NONE, true))
+                .assertNext(page -> {
+                    assertEquals(2, page.getContent().size());
+                    assertTrue(page.isHasNext());
+                    assertNull(page.getTotalElements());
+                    assertEquals(TotalKind.NONE, page.getTotalKind());
+                })
+                .verifyComplete();
+
+        verify(statusCounter, never()).count(anyCollection());
+    }
+
+    @Test
+    void list_estimatedTotal_shouldUsePlannerEstimate() {
+        when(statusCatalog.findMissing(anyCollection())).thenReturn(Mono.just(Set.of()));
+        when(loanApplicationRepository.findByStatuses(anyCollection(), eq(0L), eq(11)))
+                .thenReturn(Flux.just(l1.toBuilder().userId(null).build()));
+        when(loanApplicationRepository.estimateCountByStatuses(anyCollection())).thenReturn(Mono.just(1_200_000L));
+
+        StepVerifier.create(statusUseCase.list(0, 10, Set.of("APPROVED"), TotalKind.ESTIMATED, true))
+                .assertNext(page -> {
+                    assertEquals(1_200_000L, page.getTotalElements());
+                    assertEquals(TotalKind.ESTIMATED, page.getTotalKind());
+                    assertFalse(page.isHasNext());
+                })
+                .verifyComplete();
+
+        verify(statusCounter, never()).count(anyCollection());
+    }
+
+    // ---- streaming: enriquece por ventanas y conserva el orden ----
+    @Test
+    void stream_shouldEnrichInWindowsKeepingOrder() {
+        LoanApplication l3 = l2.toBuilder().loanApplicationId(3L).userId(30L).build();
+        when(statusCatalog.findMissing(anyCollection())).thenReturn(Mono.just(Set.of()));
+        when(loanApplicationRepository.streamByStatusesAfter(anyCollection(), isNull(), eq(100)))
+                .thenReturn(Flux.just(l1.toBuilder().build(), l2.toBuilder().build(), l3));
+        when(userClient.findByIds(anyList())).thenAnswer(inv -> Flux.fromIterable(inv.<List<Long>>getArgument(0))
+                .map(id -> UserClientDetails.builder().userId(id).name("U" + id).lastName("").build()));
+
+        StepVerifier.create(statusUseCase.stream(Set.of("APPROVED"), null, 100, 2, true))
+                .assertNext(loan -> assertEquals("U10", loan.getNames()))
+                .assertNext(loan -> assertEquals("U20", loan.getNames()))
+                .assertNext(loan -> assertEquals("U30", loan.getNames()))
+                .verifyComplete();
+
+        verify(userClient).findByIds(List.of(10L, 20L));
+        verify(userClient).findByIds(List.of(30L));
+    }
+
+    // ---- enriquecimiento por tandas: una que falla no tumba la página ----
+    @Test
+    void list_whenOneChunkFails_shouldEnrichTheOthers() {
+        statusUseCase = new StatusUseCase(loanApplicationRepository, statusCatalog, statusCounter, logger, userClient,
+                metrics, new EnrichmentSettings(1, 2));
+        when(statusCatalog.findMissing(anyCollection())).thenReturn(Mono.just(Set.of()));
+        when(loanApplicationRepository.findByStatuses(anyCollection(), eq(0L), eq(11)))
+                .thenReturn(Flux.just(l1.toBuilder().build(), l2.toBuilder().build()));
+        when(statusCounter.count(anyCollection())).thenReturn(Mono.just(2L));
+        when(userClient.findByIds(List.of(10L))).thenReturn(Flux.just(
+                UserClientDetails.builder().userId(10L).name("Ana").lastName("Lopez").build()));
+        when(userClient.findByIds(List.of(20L))).thenReturn(Flux.error(new ServiceUnavailableException("timeout")));
+
+        StepVerifier.create(statusUseCase.list(0, 10, Set.of("APPROVED")))
+                .assertNext(page -> {
+                    assertEquals("Ana Lopez", page.getContent().get(0).getNames());
+                    assertNull(page.getContent().get(1).getNames());
+                })
+                .verifyComplete();
+
+        verify(metrics).recordTime(eq("loan.list.enrich.chunk"), any(), eq("outcome"), eq("success"));
+        verify(metrics).recordTime(eq("loan.list.enrich.chunk"), any(), eq("outcome"), eq("error"));
+        verify(metrics).recordValue("loan.list.enrich.missing", 1.0);
+    }
+
+    // ---- snapshot: sin liveUsers solo se consulta auth para filas sin sincronizar ----
+    @Test
+    void list_withSnapshot_shouldOnlyLookUpUnsyncedRows() {
+        LoanApplication synced = l1.toBuilder().names("Ana Lopez")
+                .userSyncedAt(OffsetDateTime.parse("2025-01-10T10:00:00-05:00")).build();
+        when(statusCatalog.findMissing(anyCollection())).thenReturn(Mono.just(Set.of()));
+        when(loanApplicationRepository.findByStatuses(anyCollection(), eq(0L), eq(11)))
+                .thenReturn(Flux.just(synced, l2.toBuilder().build()));
+        when(statusCounter.count(anyCollection())).thenReturn(Mono.just(2L));
+        when(userClient.findByIds(List.of(20L))).thenReturn(Flux.just(
+                UserClientDetails.builder().userId(20L).name("Beto").build()));
+
+        StepVerifier.create(statusUseCase.list(0, 10, Set.of("APPROVED"), TotalKind.CACHED, false))
+                .assertNext(page -> {
+                    assertEquals("Ana Lopez", page.getContent().get(0).getNames());
+                    assertEquals("Beto", page.getContent().get(1).getNames());
+                })
+                .verifyComplete();
+
+        verify(userClient, times(1)).findByIds(anyList());
+    }
 }
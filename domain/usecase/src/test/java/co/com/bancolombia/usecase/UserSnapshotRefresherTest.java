@@ -0,0 +1,104 @@
+package co.com.bancolombia.usecase;
+
+import co.com.bancolombia.model.client.UserClientDetails;
+import co.com.bancolombia.model.exceptions.ServiceUnavailableException;
+import co.com.bancolombia.model.exceptions.UnauthorizedException;
+import co.com.bancolombia.model.loanApplication.gateways.LoanApplicationRepository;
+import co.com.bancolombia.model.loanApplication.gateways.LoggerRepository;
+import co.com.bancolombia.model.metrics.gateways.MetricsRepository;
+import co.com.bancolombia.usecase.client.IUserClient;
+import co.com.bancolombia.usecase.loanApplication.UserSnapshotRefresher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserSnapshotRefresherTest {
+
+    @Mock
+    private LoanApplicationRepository loanApplicationRepository;
+
+    @Mock
+    private IUserClient userClient;
+
+    @Mock
+    private LoggerRepository logger;
+
+    @Mock
+    private MetricsRepository metrics;
+
+    private UserSnapshotRefresher refresher;
+
+    @BeforeEach
+    void setUp() {
+        refresher = new UserSnapshotRefresher(loanApplicationRepository, userClient, logger, metrics,
+                Duration.ofMinutes(1), Duration.ofHours(24), 500);
+    }
+
+    @Test
+    void refreshStale_shouldUpdateSnapshotsInBulk() {
+        UserClientDetails ana = UserClientDetails.builder().userId(10L).name("Ana").lastName("Lopez").build();
+        when(loanApplicationRepository.findUserIdsWithStaleSnapshot(any(), eq(500))).thenReturn(Flux.just(10L, 20L));
+        // El cliente solo responde si la llamada viene marcada como del servicio
+        when(userClient.findByIds(List.of(10L, 20L))).thenReturn(Flux.deferContextual(context ->
+                context.getOrDefault(IUserClient.SERVICE_CALL, false)
+                        ? Flux.just(ana)
+                        : Flux.error(new UnauthorizedException("sin marca de servicio"))));
+        when(loanApplicationRepository.updateUserSnapshots(List.of(10L, 20L), List.of(ana))).thenReturn(Mono.just(3L));
+
+        StepVerifier.create(refresher.refreshStale())
+                .expectNext(3L)
+                .verifyComplete();
+
+        verify(metrics).increment("loan.user.snapshot.refresh", "outcome", "success");
+        verify(metrics).recordValue("loan.user.snapshot.missing", 1.0);
+    }
+
+    @Test
+    void refreshStale_whenNothingStale_shouldNotCallAuth() {
+        when(loanApplicationRepository.findUserIdsWithStaleSnapshot(any(), anyInt())).thenReturn(Flux.empty());
+
+        StepVerifier.create(refresher.refreshStale())
+                .expectNext(0L)
+                .verifyComplete();
+
+        verifyNoInteractions(userClient);
+    }
+
+    @Test
+    void refreshStale_whenAuthUnavailable_shouldKeepSnapshots() {
+        when(loanApplicationRepository.findUserIdsWithStaleSnapshot(any(), anyInt())).thenReturn(Flux.just(10L));
+        when(userClient.findByIds(anyList())).thenReturn(Flux.error(new ServiceUnavailableException("breaker abierto")));
+
+        StepVerifier.create(refresher.refreshStale())
+                .expectError(ServiceUnavailableException.class)
+                .verify();
+
+        verify(loanApplicationRepository, never()).updateUserSnapshots(anyCollection(), anyCollection());
+        verify(metrics).increment("loan.user.snapshot.refresh", "outcome", "error");
+    }
+
+    @Test
+    void refreshStale_whenAuthRejects_shouldReportItAsUnauthorized() {
+        when(loanApplicationRepository.findUserIdsWithStaleSnapshot(any(), anyInt())).thenReturn(Flux.just(10L));
+        when(userClient.findByIds(anyList())).thenReturn(Flux.error(new UnauthorizedException("No autorizado")));
+
+        StepVerifier.create(refresher.refreshStale())
+                .expectError(UnauthorizedException.class)
+                .verify();
+
+        verify(metrics).increment("loan.user.snapshot.refresh", "outcome", "unauthorized");
+        verify(logger).error(anyString(), eq("No autorizado"));
+    }
+}
@@ -0,0 +1,34 @@
+package co.com.bancolombia.usecase;
+
+import co.com.bancolombia.model.status.StatusCounts;
+import co.com.bancolombia.usecase.snapshot.VersionedSnapshot;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class VersionedSnapshotTest {
+
+    // ---- la recarga que empezó primero termina última: no pisa a la más nueva ----
+    @Test
+    void reload_whenOlderFinishesLast_shouldKeepNewer() {
+        VersionedSnapshot<StatusCounts> snapshot = new VersionedSnapshot<>(StatusCounts.EMPTY, StatusCounts::getVersion);
+        Sinks.One<Map<String, Long>> slow = Sinks.one();
+
+        Mono<StatusCounts> older = snapshot.reload(version -> slow.asMono()
+                .map(byStatus -> StatusCounts.of(version, byStatus)));
+        older.subscribe();
+        StepVerifier.create(snapshot.reload(version -> Mono.just(StatusCounts.of(version, Map.of("APPROVED", 2L)))))
+                .assertNext(published -> assertEquals(2L, published.getVersion()))
+                .verifyComplete();
+
+        slow.tryEmitValue(Map.of("APPROVED", 1L));
+
+        assertEquals(2L, snapshot.get().getVersion());
+        assertEquals(2L, snapshot.get().getByStatus().get("APPROVED"));
+    }
+}
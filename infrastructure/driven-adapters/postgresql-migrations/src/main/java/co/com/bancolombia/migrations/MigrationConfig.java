@@ -0,0 +1,28 @@
+package co.com.bancolombia.migrations;
+
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.boot.autoconfigure.AbstractDependsOnBeanFactoryPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MigrationConfig {
+
+    @Bean(initMethod = "migrate")
+    public SchemaMigrator schemaMigrator(MigrationProperties properties) {
+        return new SchemaMigrator(properties);
+    }
+
+    // Ningún pool R2DBC se crea (ni se precalienta) hasta que el esquema está al día
+    @Bean
+    public static ConnectionFactoryDependsOnMigration connectionFactoryDependsOnMigration() {
+        return new ConnectionFactoryDependsOnMigration();
+    }
+
+    static class ConnectionFactoryDependsOnMigration extends AbstractDependsOnBeanFactoryPostProcessor {
+
+        ConnectionFactoryDependsOnMigration() {
+            super(ConnectionFactory.class, "schemaMigrator");
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package co.com.bancolombia.migrations;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Conexión JDBC que usa Flyway para migrar el esquema. Es aparte del pool R2DBC y solo vive
+ * mientras corren las migraciones.
+ */
+@ConfigurationProperties(prefix = "adapters.migrations")
+public record MigrationProperties(
+        Boolean enabled,
+        String url,
+        String username,
+        String password,
+        Integer connectRetries) {
+
+    public MigrationProperties {
+        enabled = enabled == null || enabled;
+        connectRetries = connectRetries == null ? 5 : Math.max(0, connectRetries);
+    }
+}
@@ -0,0 +1,29 @@
+package co.com.bancolombia.migrations;
+
+/**
+ * Corrida puntual de las migraciones, p. ej. como paso previo del despliegue con
+ * {@code adapters.migrations.enabled=false} en la aplicación. Lee la conexión de
+ * MIGRATIONS_URL, MIGRATIONS_USERNAME y MIGRATIONS_PASSWORD.
+ */
+public final class MigrationTask {
+
+    private MigrationTask() {
+    }
+
+    public static void main(String[] args) {
+        MigrationProperties properties = new MigrationProperties(true,
+                required("MIGRATIONS_URL"),
+                required("MIGRATIONS_USERNAME"),
+                System.getenv("MIGRATIONS_PASSWORD"),
+                null);
+        new SchemaMigrator(properties).migrate();
+    }
+
+    private static String required(String name) {
+        String value = System.getenv(name);
+        if (value == null || value.isBlank()) {
+            throw new IllegalStateException("Falta la variable " + name);
+        }
+        return value;
+    }
+}
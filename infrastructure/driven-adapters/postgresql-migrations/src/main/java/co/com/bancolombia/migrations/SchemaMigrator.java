@@ -0,0 +1,45 @@
+package co.com.bancolombia.migrations;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.output.MigrateResult;
+
+import java.util.Map;
+
+/**
+ * Aplica las migraciones de {@code db/migration}. Las bases creadas a mano antes de este módulo
+ * se toman como versión 0: los scripts usan IF NOT EXISTS y se vuelven a aplicar sin cambios.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class SchemaMigrator {
+
+    static final String LOCATION = "classpath:db/migration";
+
+    private final MigrationProperties properties;
+
+    public void migrate() {
+        if (!Boolean.TRUE.equals(properties.enabled())) {
+            log.info("Migraciones desactivadas (adapters.migrations.enabled=false)");
+            return;
+        }
+        MigrateResult result = flyway().migrate();
+        log.info("Esquema en la version {} ({} migraciones aplicadas)",
+                result.targetSchemaVersion != null ? result.targetSchemaVersion : result.initialSchemaVersion,
+                result.migrationsExecuted);
+    }
+
+    Flyway flyway() {
+        return Flyway.configure()
+                .dataSource(properties.url(), properties.username(), properties.password())
+                .locations(LOCATION)
+                .baselineOnMigrate(true)
+                .baselineVersion("0")
+                .connectRetries(properties.connectRetries())
+                // Con el lock transaccional el CREATE INDEX CONCURRENTLY espera a la propia
+                // transacción del lock y nunca termina; el lock de sesión no lo bloquea
+                .configuration(Map.of("flyway.postgresql.transactional.lock", "false"))
+                .load();
+    }
+}
@@ -0,0 +1,34 @@
+-- Tablas que hasta ahora se creaban a mano. IF NOT EXISTS: en una base ya creada no cambia nada
+-- y Flyway la toma desde aquí (baseline 0).
+CREATE TABLE IF NOT EXISTS status (
+    status_id BIGSERIAL   PRIMARY KEY,
+    code      VARCHAR(50),
+    name      VARCHAR(50) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS loan_type (
+    id                   BIGSERIAL     PRIMARY KEY,
+    code                 VARCHAR(50),
+    name                 VARCHAR(100)  NOT NULL,
+    active               BOOLEAN       NOT NULL DEFAULT TRUE,
+    minimum_amount       NUMERIC(15, 0) NOT NULL,
+    maximum_amount       NUMERIC(15, 0) NOT NULL,
+    interest_rate        NUMERIC(7, 4) NOT NULL,
+    automatic_validation BOOLEAN       NOT NULL DEFAULT FALSE,
+    created_at           TIMESTAMPTZ   NOT NULL DEFAULT now(),
+    updated_at           TIMESTAMPTZ
+);
+
+CREATE TABLE IF NOT EXISTS loan_application (
+    id            BIGSERIAL      PRIMARY KEY,
+    user_id       BIGINT,
+    document      VARCHAR(50),
+    email         VARCHAR(320)   NOT NULL,
+    loan_type     VARCHAR(100)   NOT NULL,
+    amount        NUMERIC(15, 0) NOT NULL,
+    term_months   INTEGER        NOT NULL,
+    status        VARCHAR(50)    NOT NULL,
+    interest_rate NUMERIC(7, 4),
+    created_at    TIMESTAMPTZ    NOT NULL DEFAULT now(),
+    updated_at    TIMESTAMPTZ
+);
@@ -0,0 +1,11 @@
+-- Llaves de Idempotency-Key para POST /api/v1/solicitud, compartidas entre nodos.
+-- UNLOGGED: no genera WAL ni se replica; tras una caída de la base la tabla queda vacía.
+CREATE UNLOGGED TABLE IF NOT EXISTS idempotency_key (
+    idempotency_key     VARCHAR(320) PRIMARY KEY,
+    fingerprint         TEXT         NOT NULL,
+    status              VARCHAR(20)  NOT NULL,
+    loan_application_id BIGINT,
+    expires_at          TIMESTAMPTZ  NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS ix_idempotency_key_expires_at ON idempotency_key (expires_at);
@@ -0,0 +1,18 @@
+-- Avisa a los nodos cuando cambian los catálogos que mantienen en memoria
+-- (LoanTypeCase escucha loan_type_changed, StatusCatalogCase loan_status_changed).
+CREATE OR REPLACE FUNCTION notify_catalog_change() RETURNS trigger AS $$
+BEGIN
+    PERFORM pg_notify(TG_ARGV[0], TG_TABLE_NAME);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_loan_type_changed ON loan_type;
+CREATE TRIGGER trg_loan_type_changed
+    AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON loan_type
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_catalog_change('loan_type_changed');
+
+DROP TRIGGER IF EXISTS trg_loan_status_changed ON status;
+CREATE TRIGGER trg_loan_status_changed
+    AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON status
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_catalog_change('loan_status_changed');
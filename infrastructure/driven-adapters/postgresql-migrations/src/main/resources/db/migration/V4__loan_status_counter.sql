@@ -0,0 +1,54 @@
+-- Solicitudes por estado mantenidas por trigger, para no hacer COUNT(*) en cada página del listado.
+-- Cada estado se reparte en 16 filas (slot) elegidas por la sesión: los inserts concurrentes
+-- de PENDING_REVIEW no se bloquean entre sí esperando la misma fila. Leer es sumar unas pocas filas.
+CREATE TABLE IF NOT EXISTS loan_status_counter (
+    status VARCHAR(50) NOT NULL,
+    slot   SMALLINT    NOT NULL,
+    total  BIGINT      NOT NULL DEFAULT 0,
+    PRIMARY KEY (status, slot)
+);
+
+CREATE OR REPLACE FUNCTION loan_status_counter_add(p_status TEXT, p_delta BIGINT) RETURNS void AS $$
+BEGIN
+    INSERT INTO loan_status_counter (status, slot, total)
+    VALUES (p_status, pg_backend_pid() % 16, p_delta)
+    ON CONFLICT (status, slot) DO UPDATE SET total = loan_status_counter.total + EXCLUDED.total;
+    -- Mismo payload en la misma transacción se entrega una sola vez
+    PERFORM pg_notify('loan_status_counter_changed', p_status);
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION loan_status_counter_track() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'UPDATE' AND OLD.status IS NOT DISTINCT FROM NEW.status THEN
+        RETURN NULL;
+    END IF;
+    IF TG_OP IN ('UPDATE', 'DELETE') THEN
+        PERFORM loan_status_counter_add(OLD.status, -1);
+    END IF;
+    IF TG_OP IN ('INSERT', 'UPDATE') THEN
+        PERFORM loan_status_counter_add(NEW.status, 1);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_loan_status_counter ON loan_application;
+CREATE TRIGGER trg_loan_status_counter
+    AFTER INSERT OR DELETE OR UPDATE OF status ON loan_application
+    FOR EACH ROW EXECUTE FUNCTION loan_status_counter_track();
+
+-- Reconstrucción (la usa StatusCounterCase cuando la verificación encuentra desvío). El lock
+-- frena las escrituras sobre loan_application mientras se cuenta, para no perder ninguna.
+CREATE OR REPLACE FUNCTION rebuild_loan_status_counter() RETURNS void AS $$
+BEGIN
+    LOCK TABLE loan_application IN SHARE MODE;
+    DELETE FROM loan_status_counter;
+    INSERT INTO loan_status_counter (status, slot, total)
+    SELECT status, 0, COUNT(*) FROM loan_application GROUP BY status;
+    PERFORM pg_notify('loan_status_counter_changed', 'rebuild');
+END;
+$$ LANGUAGE plpgsql;
+
+-- Carga inicial
+SELECT rebuild_loan_status_counter();
@@ -0,0 +1,6 @@
+-- Copia de los datos del cliente que muestra el listado, guardada al crear la solicitud y
+-- refrescada por UserSnapshotRefresher. user_synced_at nulo = nunca se sincronizó completa.
+-- Sus índices van en V6, con el resto de los CONCURRENTLY.
+ALTER TABLE loan_application ADD COLUMN IF NOT EXISTS names VARCHAR(200);
+ALTER TABLE loan_application ADD COLUMN IF NOT EXISTS base_salary NUMERIC(15, 0);
+ALTER TABLE loan_application ADD COLUMN IF NOT EXISTS user_synced_at TIMESTAMPTZ;
@@ -0,0 +1,32 @@
+-- Índices de las consultas calientes. CONCURRENTLY no bloquea las escrituras mientras se
+-- construyen y no puede ir dentro de una transacción: ver V6__performance_indexes.sql.conf.
+-- Si una construcción falla queda un índice INVALID que IF NOT EXISTS no reemplaza: IndexCheck
+-- lo avisa al arrancar; hay que hacer DROP INDEX CONCURRENTLY, flyway repair y volver a migrar.
+
+-- Una sola solicitud PENDING_REVIEW por correo. Respalda el ON CONFLICT de
+-- MyReactiveRepository.insertIfNoPending y garantiza la regla entre réplicas.
+-- Falla si ya existen duplicados pendientes: depurarlos antes de migrar.
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS ux_loan_application_pending_email
+    ON loan_application (email)
+    WHERE status = 'PENDING_REVIEW';
+
+-- Listado por estado (offset, keyset y stream): filtra por status y recorre (created_at, id)
+-- en el mismo orden del ORDER BY created_at DESC, id DESC, sin sort en memoria.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS ix_loan_application_status_created
+    ON loan_application (status, created_at DESC, id DESC);
+
+-- existsByEmailAndStatus y findEmailsWithStatus, para cualquier estado
+CREATE INDEX CONCURRENTLY IF NOT EXISTS ix_loan_application_email_status
+    ON loan_application (email, status);
+
+-- Búsqueda de snapshots vencidos y UPDATE por usuario del refresco
+CREATE INDEX CONCURRENTLY IF NOT EXISTS ix_loan_application_user_synced
+    ON loan_application (user_synced_at NULLS FIRST)
+    WHERE user_id IS NOT NULL;
+CREATE INDEX CONCURRENTLY IF NOT EXISTS ix_loan_application_user_id
+    ON loan_application (user_id);
+
+-- findByName del catálogo de tipos; además impide tipos duplicados.
+-- Falla si ya hay nombres repetidos: depurarlos antes de migrar.
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS ux_loan_type_name
+    ON loan_type (name);
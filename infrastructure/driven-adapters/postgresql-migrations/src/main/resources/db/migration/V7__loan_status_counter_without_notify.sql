@@ -0,0 +1,29 @@
+-- El NOTIFY por fila hacía que cada insert o cambio de estado tomara, al confirmar, el lock
+-- global de la cola de notificaciones del cluster: todas las escrituras quedaban en fila ahí
+-- y los 16 slots no servían de nada. Los nodos refrescan los contadores por sondeo
+-- (loan-status.counter.reconcile-interval); solo la reconstrucción sigue notificando.
+CREATE OR REPLACE FUNCTION loan_status_counter_add(p_status TEXT, p_delta BIGINT) RETURNS void AS $$
+BEGIN
+    INSERT INTO loan_status_counter (status, slot, total)
+    VALUES (p_status, pg_backend_pid() % 16, p_delta)
+    ON CONFLICT (status, slot) DO UPDATE SET total = loan_status_counter.total + EXCLUDED.total;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Una sola reconstrucción a la vez en todo el cluster: si varios nodos ven el mismo desvío,
+-- el primero reconstruye y los demás devuelven false sin tomar el lock SHARE, que frena
+-- todas las escrituras sobre loan_application mientras se cuenta.
+DROP FUNCTION IF EXISTS rebuild_loan_status_counter();
+CREATE FUNCTION rebuild_loan_status_counter() RETURNS boolean AS $$
+BEGIN
+    IF NOT pg_try_advisory_xact_lock(hashtext('rebuild_loan_status_counter')) THEN
+        RETURN false;
+    END IF;
+    LOCK TABLE loan_application IN SHARE MODE;
+    DELETE FROM loan_status_counter;
+    INSERT INTO loan_status_counter (status, slot, total)
+    SELECT status, 0, COUNT(*) FROM loan_application GROUP BY status;
+    PERFORM pg_notify('loan_status_counter_changed', 'rebuild');
+    RETURN true;
+END;
+$$ LANGUAGE plpgsql;
@@ -0,0 +1,8 @@
+-- Listado con varios estados: status = ANY(...) sobre ix_loan_application_status_created
+-- devuelve cada estado en su orden, pero no el orden global, así que Postgres tenía que leer
+-- todas las filas de esos estados y ordenarlas antes del LIMIT (y el stream no arrancaba hasta
+-- terminar el sort). Con este índice recorre (created_at, id) ya en el orden del ORDER BY,
+-- filtra por estado y corta en el LIMIT. Con un solo estado se sigue usando el compuesto.
+-- Mismo manejo de CONCURRENTLY que V6__performance_indexes.sql.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS ix_loan_application_created
+    ON loan_application (created_at DESC, id DESC);
@@ -0,0 +1,73 @@
+package co.com.bancolombia.r2dbc.mapper;
+
+import co.com.bancolombia.model.loanApplication.LoanApplication;
+import co.com.bancolombia.r2dbc.entities.LoanApplicationEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.reactivecommons.utils.ObjectMapper;
+import org.reactivecommons.utils.ObjectMapperImp;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.OffsetDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapeo entidad <-> modelo de una solicitud: ObjectMapperImp (lo que usaba
+ * ReactiveAdapterOperations) frente al mapper generado por MapStruct.
+ * Correr con -prof gc para ver también las asignaciones por operación.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityMappingBenchmark {
+
+    private final ObjectMapper reflective = new ObjectMapperImp();
+    private final LoanApplicationDataMapper generated = new LoanApplicationDataMapperImpl();
+
+    private LoanApplication model;
+    private LoanApplicationEntity entity;
+
+    @Setup
+    public void setUp() {
+        OffsetDateTime now = OffsetDateTime.now();
+        model = LoanApplication.builder()
+                .loanApplicationId(1L).userId(10L).document("CC-1").email("a@x.com").names("Ana Lopez")
+                .amount(BigInteger.valueOf(5_000_000)).loanTermMonths(24).loanType("LIBRE_INVERSION")
+                .status("PENDING_REVIEW").baseSalary(BigInteger.valueOf(3_000_000))
+                .interestRate(new BigDecimal("1.25")).createdAt(now).userSyncedAt(now)
+                .build();
+        entity = generated.toData(model);
+    }
+
+    @Benchmark
+    public LoanApplicationEntity toDataReflective() {
+        return reflective.map(model, LoanApplicationEntity.class);
+    }
+
+    @Benchmark
+    public LoanApplicationEntity toDataGenerated() {
+        return generated.toData(model);
+    }
+
+    @Benchmark
+    public LoanApplication toModelReflective() {
+        return reflective.mapBuilder(entity, LoanApplication.LoanApplicationBuilder.class).build();
+    }
+
+    @Benchmark
+    public LoanApplication toModelGenerated() {
+        return generated.toModel(entity);
+    }
+}
@@ -0,0 +1,41 @@
+package co.com.bancolombia.r2dbc.config;
+
+import co.com.bancolombia.model.metrics.gateways.MetricsRepository;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.Connection;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Pool que además mide cuánto espera cada acquire. Los gauges de ocupación (acquired, idle,
+ * pending, allocated) los publica Spring Boot como r2dbc.pool.* para todo ConnectionPool.
+ */
+class InstrumentedConnectionPool extends ConnectionPool {
+
+    static final String ACQUIRE_TIMER = "r2dbc.pool.acquire";
+
+    private final MetricsRepository metrics;
+    private final String name;
+
+    InstrumentedConnectionPool(ConnectionPoolConfiguration configuration, String name, MetricsRepository metrics) {
+        super(configuration);
+        this.metrics = metrics;
+        this.name = name;
+    }
+
+    @Override
+    public Mono<Connection> create() {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return super.create()
+                    .doOnEach(signal -> {
+                        if (signal.isOnNext() || signal.isOnError()) {
+                            metrics.recordTime(ACQUIRE_TIMER, Duration.ofNanos(System.nanoTime() - start),
+                                    "name", name, "outcome", signal.isOnNext() ? "success" : "error");
+                        }
+                    });
+        });
+    }
+}
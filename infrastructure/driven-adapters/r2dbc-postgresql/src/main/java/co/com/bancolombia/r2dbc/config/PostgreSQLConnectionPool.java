@@ -1,42 +1,161 @@
 package co.com.bancolombia.r2dbc.config;
 
+import co.com.bancolombia.model.loanApplication.gateways.LoggerRepository;
+import co.com.bancolombia.model.metrics.gateways.MetricsRepository;
+import co.com.bancolombia.r2dbc.helper.QueryMetrics;
+import co.com.bancolombia.r2dbc.routing.ReadYourWritesGuard;
+import co.com.bancolombia.r2dbc.routing.ReplicaRoutingConnectionFactory;
+import co.com.bancolombia.r2dbc.slowquery.PlanCapture;
+import co.com.bancolombia.r2dbc.slowquery.SlowQueryListener;
+import co.com.bancolombia.r2dbc.slowquery.WorstPlans;
 import io.r2dbc.pool.ConnectionPool;
 import io.r2dbc.pool.ConnectionPoolConfiguration;
 import io.r2dbc.postgresql.PostgresqlConnectionConfiguration;
 import io.r2dbc.postgresql.PostgresqlConnectionFactory;
+import io.r2dbc.proxy.ProxyConnectionFactory;
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-
-import java.time.Duration;
+import org.springframework.context.annotation.Primary;
 
 @Configuration
 public class PostgreSQLConnectionPool {
-    /* Change these values for your project */
-    public static final int INITIAL_SIZE = 12;
-    public static final int MAX_SIZE = 15;
-    public static final int MAX_IDLE_TIME = 30;
-    public static final int DEFAULT_PORT = 5432;
-
-	@Bean
-	public ConnectionPool getConnectionConfig(PostgresqlConnectionProperties properties) {
-		PostgresqlConnectionConfiguration dbConfiguration = PostgresqlConnectionConfiguration.builder()
+
+    public static final String POOL_NAME = "api-postgres-connection-pool";
+    public static final String REPLICA_POOL_NAME = "api-postgres-replica-pool";
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionPool getConnectionConfig(PostgresqlConnectionProperties properties, MetricsRepository metrics,
+                                              LoggerRepository logger) {
+        return instrumentedPool(POOL_NAME, connectionConfiguration(properties), properties.pool(), metrics, logger);
+    }
+
+    @Bean(destroyMethod = "dispose")
+    @ConditionalOnProperty(prefix = "adapters.r2dbc.replica", name = "enabled", havingValue = "true")
+    public ConnectionPool replicaConnectionPool(PostgresqlConnectionProperties properties, MetricsRepository metrics,
+                                                LoggerRepository logger) {
+        return instrumentedPool(REPLICA_POOL_NAME, replicaConfiguration(properties), properties.replica().pool(),
+                metrics, logger);
+    }
+
+    @Bean
+    public ReadYourWritesGuard readYourWritesGuard(PostgresqlConnectionProperties properties) {
+        return new ReadYourWritesGuard(properties.replica().readYourWritesWindow(),
+                properties.replica().maxTrackedCallers());
+    }
+
+    @Bean
+    public WorstPlans worstPlans(SlowQueryProperties slowQueries) {
+        return new WorstPlans(slowQueries.capacity());
+    }
+
+    @Bean
+    public SlowQueryListener slowQueryListener(@Qualifier("getConnectionConfig") ConnectionPool primary,
+                                               @Qualifier("replicaConnectionPool") ObjectProvider<ConnectionPool> replica,
+                                               SlowQueryProperties slowQueries, WorstPlans worstPlans,
+                                               LoggerRepository logger, MetricsRepository metrics) {
+        // Solo se explican lecturas: con réplica van a ella y el EXPLAIN ANALYZE no carga al primario.
+        // Se toma del pool que ya sirve las consultas, y el listener corre una captura a la vez.
+        PlanCapture capture = new PlanCapture(replica.getIfAvailable(() -> primary), slowQueries.explainTimeout());
+        return new SlowQueryListener(slowQueries, capture, worstPlans, logger, metrics);
+    }
+
+    @Bean
+    public QueryMetrics queryMetrics(MetricsRepository metrics) {
+        return new QueryMetrics(metrics);
+    }
+
+    // El que usan DatabaseClient, los repositorios y el R2dbcTransactionManager. El proxy va por
+    // fuera del ruteo: ve cada sentencia tal como la mandan los adaptadores, vaya a donde vaya.
+    // Las métricas por sentencia van siempre; el registro de lentas, solo si está habilitado.
+    @Bean
+    @Primary
+    public ConnectionFactory routingConnectionFactory(
+            @Qualifier("getConnectionConfig") ConnectionPool primary,
+            @Qualifier("replicaConnectionPool") ObjectProvider<ConnectionPool> replica,
+            ReadYourWritesGuard guard, MetricsRepository metrics, QueryMetrics queryMetrics,
+            SlowQueryProperties slowQueries, SlowQueryListener slowQueryListener) {
+        ConnectionFactory routing = new ReplicaRoutingConnectionFactory(primary, replica.getIfAvailable(), guard,
+                metrics);
+        ProxyConnectionFactory.Builder proxy = ProxyConnectionFactory.builder(routing).listener(queryMetrics);
+        if (slowQueries.enabled()) {
+            proxy.listener(slowQueryListener);
+        }
+        return proxy.build();
+    }
+
+    private static ConnectionPool instrumentedPool(String name, PostgresqlConnectionConfiguration connection,
+                                                   PostgresqlConnectionProperties.Pool settings,
+                                                   MetricsRepository metrics, LoggerRepository logger) {
+        ConnectionPool pool = new InstrumentedConnectionPool(poolConfiguration(name, connection, settings), name, metrics);
+        if (settings.warmup()) {
+            warmup(pool, name, settings, logger);
+        }
+        return pool;
+    }
+
+    static ConnectionPoolConfiguration poolConfiguration(String name, PostgresqlConnectionConfiguration connection,
+                                                         PostgresqlConnectionProperties.Pool pool) {
+        // Sin validationQuery: el pool valida con Connection.validate(validationDepth)
+        return ConnectionPoolConfiguration.builder()
+                .connectionFactory(new PostgresqlConnectionFactory(connection))
+                .name(name)
+                .initialSize(pool.initialSize())
+                .minIdle(pool.minIdle())
+                .maxSize(pool.maxSize())
+                .maxIdleTime(pool.maxIdleTime())
+                .maxLifeTime(pool.maxLifeTime())
+                .maxAcquireTime(pool.maxAcquireTime())
+                .maxCreateConnectionTime(pool.maxCreateConnectionTime())
+                .acquireRetry(pool.acquireRetry())
+                .backgroundEvictionInterval(pool.evictInterval())
+                .validationDepth(pool.validationDepth())
+                .build();
+    }
+
+    // Se abre initialSize antes de que el contexto termine de levantar, o sea antes de que el
+    // probe de readiness pase a UP. Si la base no responde se arranca igual con el pool en frío.
+    private static void warmup(ConnectionPool pool, String name, PostgresqlConnectionProperties.Pool settings,
+                               LoggerRepository logger) {
+        try {
+            Integer opened = pool.warmup().block(settings.warmupTimeout());
+            logger.info("Pool {} precalentado con {} conexiones", name, opened);
+        } catch (RuntimeException e) {
+            logger.warn("No se pudo precalentar el pool {}: {}", name, e.getMessage());
+        }
+    }
+
+    public static PostgresqlConnectionConfiguration connectionConfiguration(PostgresqlConnectionProperties properties) {
+        return PostgresqlConnectionConfiguration.builder()
                 .host(properties.host())
                 .port(properties.port())
                 .database(properties.database())
                 .schema(properties.schema())
                 .username(properties.username())
                 .password(properties.password())
+                .preparedStatementCacheQueries(statementCache(properties))
                 .build();
+    }
 
-        ConnectionPoolConfiguration poolConfiguration = ConnectionPoolConfiguration.builder()
-                .connectionFactory(new PostgresqlConnectionFactory(dbConfiguration))
-                .name("api-postgres-connection-pool")
-                .initialSize(INITIAL_SIZE)
-                .maxSize(MAX_SIZE)
-                .maxIdleTime(Duration.ofMinutes(MAX_IDLE_TIME))
-                .validationQuery("SELECT 1")
+    static PostgresqlConnectionConfiguration replicaConfiguration(PostgresqlConnectionProperties properties) {
+        PostgresqlConnectionProperties.Replica replica = properties.replica();
+        return PostgresqlConnectionConfiguration.builder()
+                .host(replica.host())
+                .port(replica.port() != null ? replica.port() : properties.port())
+                .database(properties.database())
+                .schema(properties.schema())
+                .username(replica.username() != null ? replica.username() : properties.username())
+                .password(replica.password() != null ? replica.password() : properties.password())
+                .preparedStatementCacheQueries(statementCache(properties))
                 .build();
+    }
 
-		return new ConnectionPool(poolConfiguration);
-	}
-}
\ No newline at end of file
+    // Las consultas con parámetros se preparan una vez por conexión y luego solo se ejecutan
+    private static int statementCache(PostgresqlConnectionProperties properties) {
+        Integer size = properties.preparedStatementCacheQueries();
+        return size != null ? size : PostgresqlConnectionProperties.DEFAULT_PREPARED_STATEMENT_CACHE;
+    }
+}
@@ -1,8 +1,11 @@
 package co.com.bancolombia.r2dbc.config;
 
 // TODO: Load properties from the application.yaml file or from secrets manager
+import io.r2dbc.spi.ValidationDepth;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.time.Duration;
+
 @ConfigurationProperties(prefix = "adapters.r2dbc")
 public record PostgresqlConnectionProperties(
         String host,
@@ -10,5 +13,84 @@ public record PostgresqlConnectionProperties(
         String database,
         String schema,
         String username,
-        String password) {
+        String password,
+        Integer preparedStatementCacheQueries,
+        Pool pool,
+        Replica replica) {
+
+    /**
+     * Sentencias preparadas en el servidor que guarda cada conexión (LRU). -1 sin límite, 0 las
+     * desactiva: necesario detrás de un PgBouncer en modo transaction, que no las soporta.
+     */
+    public static final int DEFAULT_PREPARED_STATEMENT_CACHE = 256;
+
+    public PostgresqlConnectionProperties {
+        preparedStatementCacheQueries = preparedStatementCacheQueries == null
+                ? DEFAULT_PREPARED_STATEMENT_CACHE : preparedStatementCacheQueries;
+        pool = pool == null ? Pool.DEFAULTS : pool;
+        replica = replica == null ? Replica.DISABLED : replica;
+    }
+
+    /**
+     * Réplica de lectura (adapters.r2dbc.replica.*). Usuario, clave, base y esquema se toman del
+     * primario si no se definen. {@code readYourWritesWindow} debe cubrir el atraso normal de la
+     * réplica: durante ese tiempo las lecturas de quien escribió van al primario. Cada nodo
+     * recuerda solo sus propias escrituras; para que otro nodo las respete el cliente debe
+     * reenviar la cabecera X-Last-Write-At que recibió al escribir (o usar afinidad de sesión).
+     */
+    public record Replica(
+            boolean enabled,
+            String host,
+            Integer port,
+            String username,
+            String password,
+            Pool pool,
+            Duration readYourWritesWindow,
+            Integer maxTrackedCallers) {
+
+        public static final Replica DISABLED = new Replica(false, null, null, null, null, null, null, null);
+
+        public Replica {
+            pool = pool == null ? Pool.DEFAULTS : pool;
+            readYourWritesWindow = readYourWritesWindow == null ? Duration.ofSeconds(5) : readYourWritesWindow;
+            maxTrackedCallers = maxTrackedCallers == null ? 100_000 : maxTrackedCallers;
+        }
+    }
+
+    /**
+     * Pool de conexiones a Postgres (adapters.r2dbc.pool.*).
+     */
+    public record Pool(
+            Integer initialSize,
+            Integer minIdle,
+            Integer maxSize,
+            Duration maxIdleTime,
+            Duration maxLifeTime,
+            Duration maxAcquireTime,
+            Duration maxCreateConnectionTime,
+            Integer acquireRetry,
+            Duration evictInterval,
+            ValidationDepth validationDepth,
+            Boolean warmup,
+            Duration warmupTimeout) {
+
+        public static final Pool DEFAULTS = new Pool(null, null, null, null, null, null,
+                null, null, null, null, null, null);
+
+        public Pool {
+            maxSize = maxSize == null ? 20 : Math.max(1, maxSize);
+            initialSize = initialSize == null ? 10 : Math.min(initialSize, maxSize);
+            minIdle = minIdle == null ? initialSize : Math.min(minIdle, maxSize);
+            maxIdleTime = maxIdleTime == null ? Duration.ofMinutes(10) : maxIdleTime;
+            maxLifeTime = maxLifeTime == null ? Duration.ofMinutes(30) : maxLifeTime;
+            maxAcquireTime = maxAcquireTime == null ? Duration.ofSeconds(2) : maxAcquireTime;
+            maxCreateConnectionTime = maxCreateConnectionTime == null ? Duration.ofSeconds(2) : maxCreateConnectionTime;
+            acquireRetry = acquireRetry == null ? 1 : acquireRetry;
+            evictInterval = evictInterval == null ? Duration.ofSeconds(30) : evictInterval;
+            // LOCAL solo revisa que el socket siga abierto: no hay ida y vuelta a la base por cada acquire
+            validationDepth = validationDepth == null ? ValidationDepth.LOCAL : validationDepth;
+            warmup = warmup == null || warmup;
+            warmupTimeout = warmupTimeout == null ? Duration.ofSeconds(10) : warmupTimeout;
+        }
+    }
 }
@@ -0,0 +1,26 @@
+package co.com.bancolombia.r2dbc.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Registro de sentencias lentas. {@code explainSampleRate} es la fracción de ellas a las que se
+ * les captura el plan con EXPLAIN (ANALYZE, BUFFERS): la consulta se vuelve a ejecutar, así que
+ * conviene mantenerla baja.
+ */
+@ConfigurationProperties(prefix = "adapters.r2dbc.slow-query")
+public record SlowQueryProperties(
+        boolean enabled,
+        Duration threshold,
+        Double explainSampleRate,
+        Duration explainTimeout,
+        Integer capacity) {
+
+    public SlowQueryProperties {
+        threshold = threshold == null ? Duration.ofMillis(500) : threshold;
+        explainSampleRate = explainSampleRate == null ? 0.1 : Math.min(Math.max(0.0, explainSampleRate), 1.0);
+        explainTimeout = explainTimeout == null ? Duration.ofSeconds(5) : explainTimeout;
+        capacity = capacity == null ? 20 : Math.max(1, capacity);
+    }
+}
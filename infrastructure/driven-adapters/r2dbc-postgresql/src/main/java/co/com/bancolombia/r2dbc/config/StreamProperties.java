@@ -0,0 +1,21 @@
+package co.com.bancolombia.r2dbc.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Descargas en streaming del listado. Cada una retiene una conexión mientras el cliente lee, así
+ * que {@code maxConcurrent} debe quedar bien por debajo del tamaño del pool; las que pasan del
+ * tope se rechazan de inmediato y las que superan {@code deadline} se cortan.
+ */
+@ConfigurationProperties(prefix = "adapters.r2dbc.stream")
+public record StreamProperties(
+        Integer maxConcurrent,
+        Duration deadline) {
+
+    public StreamProperties {
+        maxConcurrent = maxConcurrent == null ? 4 : Math.max(1, maxConcurrent);
+        deadline = deadline == null ? Duration.ofMinutes(2) : deadline;
+    }
+}
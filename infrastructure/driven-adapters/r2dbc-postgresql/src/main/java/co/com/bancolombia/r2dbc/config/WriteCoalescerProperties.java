@@ -0,0 +1,29 @@
+package co.com.bancolombia.r2dbc.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Agrupación de inserts de solicitudes. Apagada por defecto: cada insert va directo al pool.
+ */
+@ConfigurationProperties(prefix = "adapters.r2dbc.write-coalescer")
+public record WriteCoalescerProperties(
+        boolean enabled,
+        Integer maxBatchSize,
+        Duration linger,
+        Integer queueDepth,
+        Integer maxConcurrentFlushes,
+        Duration resultTimeout) {
+
+    // 12 columnas por fila: con 1000 filas seguimos lejos del tope de 65535 parámetros de Postgres
+    public static final int MAX_BATCH_SIZE_LIMIT = 1000;
+
+    public WriteCoalescerProperties {
+        maxBatchSize = maxBatchSize == null ? 50 : Math.min(Math.max(1, maxBatchSize), MAX_BATCH_SIZE_LIMIT);
+        linger = linger == null ? Duration.ofMillis(5) : linger;
+        queueDepth = queueDepth == null ? 1024 : queueDepth;
+        maxConcurrentFlushes = maxConcurrentFlushes == null ? 2 : maxConcurrentFlushes;
+        resultTimeout = resultTimeout == null ? Duration.ofSeconds(5) : resultTimeout;
+    }
+}
@@ -48,6 +48,14 @@ public class LoanApplicationEntity {
     @Column("created_at")
     private OffsetDateTime createdAt;
 
+    private String names;
+
+    @Column("base_salary")
+    private BigInteger baseSalary;
+
+    @Column("user_synced_at")
+    private OffsetDateTime userSyncedAt;
+
     @Column("updated_at")
     private OffsetDateTime updatedAt;
 }
@@ -0,0 +1,110 @@
+package co.com.bancolombia.r2dbc.helper;
+
+import co.com.bancolombia.model.metrics.gateways.MetricsRepository;
+import co.com.bancolombia.r2dbc.slowquery.SlowQueryListener;
+import io.r2dbc.proxy.core.QueryExecutionInfo;
+import io.r2dbc.proxy.listener.ProxyExecutionListener;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Latencia, filas y errores por sentencia, medidos en el proxy de r2dbc: el tiempo va desde que la
+ * sentencia se ejecuta en una conexión ya tomada hasta que el adaptador termina de leer el resultado,
+ * sin la espera por conexión (esa la mide {@code InstrumentedConnectionPool}).
+ * El tag "query" sale del comentario que deja {@link #named} al inicio del SQL
+ * ("loan_application.keyset_by_status"); las sentencias que arma Spring Data van por tabla y verbo
+ * ("loan_type.select"). Nunca se usa el SQL ni valores de la consulta como tag.
+ */
+public class QueryMetrics implements ProxyExecutionListener {
+
+    public static final String TIMER = "db.query";
+    public static final String ROWS = "db.query.rows";
+    public static final String ERRORS = "db.query.errors";
+
+    private static final String START = "queryMetrics.start";
+    private static final String FIRST_ROW = "queryMetrics.firstRow";
+    private static final String ROW_COUNT = "queryMetrics.rows";
+    private static final String UNNAMED = "other";
+    private static final Pattern NAMED = Pattern.compile("/\\* ([\\w.]+) \\*/ ");
+    private static final Pattern UPDATE_TABLE = Pattern.compile("(?is)\\s*update\\s+\"?(\\w+)");
+    private static final Pattern VERB_TABLE =
+            Pattern.compile("(?is)\\s*(select|insert|delete)\\b.*?\\b(?:from|into)\\s+\"?(\\w+)");
+
+    private final MetricsRepository metrics;
+    private final LongSupplier nanoTime;
+
+    public QueryMetrics(MetricsRepository metrics) {
+        this(metrics, System::nanoTime);
+    }
+
+    QueryMetrics(MetricsRepository metrics, LongSupplier nanoTime) {
+        this.metrics = metrics;
+        this.nanoTime = nanoTime;
+    }
+
+    /** Antepone el nombre fijo de la sentencia como comentario; no cambia el plan. */
+    public static String named(String query, String sql) {
+        return "/* " + query + " */ " + sql;
+    }
+
+    @Override
+    public void beforeQuery(QueryExecutionInfo execInfo) {
+        execInfo.getValueStore().put(ROW_COUNT, new AtomicLong());
+        execInfo.getValueStore().put(START, nanoTime.getAsLong());
+    }
+
+    @Override
+    public void eachQueryResult(QueryExecutionInfo execInfo) {
+        AtomicLong rows = execInfo.getValueStore().get(ROW_COUNT, AtomicLong.class);
+        if (rows != null && rows.incrementAndGet() == 1) {
+            execInfo.getValueStore().put(FIRST_ROW, nanoTime.getAsLong());
+        }
+    }
+
+    @Override
+    public void afterQuery(QueryExecutionInfo execInfo) {
+        Long start = execInfo.getValueStore().get(START, Long.class);
+        if (start == null || execInfo.getQueries().isEmpty()) {
+            return;
+        }
+        String sql = execInfo.getQueries().get(0).getQuery();
+        String query = nameOf(sql);
+        AtomicLong rows = execInfo.getValueStore().get(ROW_COUNT, AtomicLong.class);
+        Long firstRow = execInfo.getValueStore().get(FIRST_ROW, Long.class);
+        // En streaming la latencia llega hasta la primera fila: el resto lo marca el cliente que descarga
+        long end = sql.startsWith(SlowQueryListener.STREAMED) && firstRow != null ? firstRow : nanoTime.getAsLong();
+
+        String outcome = execInfo.isSuccess() ? "success" : "error";
+        metrics.recordTime(TIMER, Duration.ofNanos(end - start), "query", query, "outcome", outcome);
+        if (execInfo.isSuccess()) {
+            // Filas devueltas al adaptador; un UPDATE o DELETE sin RETURNING informa 0
+            metrics.recordValue(ROWS, rows == null ? 0 : rows.get(), "query", query);
+        } else {
+            metrics.increment(ERRORS, "query", query);
+        }
+    }
+
+    static String nameOf(String sql) {
+        String unmarked = sql.startsWith(SlowQueryListener.STREAMED)
+                ? sql.substring(SlowQueryListener.STREAMED.length())
+                : sql;
+        Matcher named = NAMED.matcher(unmarked);
+        if (named.lookingAt()) {
+            return named.group(1);
+        }
+        Matcher update = UPDATE_TABLE.matcher(unmarked);
+        if (update.lookingAt()) {
+            return update.group(1).toLowerCase(Locale.ROOT) + ".update";
+        }
+        Matcher verb = VERB_TABLE.matcher(unmarked);
+        if (verb.lookingAt()) {
+            return verb.group(2).toLowerCase(Locale.ROOT) + "." + verb.group(1).toLowerCase(Locale.ROOT);
+        }
+        return UNNAMED;
+    }
+}
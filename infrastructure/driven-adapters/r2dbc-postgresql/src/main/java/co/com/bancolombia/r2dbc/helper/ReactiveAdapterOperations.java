@@ -13,7 +13,7 @@ import java.util.function.Function;
 public abstract class ReactiveAdapterOperations<E, D, I, R extends ReactiveCrudRepository<D, I> & ReactiveQueryByExampleExecutor<D>> {
     protected R repository;
     protected ObjectMapper mapper;
-    private final Class<D> dataClass;
+    private final Function<E, D> toDataFn;
     private final Function<D, E> toEntityFn;
 
     @SuppressWarnings("unchecked")
@@ -21,12 +21,23 @@ public abstract class ReactiveAdapterOperations<E, D, I, R extends ReactiveCrudR
         this.repository = repository;
         this.mapper = mapper;
         ParameterizedType genericSuperclass = (ParameterizedType) this.getClass().getGenericSuperclass();
-        this.dataClass = (Class<D>) genericSuperclass.getActualTypeArguments()[1];
+        Class<D> dataClass = (Class<D>) genericSuperclass.getActualTypeArguments()[1];
+        this.toDataFn = entity -> mapper.map(entity, dataClass);
+        this.toEntityFn = toEntityFn;
+    }
+
+    /**
+     * Para mappers generados en compilación: ambos sentidos son funciones directas, sin el
+     * ObjectMapper reflexivo.
+     */
+    protected ReactiveAdapterOperations(R repository, Function<E, D> toDataFn, Function<D, E> toEntityFn) {
+        this.repository = repository;
+        this.toDataFn = toDataFn;
         this.toEntityFn = toEntityFn;
     }
 
     protected D toData(E entity) {
-        return mapper.map(entity, dataClass);
+        return toDataFn.apply(entity);
     }
 
     protected E toEntity(D data) {
@@ -0,0 +1,86 @@
+package co.com.bancolombia.r2dbc.idempotency;
+
+import co.com.bancolombia.model.idempotency.IdempotencyRecord;
+import co.com.bancolombia.model.idempotency.gateways.IdempotencyRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+import static co.com.bancolombia.r2dbc.helper.QueryMetrics.named;
+
+/**
+ * Llaves de idempotencia en la tabla UNLOGGED idempotency_key (migración V2__idempotency_key.sql):
+ * compartida entre nodos y sin costo de WAL; si la base se reinicia se pierde, lo cual es aceptable.
+ */
+@Repository
+@RequiredArgsConstructor
+public class IdempotencyRepositoryAdapter implements IdempotencyRepository {
+
+    private final DatabaseClient databaseClient;
+
+    @Override
+    public Mono<Boolean> tryAcquire(String key, String fingerprint, Duration ttl) {
+        // Gana quien inserta; una llave vencida se puede volver a tomar
+        return databaseClient
+                .sql(named("idempotency_key.try_acquire", "INSERT INTO idempotency_key (idempotency_key, fingerprint, status, expires_at) " +
+                        "VALUES (:key, :fingerprint, 'IN_PROGRESS', now() + make_interval(secs => :ttl)) " +
+                        "ON CONFLICT (idempotency_key) DO UPDATE SET " +
+                        "fingerprint = EXCLUDED.fingerprint, status = EXCLUDED.status, " +
+                        "loan_application_id = NULL, expires_at = EXCLUDED.expires_at " +
+                        "WHERE idempotency_key.expires_at < now() " +
+                        "RETURNING idempotency_key"))
+                .bind("key", key)
+                .bind("fingerprint", fingerprint)
+                .bind("ttl", (double) ttl.toSeconds())
+                .map((row, metadata) -> row.get("idempotency_key", String.class))
+                .one()
+                .hasElement();
+    }
+
+    @Override
+    public Mono<IdempotencyRecord> find(String key) {
+        return databaseClient
+                .sql(named("idempotency_key.find", "SELECT idempotency_key, fingerprint, status, loan_application_id " +
+                        "FROM idempotency_key WHERE idempotency_key = :key AND expires_at > now()"))
+                .bind("key", key)
+                .map((row, metadata) -> IdempotencyRecord.builder()
+                        .key(row.get("idempotency_key", String.class))
+                        .fingerprint(row.get("fingerprint", String.class))
+                        .status(row.get("status", String.class))
+                        .loanApplicationId(row.get("loan_application_id", Long.class))
+                        .build())
+                .one();
+    }
+
+    @Override
+    public Mono<Void> complete(String key, Long loanApplicationId, Duration ttl) {
+        return databaseClient
+                .sql(named("idempotency_key.complete",
+                        "UPDATE idempotency_key SET status = 'COMPLETED', loan_application_id = :id, " +
+                        "expires_at = now() + make_interval(secs => :ttl) WHERE idempotency_key = :key"))
+                .bind("key", key)
+                .bind("id", loanApplicationId)
+                .bind("ttl", (double) ttl.toSeconds())
+                .then();
+    }
+
+    @Override
+    public Mono<Void> release(String key) {
+        return databaseClient
+                .sql(named("idempotency_key.release",
+                        "DELETE FROM idempotency_key WHERE idempotency_key = :key AND status = 'IN_PROGRESS'"))
+                .bind("key", key)
+                .then();
+    }
+
+    @Override
+    public Mono<Long> deleteExpired() {
+        return databaseClient
+                .sql(named("idempotency_key.delete_expired", "DELETE FROM idempotency_key WHERE expires_at < now()"))
+                .fetch()
+                .rowsUpdated();
+    }
+}
@@ -0,0 +1,15 @@
+package co.com.bancolombia.r2dbc.mapper;
+
+import co.com.bancolombia.model.loanApplication.LoanApplication;
+import co.com.bancolombia.r2dbc.entities.LoanApplicationEntity;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+@Mapper(componentModel = "spring")
+public interface LoanApplicationDataMapper {
+
+    @Mapping(target = "updatedAt", ignore = true)
+    LoanApplicationEntity toData(LoanApplication loanApplication);
+
+    LoanApplication toModel(LoanApplicationEntity entity);
+}
@@ -0,0 +1,44 @@
+package co.com.bancolombia.r2dbc.mapper;
+
+import co.com.bancolombia.model.loanApplication.LoanApplication;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.OffsetDateTime;
+
+/**
+ * Lee una fila de loan_application directo al modelo, sin pasar por la entidad ni por el
+ * conversor de Spring Data. Espera las columnas de {@link #COLUMNS}.
+ */
+public final class LoanApplicationRowReader {
+
+    public static final String COLUMNS = "id, user_id, document, email, loan_type, amount, term_months, status, " +
+            "interest_rate, created_at, names, base_salary, user_synced_at";
+
+    private LoanApplicationRowReader() {
+    }
+
+    public static LoanApplication read(Row row, RowMetadata metadata) {
+        return LoanApplication.builder()
+                .loanApplicationId(row.get("id", Long.class))
+                .userId(row.get("user_id", Long.class))
+                .document(row.get("document", String.class))
+                .email(row.get("email", String.class))
+                .loanType(row.get("loan_type", String.class))
+                .amount(toBigInteger(row.get("amount", BigDecimal.class)))
+                .loanTermMonths(row.get("term_months", Integer.class))
+                .status(row.get("status", String.class))
+                .interestRate(row.get("interest_rate", BigDecimal.class))
+                .createdAt(row.get("created_at", OffsetDateTime.class))
+                .names(row.get("names", String.class))
+                .baseSalary(toBigInteger(row.get("base_salary", BigDecimal.class)))
+                .userSyncedAt(row.get("user_synced_at", OffsetDateTime.class))
+                .build();
+    }
+
+    private static BigInteger toBigInteger(BigDecimal value) {
+        return value == null ? null : value.toBigInteger();
+    }
+}
@@ -0,0 +1,13 @@
+package co.com.bancolombia.r2dbc.mapper;
+
+import co.com.bancolombia.model.status.LoanStatus;
+import co.com.bancolombia.r2dbc.entities.LoanStatusEntity;
+import org.mapstruct.Mapper;
+
+@Mapper(componentModel = "spring")
+public interface LoanStatusDataMapper {
+
+    LoanStatusEntity toData(LoanStatus loanStatus);
+
+    LoanStatus toModel(LoanStatusEntity entity);
+}
@@ -0,0 +1,16 @@
+package co.com.bancolombia.r2dbc.mapper;
+
+import co.com.bancolombia.model.loanType.LoanType;
+import co.com.bancolombia.r2dbc.entities.LoanTypeEntity;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+@Mapper(componentModel = "spring")
+public interface LoanTypeDataMapper {
+
+    @Mapping(target = "active", ignore = true)
+    @Mapping(target = "updatedAt", ignore = true)
+    LoanTypeEntity toData(LoanType loanType);
+
+    LoanType toModel(LoanTypeEntity entity);
+}
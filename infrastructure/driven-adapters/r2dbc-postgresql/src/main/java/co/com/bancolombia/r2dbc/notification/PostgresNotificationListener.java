@@ -0,0 +1,45 @@
+package co.com.bancolombia.r2dbc.notification;
+
+import co.com.bancolombia.r2dbc.config.PostgreSQLConnectionPool;
+import co.com.bancolombia.r2dbc.config.PostgresqlConnectionProperties;
+import io.r2dbc.postgresql.PostgresqlConnectionFactory;
+import io.r2dbc.postgresql.api.PostgresqlConnection;
+import io.r2dbc.postgresql.api.PostgresqlResult;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+
+/**
+ * LISTEN sobre una conexión propia, fuera del pool, para no ocupar
+ * indefinidamente una de las conexiones que atienden peticiones.
+ */
+@Component
+public class PostgresNotificationListener {
+
+    private static final Duration MIN_BACKOFF = Duration.ofSeconds(1);
+    private static final Duration MAX_BACKOFF = Duration.ofSeconds(30);
+
+    private final PostgresqlConnectionFactory connectionFactory;
+
+    public PostgresNotificationListener(PostgresqlConnectionProperties properties) {
+        this.connectionFactory = new PostgresqlConnectionFactory(PostgreSQLConnectionPool.connectionConfiguration(properties));
+    }
+
+    public Flux<String> listen(String channel) {
+        return Flux.usingWhen(
+                        connectionFactory.create(),
+                        connection -> connection.createStatement("LISTEN " + channel)
+                                .execute()
+                                .flatMap(PostgresqlResult::getRowsUpdated)
+                                .thenMany(connection.getNotifications())
+                                .map(notification -> notification.getParameter() != null
+                                        ? notification.getParameter()
+                                        : channel),
+                        PostgresqlConnection::close)
+                // Si se cae la conexión volvemos a escuchar; lo perdido mientras tanto lo cubre la reconciliación
+                .repeatWhen(completed -> completed.delayElements(MIN_BACKOFF))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, MIN_BACKOFF).maxBackoff(MAX_BACKOFF));
+    }
+}
@@ -0,0 +1,239 @@
+package co.com.bancolombia.r2dbc.reactiveLoanApplication;
+
+import co.com.bancolombia.model.exceptions.LoanPendingException;
+import co.com.bancolombia.model.exceptions.ServiceUnavailableException;
+import co.com.bancolombia.model.loanApplication.LoanApplication;
+import co.com.bancolombia.model.metrics.gateways.MetricsRepository;
+import co.com.bancolombia.r2dbc.config.WriteCoalescerProperties;
+import io.r2dbc.spi.Statement;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+
+import static co.com.bancolombia.r2dbc.helper.QueryMetrics.named;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Junta los inserts que llegan a la vez (hasta {@code maxBatchSize} filas o {@code linger})
+ * y los escribe con un solo INSERT multi-fila en una conexión del pool. Cada llamador
+ * recibe su solicitud con el id generado, o {@link LoanPendingException} si chocó con
+ * una pendiente del mismo email. Si la cola está llena o no se puede encolar, {@link #insert}
+ * devuelve vacío y el llamador va por el camino directo; si el pipeline termina por cualquier
+ * motivo, los llamadores que seguían esperando reciben el error en vez de quedarse colgados.
+ * Cada fila lleva su ordinal y el INSERT lo devuelve junto al id: Postgres no garantiza que
+ * RETURNING salga en el orden del VALUES.
+ */
+@Component
+public class LoanInsertCoalescer implements DisposableBean {
+
+    private static final String BATCH_SIZE = "loan.insert.coalescer.batch.size";
+    private static final String FLUSH_TIMER = "loan.insert.coalescer.flush";
+    private static final String WAIT_TIMER = "loan.insert.coalescer.wait";
+    private static final String OVERFLOW_COUNTER = "loan.insert.coalescer.overflow";
+    private static final String EMIT_FAILURE_COUNTER = "loan.insert.coalescer.emit.failure";
+    private static final String TIMEOUT_COUNTER = "loan.insert.coalescer.timeout";
+    private static final int COLUMNS = 12;
+    private static final String INSERT_COLUMNS = "user_id, document, email, loan_type, amount, term_months, " +
+            "status, interest_rate, created_at, names, base_salary, user_synced_at";
+    private static final String PENDING_BY_EMAIL = named("loan_application.pending_by_email",
+            "SELECT id, user_id, created_at FROM loan_application WHERE email = :email AND status = 'PENDING_REVIEW'");
+    // Reintentos cortos cuando otro hilo está emitiendo; después se va por el camino directo
+    private static final int EMIT_ATTEMPTS = 8;
+
+    private final DatabaseClient databaseClient;
+    private final MetricsRepository metrics;
+    private final WriteCoalescerProperties properties;
+
+    private final Sinks.Many<PendingInsert> queue = Sinks.many().unicast().onBackpressureBuffer();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Set<PendingInsert> waiting = ConcurrentHashMap.newKeySet();
+    private final Map<Integer, String> statements = new ConcurrentHashMap<>();
+    private final Disposable pipeline;
+
+    public LoanInsertCoalescer(DatabaseClient databaseClient, MetricsRepository metrics,
+                               WriteCoalescerProperties properties) {
+        this.databaseClient = databaseClient;
+        this.metrics = metrics;
+        this.properties = properties;
+        this.pipeline = properties.enabled()
+                ? queue.asFlux()
+                        // fairBackpressure: con todos los flush ocupados el lote espera en vez de desbordar
+                        .bufferTimeout(properties.maxBatchSize(), properties.linger(), true)
+                        .flatMap(this::flush, properties.maxConcurrentFlushes())
+                        .subscribe(null,
+                                this::failWaiting,
+                                () -> failWaiting(new IllegalStateException("Agrupador de inserts detenido")))
+                : Disposables.disposed();
+    }
+
+    public boolean isEnabled() {
+        return properties.enabled();
+    }
+
+    /**
+     * Encola el insert. Vacío si la cola está llena o no se pudo encolar: el llamador debe insertar
+     * por el camino directo. Si el resultado no llega a tiempo se consulta la pendiente del email.
+     */
+    public Mono<LoanApplication> insert(LoanApplication loan) {
+        return Mono.defer(() -> {
+            if (queued.incrementAndGet() > properties.queueDepth()) {
+                queued.decrementAndGet();
+                metrics.increment(OVERFLOW_COUNTER);
+                return Mono.empty();
+            }
+            PendingInsert pending = new PendingInsert(loan, Sinks.one(), System.nanoTime());
+            waiting.add(pending);
+            Sinks.EmitResult emitted = queue.tryEmitNext(pending);
+            for (int attempt = 1; emitted == Sinks.EmitResult.FAIL_NON_SERIALIZED && attempt < EMIT_ATTEMPTS;
+                 attempt++) {
+                Thread.onSpinWait();
+                emitted = queue.tryEmitNext(pending);
+            }
+            if (emitted.isFailure()) {
+                queued.decrementAndGet();
+                waiting.remove(pending);
+                metrics.increment(EMIT_FAILURE_COUNTER, "result", emitted.name());
+                return Mono.empty();
+            }
+            return pending.result().asMono()
+                    .timeout(properties.resultTimeout())
+                    .doFinally(signal -> waiting.remove(pending))
+                    // Si vence, el insert puede haberse hecho igual: se relee antes de fallar
+                    .onErrorResume(TimeoutException.class, e -> afterTimeout(loan));
+        });
+    }
+
+    /**
+     * La única pendiente del email decide: si es la del llamador (mismo usuario y fecha de creación)
+     * se devuelve con su id; si es otra, el insert chocó con ella. Sin pendiente no se sabe si el flush
+     * aún va a escribir, y se informa así en vez de dejar que un reintento choque con su propia fila.
+     */
+    private Mono<LoanApplication> afterTimeout(LoanApplication loan) {
+        metrics.increment(TIMEOUT_COUNTER);
+        return databaseClient.sql(PENDING_BY_EMAIL)
+                .bind("email", loan.getEmail())
+                .map((row, metadata) -> new StoredPending(row.get("id", Long.class),
+                        row.get("user_id", Long.class), row.get("created_at", OffsetDateTime.class)))
+                .one()
+                .switchIfEmpty(Mono.error(() -> new ServiceUnavailableException(
+                        "No se pudo confirmar el registro de la solicitud, consulta tus solicitudes antes de reintentar")))
+                .flatMap(stored -> stored.isOwnedBy(loan)
+                        ? Mono.just(loan.toBuilder().loanApplicationId(stored.id()).build())
+                        : Mono.error(new LoanPendingException(loan.getEmail())));
+    }
+
+    @Override
+    public void destroy() {
+        queue.tryEmitComplete();
+        pipeline.dispose();
+        failWaiting(new IllegalStateException("Agrupador de inserts detenido"));
+    }
+
+    private void failWaiting(Throwable error) {
+        queued.set(0);
+        waiting.removeIf(pending -> {
+            pending.result().tryEmitError(error);
+            return true;
+        });
+    }
+
+    private Mono<Void> flush(List<PendingInsert> batch) {
+        queued.addAndGet(-batch.size());
+        long start = System.nanoTime();
+        batch.forEach(pending -> metrics.recordTime(WAIT_TIMER, Duration.ofNanos(start - pending.enqueuedAt())));
+        metrics.recordValue(BATCH_SIZE, batch.size());
+
+        // Un email por fila: con el índice parcial los repetidos del lote chocan con el primero o con la
+        // misma pendiente previa, y así el email identifica a una sola fila del lote en el RETURNING
+        List<PendingInsert> rows = new ArrayList<>(batch.size());
+        Set<String> emails = new HashSet<>();
+        for (PendingInsert pending : batch) {
+            if (emails.add(pending.loan().getEmail())) {
+                rows.add(pending);
+            } else {
+                pending.result().tryEmitError(new LoanPendingException(pending.loan().getEmail()));
+            }
+        }
+
+        return databaseClient.inConnectionMany(connection -> {
+                    Statement statement = connection.createStatement(statementFor(rows.size()));
+                    for (int i = 0; i < rows.size(); i++) {
+                        MyReactiveRepositoryAdapter.bindInsert(statement, i * COLUMNS, rows.get(i).loan());
+                    }
+                    return Flux.from(statement.execute())
+                            .flatMap(result -> result.map((row, metadata) ->
+                                    Tuples.of(row.get("ord", Integer.class), row.get("id", Long.class))));
+                })
+                .collectMap(Tuple2::getT1, Tuple2::getT2)
+                .doOnNext(ids -> complete(rows, ids))
+                .doOnError(e -> rows.forEach(pending -> pending.result().tryEmitError(e)))
+                .doFinally(signal -> metrics.recordTime(FLUSH_TIMER, Duration.ofNanos(System.nanoTime() - start),
+                        "signal", signal.name()))
+                .onErrorResume(e -> Mono.empty())
+                .then();
+    }
+
+    private static void complete(List<PendingInsert> rows, Map<Integer, Long> idsByOrdinal) {
+        for (int ord = 0; ord < rows.size(); ord++) {
+            LoanApplication loan = rows.get(ord).loan();
+            Long id = idsByOrdinal.get(ord);
+            if (id != null) {
+                rows.get(ord).result().tryEmitValue(loan.toBuilder().loanApplicationId(id).build());
+            } else {
+                rows.get(ord).result().tryEmitError(new LoanPendingException(loan.getEmail()));
+            }
+        }
+    }
+
+    // RETURNING solo ve columnas de la tabla: el ordinal vuelve cruzando lo insertado con el VALUES por email
+    private String statementFor(int rows) {
+        return statements.computeIfAbsent(rows, n -> {
+            StringBuilder sql = new StringBuilder(named("loan_application.insert_coalesced",
+                    "WITH v (" + INSERT_COLUMNS + ", ord) AS (VALUES "));
+            for (int row = 0; row < n; row++) {
+                sql.append(row == 0 ? "(" : ", (");
+                for (int column = 1; column <= COLUMNS; column++) {
+                    sql.append('$').append(row * COLUMNS + column).append(", ");
+                }
+                sql.append(row).append(')');
+            }
+            return sql.append("), inserted AS (INSERT INTO loan_application (").append(INSERT_COLUMNS).append(')')
+                    .append(" SELECT ").append(INSERT_COLUMNS).append(" FROM v ORDER BY ord")
+                    .append(" ON CONFLICT (email) WHERE status = 'PENDING_REVIEW' DO NOTHING")
+                    .append(" RETURNING id, email)")
+                    .append(" SELECT v.ord, inserted.id FROM inserted JOIN v ON v.email = inserted.email")
+                    .toString();
+        });
+    }
+
+    private record PendingInsert(LoanApplication loan, Sinks.One<LoanApplication> result, long enqueuedAt) {
+    }
+
+    private record StoredPending(Long id, Long userId, OffsetDateTime createdAt) {
+
+        // Postgres guarda microsegundos: la fecha del llamador puede traer más precisión
+        boolean isOwnedBy(LoanApplication loan) {
+            return Objects.equals(userId, loan.getUserId())
+                    && createdAt != null && loan.getCreatedAt() != null
+                    && Duration.between(createdAt, loan.getCreatedAt()).abs().toNanos() < 1_000;
+        }
+    }
+}
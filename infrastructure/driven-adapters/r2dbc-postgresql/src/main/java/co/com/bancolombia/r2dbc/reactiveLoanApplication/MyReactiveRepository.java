@@ -8,21 +8,36 @@ import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.util.Collection;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.OffsetDateTime;
 
 public interface MyReactiveRepository extends ReactiveCrudRepository<LoanApplicationEntity, Long>, ReactiveQueryByExampleExecutor<LoanApplicationEntity> {
 
     Mono<Boolean> existsByEmailAndStatus(String email, String status);
 
-    @Query("SELECT * FROM loan_application " +
-            "WHERE status = ANY(:statuses) " +
-            "ORDER BY created_at DESC " +
-            "LIMIT :limit OFFSET :offset")
-    Flux<LoanApplicationEntity> findForStatuses(@Param("statuses") String[] statuses,
-                                                @Param("limit") long limit,
-                                                @Param("offset") long offset);
+    @Query("/* loan_application.emails_with_status */ SELECT DISTINCT email FROM loan_application " +
+            "WHERE status = :status AND email = ANY(:emails)")
+    Flux<String> findEmailsWithStatus(@Param("emails") String[] emails, @Param("status") String status);
 
-    @Query("SELECT COUNT(*) FROM loan_application " +
-            "WHERE status = ANY(:statuses)")
-    Mono<Long> countForStatuses(@Param("statuses") String[] statuses);
+    // El predicado del ON CONFLICT debe coincidir con el del índice ux_loan_application_pending_email
+    @Query("/* loan_application.insert_if_no_pending */ INSERT INTO loan_application " +
+            "(user_id, document, email, loan_type, amount, term_months, status, interest_rate, created_at, " +
+            "names, base_salary, user_synced_at) " +
+            "VALUES (:userId, :document, :email, :loanType, :amount, :termMonths, :status, :interestRate, :createdAt, " +
+            ":names, :baseSalary, :userSyncedAt) " +
+            "ON CONFLICT (email) WHERE status = 'PENDING_REVIEW' DO NOTHING " +
+            "RETURNING id")
+    Mono<Long> insertIfNoPending(@Param("userId") Long userId,
+                                 @Param("document") String document,
+                                 @Param("email") String email,
+                                 @Param("loanType") String loanType,
+                                 @Param("amount") BigInteger amount,
+                                 @Param("termMonths") Integer termMonths,
+                                 @Param("status") String status,
+                                 @Param("interestRate") BigDecimal interestRate,
+                                 @Param("createdAt") OffsetDateTime createdAt,
+                                 @Param("names") String names,
+                                 @Param("baseSalary") BigInteger baseSalary,
+                                 @Param("userSyncedAt") OffsetDateTime userSyncedAt);
 }
@@ -1,15 +1,40 @@
 package co.com.bancolombia.r2dbc.reactiveLoanApplication;
 
+import co.com.bancolombia.model.client.UserClientDetails;
+import co.com.bancolombia.model.exceptions.LoanPendingException;
+import co.com.bancolombia.model.exceptions.ServiceUnavailableException;
 import co.com.bancolombia.model.loanApplication.LoanApplication;
+import co.com.bancolombia.model.loanApplication.PageCursor;
 import co.com.bancolombia.model.loanApplication.gateways.LoanApplicationRepository;
+import co.com.bancolombia.model.metrics.gateways.MetricsRepository;
+import co.com.bancolombia.r2dbc.config.StreamProperties;
 import co.com.bancolombia.r2dbc.entities.LoanApplicationEntity;
 import co.com.bancolombia.r2dbc.helper.ReactiveAdapterOperations;
-import org.reactivecommons.utils.ObjectMapper;
+import co.com.bancolombia.r2dbc.mapper.LoanApplicationDataMapper;
+import co.com.bancolombia.r2dbc.mapper.LoanApplicationRowReader;
+import co.com.bancolombia.r2dbc.routing.ReadYourWritesGuard;
+import co.com.bancolombia.r2dbc.slowquery.SlowQueryListener;
+import io.r2dbc.spi.Statement;
+import org.springframework.r2dbc.core.DatabaseClient;
 import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import static co.com.bancolombia.r2dbc.helper.QueryMetrics.named;
+import static co.com.bancolombia.r2dbc.routing.ReadRoute.onReplica;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.OffsetDateTime;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 @Repository
 public class MyReactiveRepositoryAdapter extends ReactiveAdapterOperations<
@@ -18,13 +43,61 @@ public class MyReactiveRepositoryAdapter extends ReactiveAdapterOperations<
         Long,
         MyReactiveRepository
 > implements LoanApplicationRepository {
-    public MyReactiveRepositoryAdapter(MyReactiveRepository repository, ObjectMapper mapper) {
-        /**
-         *  Could be use mapper.mapBuilder if your domain model implement builder pattern
-         *  super(repository, mapper, d -> mapper.mapBuilder(d,ObjectModel.ObjectModelBuilder.class).build());
-         *  Or using mapper.map with the class of the object model
-         */
-        super(repository, mapper, d -> mapper.mapBuilder(d, LoanApplication.LoanApplicationBuilder.class).build());
+
+    // Misma sentencia que MyReactiveRepository.insertIfNoPending, con parámetros posicionales para el batch
+    private static final String INSERT_IF_NO_PENDING = named("loan_application.insert_batch",
+            "INSERT INTO loan_application " +
+            "(user_id, document, email, loan_type, amount, term_months, status, interest_rate, created_at, " +
+            "names, base_salary, user_synced_at) " +
+            "VALUES ($1, $2, $3, $4, $5, $6, $7, $8, $9, $10, $11, $12) " +
+            "ON CONFLICT (email) WHERE status = 'PENDING_REVIEW' DO NOTHING " +
+            "RETURNING id");
+
+    // Listado por estado. Con un estado el orden sale de ix_loan_application_status_created; con
+    // varios, de ix_loan_application_created filtrando por estado (ver V8)
+    private static final String BY_STATUSES = "SELECT " + LoanApplicationRowReader.COLUMNS +
+            " FROM loan_application WHERE status = ANY(:statuses) ";
+    private static final String ORDER = "ORDER BY created_at DESC, id DESC ";
+    private static final String PAGE_FOR_STATUSES = named("loan_application.page_by_status",
+            BY_STATUSES + ORDER + "LIMIT :limit OFFSET :offset");
+    private static final String FIRST_FOR_STATUSES = BY_STATUSES + ORDER + "LIMIT :limit";
+    private static final String AFTER_FOR_STATUSES = BY_STATUSES +
+            "AND (created_at, id) < (:createdAt, :id) " + ORDER + "LIMIT :limit";
+    private static final int STREAM_FETCH_SIZE = 100;
+    static final String STREAM_REJECTED = "loan_application.stream.rejected";
+    private static final String ESTIMATE_FOR_STATUSES = named("loan_application.estimate_by_status",
+            "EXPLAIN SELECT 1 FROM loan_application WHERE status = ANY(:statuses)");
+    private static final Pattern PLAN_ROWS = Pattern.compile("rows=(\\d+)");
+
+    private final DatabaseClient databaseClient;
+    private final LoanInsertCoalescer insertCoalescer;
+    private final ReadYourWritesGuard writes;
+    private final MetricsRepository metrics;
+    private final StreamProperties streamProperties;
+    private final Semaphore streamSlots;
+
+    public MyReactiveRepositoryAdapter(MyReactiveRepository repository, LoanApplicationDataMapper mapper,
+                                       DatabaseClient databaseClient, LoanInsertCoalescer insertCoalescer,
+                                       ReadYourWritesGuard writes, MetricsRepository metrics,
+                                       StreamProperties streamProperties) {
+        // Mapeo generado en compilación (MapStruct), sin reflexión por fila
+        super(repository, mapper::toData, mapper::toModel);
+        this.databaseClient = databaseClient;
+        this.insertCoalescer = insertCoalescer;
+        this.writes = writes;
+        this.metrics = metrics;
+        this.streamProperties = streamProperties;
+        this.streamSlots = new Semaphore(streamProperties.maxConcurrent());
+    }
+
+    @Override
+    public Mono<LoanApplication> save(LoanApplication loan) {
+        return written(super.save(loan));
+    }
+
+    @Override
+    public Mono<LoanApplication> findById(Long id) {
+        return super.findById(id);
     }
 
     @Override
@@ -33,17 +106,210 @@ public class MyReactiveRepositoryAdapter extends ReactiveAdapterOperations<
     }
 
     @Override
-    public Flux<LoanApplication> findByStatuses(Collection<String> statuses, int page, int size) {
-        long limit = size;
-        long offset = (long) page * size;
-        String[] arr = statuses.toArray(new String[0]);
-        return repository.findForStatuses(arr, limit, offset)
-                .map(this::toEntity);
+    public Mono<LoanApplication> saveIfNoPending(LoanApplication loan) {
+        if (insertCoalescer.isEnabled()) {
+            // Vacío = cola del agrupador llena; ese insert va directo
+            return written(insertCoalescer.insert(loan)
+                    .switchIfEmpty(Mono.defer(() -> insertOne(loan))));
+        }
+        return written(insertOne(loan));
+    }
+
+    private Mono<LoanApplication> insertOne(LoanApplication loan) {
+        return repository.insertIfNoPending(
+                        loan.getUserId(),
+                        loan.getDocument(),
+                        loan.getEmail(),
+                        loan.getLoanType(),
+                        loan.getAmount(),
+                        loan.getLoanTermMonths(),
+                        loan.getStatus(),
+                        loan.getInterestRate(),
+                        loan.getCreatedAt(),
+                        loan.getNames(),
+                        loan.getBaseSalary(),
+                        loan.getUserSyncedAt())
+                .map(id -> loan.toBuilder().loanApplicationId(id).build())
+                // Sin fila devuelta = el índice parcial rechazó el insert: ya hay una pendiente
+                .switchIfEmpty(Mono.error(() -> new LoanPendingException(loan.getEmail())));
+    }
+
+    @Override
+    public Flux<LoanApplication> saveAllIfNoPending(List<LoanApplication> loans) {
+        if (loans.isEmpty()) {
+            return Flux.empty();
+        }
+        Flux<LoanApplication> inserted = databaseClient.inConnectionMany(connection -> {
+            Statement statement = connection.createStatement(INSERT_IF_NO_PENDING);
+            for (int i = 0; i < loans.size(); i++) {
+                if (i > 0) {
+                    statement.add();
+                }
+                bindInsert(statement, 0, loans.get(i));
+            }
+            // Un Result por cada juego de parámetros, en el mismo orden; vacío si hubo conflicto
+            return Flux.from(statement.execute())
+                    .concatMap(result -> Flux.from(result.map((row, metadata) -> row.get("id", Long.class)))
+                            .collectList())
+                    .index()
+                    .map(tuple -> {
+                        LoanApplication loan = loans.get(tuple.getT1().intValue());
+                        List<Long> ids = tuple.getT2();
+                        return ids.isEmpty() ? loan : loan.toBuilder().loanApplicationId(ids.get(0)).build();
+                    });
+        });
+        return Flux.deferContextual(context -> inserted
+                .doOnComplete(() -> writes.recordWrite(context)));
+    }
+
+    @Override
+    public Flux<String> findEmailsWithStatus(Collection<String> emails, String status) {
+        return repository.findEmailsWithStatus(emails.toArray(new String[0]), status);
+    }
+
+    @Override
+    public Flux<LoanApplication> findByStatuses(Collection<String> statuses, long offset, int limit) {
+        return onReplica(databaseClient.sql(PAGE_FOR_STATUSES)
+                .bind("statuses", statuses.toArray(new String[0]))
+                .bind("limit", limit)
+                .bind("offset", offset)
+                .map(LoanApplicationRowReader::read)
+                .all());
     }
 
     @Override
-    public Mono<Long> countByStatuses(Collection<String> statuses) {
-        String[] arr = statuses.toArray(new String[0]);
-        return repository.countForStatuses(arr);
+    public Flux<LoanApplication> findByStatusesAfter(Collection<String> statuses, PageCursor after, int limit) {
+        return onReplica(keyset("loan_application.keyset_by_status", false, statuses, after, limit)
+                .map(LoanApplicationRowReader::read)
+                .all());
+    }
+
+    @Override
+    public Flux<LoanApplication> streamByStatusesAfter(Collection<String> statuses, PageCursor after, int limit) {
+        // Con fetchSize el driver pide filas al portal por tandas según la demanda del suscriptor
+        Flux<LoanApplication> rows = onReplica(keyset("loan_application.stream_by_status", true, statuses, after, limit)
+                .filter(statement -> statement.fetchSize(STREAM_FETCH_SIZE))
+                .map(LoanApplicationRowReader::read)
+                .all());
+        return Flux.defer(() -> {
+            // La conexión queda tomada mientras el cliente lee: si ya no hay cupo se rechaza sin esperar el pool
+            if (!streamSlots.tryAcquire()) {
+                metrics.increment(STREAM_REJECTED);
+                return Flux.error(new ServiceUnavailableException("Demasiadas descargas en curso, intenta mas tarde"));
+            }
+            // Plazo total de la descarga, no entre filas: un cliente lento no retiene la conexión sin límite
+            Mono<Long> deadline = Mono.delay(streamProperties.deadline()).cache();
+            // El cupo se libera antes de avisar al suscriptor, y una sola vez aunque terminen y cancelen a la par
+            AtomicBoolean released = new AtomicBoolean();
+            Runnable release = () -> {
+                if (released.compareAndSet(false, true)) {
+                    streamSlots.release();
+                }
+            };
+            return rows.timeout(deadline, row -> deadline)
+                    .onErrorMap(TimeoutException.class,
+                            e -> new ServiceUnavailableException("La descarga supero el tiempo maximo"))
+                    .doOnTerminate(release)
+                    .doOnCancel(release);
+        });
+    }
+
+    // Nombre y marca de streaming van como comentarios al inicio, sin cambiar el plan. La marca va
+    // primero: la buscan el registro de lentas y las métricas por sentencia
+    private DatabaseClient.GenericExecuteSpec keyset(String query, boolean streamed, Collection<String> statuses,
+                                                     PageCursor after, int limit) {
+        DatabaseClient.GenericExecuteSpec spec = databaseClient
+                .sql((streamed ? SlowQueryListener.STREAMED : "")
+                        + named(query, after == null ? FIRST_FOR_STATUSES : AFTER_FOR_STATUSES))
+                .bind("statuses", statuses.toArray(new String[0]))
+                .bind("limit", limit);
+        return after == null ? spec : spec.bind("createdAt", after.getCreatedAt()).bind("id", after.getId());
+    }
+
+    @Override
+    public Flux<Long> findUserIdsWithStaleSnapshot(OffsetDateTime syncedBefore, int limit) {
+        // Si la réplica va atrasada a lo sumo se refresca de nuevo un usuario ya sincronizado
+        return onReplica(databaseClient
+                .sql(named("loan_application.stale_snapshots", "SELECT DISTINCT user_id FROM loan_application " +
+                        "WHERE user_id IS NOT NULL AND (user_synced_at IS NULL OR user_synced_at < :syncedBefore) " +
+                        "LIMIT :limit"))
+                .bind("syncedBefore", syncedBefore)
+                .bind("limit", limit)
+                .map((row, metadata) -> row.get("user_id", Long.class))
+                .all());
+    }
+
+    @Override
+    public Mono<Long> updateUserSnapshots(Collection<Long> userIds, Collection<UserClientDetails> users) {
+        if (userIds.isEmpty()) {
+            return Mono.just(0L);
+        }
+        Map<Long, UserClientDetails> byId = new HashMap<>();
+        users.forEach(user -> byId.putIfAbsent(user.getUserId(), user));
+        Long[] ids = userIds.toArray(new Long[0]);
+        String[] names = new String[ids.length];
+        String[] salaries = new String[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            UserClientDetails user = byId.get(ids[i]);
+            names[i] = user == null ? null : user.fullName();
+            salaries[i] = user == null || user.getBaseSalary() == null ? null : user.getBaseSalary().toString();
+        }
+        // Un solo UPDATE para todo el lote; sin datos de auth se conserva el snapshot anterior
+        return databaseClient
+                .sql(named("loan_application.update_snapshots", "UPDATE loan_application l SET " +
+                        "names = COALESCE(u.names, l.names), " +
+                        "base_salary = COALESCE(u.base_salary, l.base_salary), " +
+                        "user_synced_at = now() " +
+                        "FROM unnest(CAST(:ids AS bigint[]), CAST(:names AS varchar[]), CAST(:salaries AS numeric[])) " +
+                        "AS u(user_id, names, base_salary) " +
+                        "WHERE l.user_id = u.user_id"))
+                .bind("ids", ids)
+                .bind("names", names)
+                .bind("salaries", salaries)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    @Override
+    public Mono<Long> estimateCountByStatuses(Collection<String> statuses) {
+        return onReplica(databaseClient.sql(ESTIMATE_FOR_STATUSES)
+                .bind("statuses", statuses.toArray(new String[0]))
+                .map(row -> row.get(0, String.class))
+                .first())
+                .map(MyReactiveRepositoryAdapter::planRows);
+    }
+
+    // Marca a quien escribió para que sus próximas lecturas no vayan a la réplica
+    private <T> Mono<T> written(Mono<T> write) {
+        return Mono.deferContextual(context -> write.doOnSuccess(result -> writes.recordWrite(context)));
+    }
+
+    // Primera línea del plan en texto: "... (cost=0.00..123.45 rows=6789 width=4)"
+    static long planRows(String planLine) {
+        Matcher matcher = PLAN_ROWS.matcher(planLine);
+        return matcher.find() ? Long.parseLong(matcher.group(1)) : 0L;
+    }
+
+    static void bindInsert(Statement statement, int offset, LoanApplication loan) {
+        bind(statement, offset, loan.getUserId(), Long.class);
+        bind(statement, offset + 1, loan.getDocument(), String.class);
+        bind(statement, offset + 2, loan.getEmail(), String.class);
+        bind(statement, offset + 3, loan.getLoanType(), String.class);
+        bind(statement, offset + 4, loan.getAmount(), BigInteger.class);
+        bind(statement, offset + 5, loan.getLoanTermMonths(), Integer.class);
+        bind(statement, offset + 6, loan.getStatus(), String.class);
+        bind(statement, offset + 7, loan.getInterestRate(), BigDecimal.class);
+        bind(statement, offset + 8, loan.getCreatedAt(), OffsetDateTime.class);
+        bind(statement, offset + 9, loan.getNames(), String.class);
+        bind(statement, offset + 10, loan.getBaseSalary(), BigInteger.class);
+        bind(statement, offset + 11, loan.getUserSyncedAt(), OffsetDateTime.class);
+    }
+
+    private static void bind(Statement statement, int index, Object value, Class<?> type) {
+        if (value == null) {
+            statement.bindNull(index, type);
+        } else {
+            statement.bind(index, value);
+        }
     }
 }
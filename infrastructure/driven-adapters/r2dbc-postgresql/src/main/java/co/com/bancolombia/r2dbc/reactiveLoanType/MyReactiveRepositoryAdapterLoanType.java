@@ -4,8 +4,10 @@ import co.com.bancolombia.model.loanType.LoanType;
 import co.com.bancolombia.model.loanType.gateways.LoanTypeRepository;
 import co.com.bancolombia.r2dbc.entities.LoanTypeEntity;
 import co.com.bancolombia.r2dbc.helper.ReactiveAdapterOperations;
-import org.reactivecommons.utils.ObjectMapper;
+import co.com.bancolombia.r2dbc.mapper.LoanTypeDataMapper;
+import co.com.bancolombia.r2dbc.notification.PostgresNotificationListener;
 import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 @Repository
@@ -15,13 +17,16 @@ public class MyReactiveRepositoryAdapterLoanType extends ReactiveAdapterOperatio
         Long,
         MyReactiveRepositoryLoanType
 > implements LoanTypeRepository {
-    public MyReactiveRepositoryAdapterLoanType(MyReactiveRepositoryLoanType repository, ObjectMapper mapper) {
-        /**
-         *  Could be use mapper.mapBuilder if your domain model implement builder pattern
-         *  super(repository, mapper, d -> mapper.mapBuilder(d,ObjectModel.ObjectModelBuilder.class).build());
-         *  Or using mapper.map with the class of the object model
-         */
-        super(repository, mapper, d -> mapper.mapBuilder(d, LoanType.LoanTypeBuilder.class).build());
+
+    public static final String CHANGES_CHANNEL = "loan_type_changed";
+
+    private final PostgresNotificationListener notificationListener;
+
+    public MyReactiveRepositoryAdapterLoanType(MyReactiveRepositoryLoanType repository, LoanTypeDataMapper mapper,
+                                               PostgresNotificationListener notificationListener) {
+        // Mapeo generado en compilación (MapStruct), sin reflexión por fila
+        super(repository, mapper::toData, mapper::toModel);
+        this.notificationListener = notificationListener;
     }
 
 
@@ -34,4 +39,14 @@ public class MyReactiveRepositoryAdapterLoanType extends ReactiveAdapterOperatio
     public Mono<LoanType> existsByNameForAmount(String name) {
         return repository.findByName(name);
     }
+
+    @Override
+    public Flux<LoanType> findAll() {
+        return super.findAll();
+    }
+
+    @Override
+    public Flux<String> listenChanges() {
+        return notificationListener.listen(CHANGES_CHANNEL);
+    }
 }
@@ -2,15 +2,18 @@ package co.com.bancolombia.r2dbc.reactiveStatus;
 
 import co.com.bancolombia.r2dbc.entities.LoanStatusEntity;
 import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.data.repository.query.ReactiveQueryByExampleExecutor;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.util.Collection;
-
 public interface StatusReactiveRepository extends ReactiveCrudRepository<LoanStatusEntity, Long>, ReactiveQueryByExampleExecutor<LoanStatusEntity> {
     Mono<Boolean> existsByName(String name);
 
-/*    Flux<String> findExistingNamesIn(Collection<String> names);*/
+    @Query("/* loan_status.existing_names_in */ SELECT name FROM status WHERE name = ANY(:names)")
+    Flux<String> findExistingNamesIn(@Param("names") String[] names);
+
+    @Query("/* loan_status.all_names */ SELECT name FROM status")
+    Flux<String> findAllNames();
 }
@@ -1,13 +1,11 @@
 package co.com.bancolombia.r2dbc.reactiveStatus;
 
-import co.com.bancolombia.model.loanType.LoanType;
 import co.com.bancolombia.model.status.LoanStatus;
 import co.com.bancolombia.model.status.gateways.StatusRepository;
 import co.com.bancolombia.r2dbc.entities.LoanStatusEntity;
 import co.com.bancolombia.r2dbc.helper.ReactiveAdapterOperations;
-import co.com.bancolombia.r2dbc.reactiveLoanType.MyReactiveRepositoryLoanType;
-import lombok.RequiredArgsConstructor;
-import org.reactivecommons.utils.ObjectMapper;
+import co.com.bancolombia.r2dbc.mapper.LoanStatusDataMapper;
+import co.com.bancolombia.r2dbc.notification.PostgresNotificationListener;
 import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -21,13 +19,15 @@ public class StatusReactiveRepositoryAdapter extends ReactiveAdapterOperations<
         Long,
         StatusReactiveRepository> implements StatusRepository {
 
-    public StatusReactiveRepositoryAdapter(StatusReactiveRepository repository, ObjectMapper mapper) {
-        /**
-         *  Could be use mapper.mapBuilder if your domain model implement builder pattern
-         *  super(repository, mapper, d -> mapper.mapBuilder(d,ObjectModel.ObjectModelBuilder.class).build());
-         *  Or using mapper.map with the class of the object model
-         */
-        super(repository, mapper, d -> mapper.mapBuilder(d, LoanStatus.LoanStatusBuilder.class).build());
+    public static final String CHANGES_CHANNEL = "loan_status_changed";
+
+    private final PostgresNotificationListener notificationListener;
+
+    public StatusReactiveRepositoryAdapter(StatusReactiveRepository repository, LoanStatusDataMapper mapper,
+                                           PostgresNotificationListener notificationListener) {
+        // Mapeo generado en compilación (MapStruct), sin reflexión por fila
+        super(repository, mapper::toData, mapper::toModel);
+        this.notificationListener = notificationListener;
     }
 
     @Override
@@ -35,8 +35,18 @@ public class StatusReactiveRepositoryAdapter extends ReactiveAdapterOperations<
         return repository.existsByName(name);
     }
 
-   // @Override
-  /*  public Flux<String> findExistingNamesIn(Collection<String> names) {
-        return repository.findExistingNamesIn(names);
-    }*/
+    @Override
+    public Flux<String> findExistingNamesIn(Collection<String> names) {
+        return repository.findExistingNamesIn(names.toArray(new String[0]));
+    }
+
+    @Override
+    public Flux<String> findAllNames() {
+        return repository.findAllNames();
+    }
+
+    @Override
+    public Flux<String> listenChanges() {
+        return notificationListener.listen(CHANGES_CHANNEL);
+    }
 }
@@ -0,0 +1,81 @@
+package co.com.bancolombia.r2dbc.reactiveStatusCounter;
+
+import co.com.bancolombia.model.status.StatusCounterCheck;
+import co.com.bancolombia.model.status.gateways.StatusCounterRepository;
+import co.com.bancolombia.r2dbc.notification.PostgresNotificationListener;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.Map;
+
+import static co.com.bancolombia.r2dbc.helper.QueryMetrics.named;
+
+/**
+ * Contadores por estado de la tabla loan_status_counter (migraciones V4 y V7). Los mantiene el
+ * trigger de loan_application en la misma transacción del insert o del cambio de estado, repartidos
+ * en varias filas por estado para que los inserts concurrentes no compitan por la misma. El trigger
+ * no notifica: solo llega NOTIFY cuando se reconstruyen.
+ */
+@Repository
+@RequiredArgsConstructor
+public class StatusCounterRepositoryAdapter implements StatusCounterRepository {
+
+    public static final String CHANGES_CHANNEL = "loan_status_counter_changed";
+
+    private final DatabaseClient databaseClient;
+    private final PostgresNotificationListener notificationListener;
+
+    @Override
+    public Mono<Map<String, Long>> findAll() {
+        return databaseClient
+                .sql(named("loan_status_counter.find_all",
+                        "SELECT status, SUM(total)::bigint AS total FROM loan_status_counter GROUP BY status"))
+                .map((row, metadata) -> Map.entry(row.get("status", String.class), row.get("total", Long.class)))
+                .all()
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue);
+    }
+
+    @Override
+    public Mono<Long> sumByStatuses(Collection<String> statuses) {
+        return databaseClient
+                .sql(named("loan_status_counter.sum_by_status",
+                        "SELECT COALESCE(SUM(total), 0)::bigint AS total FROM loan_status_counter " +
+                        "WHERE status = ANY(:statuses)"))
+                .bind("statuses", statuses.toArray(new String[0]))
+                .map((row, metadata) -> row.get("total", Long.class))
+                .one();
+    }
+
+    @Override
+    public Flux<StatusCounterCheck> verify() {
+        // Una sola sentencia: contadores y conteo real salen de la misma instantánea
+        return databaseClient
+                .sql(named("loan_status_counter.verify", "SELECT COALESCE(c.status, a.status) AS status, " +
+                        "COALESCE(c.total, 0) AS counted, COALESCE(a.total, 0) AS actual " +
+                        "FROM (SELECT status, SUM(total)::bigint AS total FROM loan_status_counter GROUP BY status) c " +
+                        "FULL JOIN (SELECT status, COUNT(*) AS total FROM loan_application GROUP BY status) a " +
+                        "ON a.status = c.status"))
+                .map((row, metadata) -> new StatusCounterCheck(
+                        row.get("status", String.class),
+                        row.get("counted", Long.class),
+                        row.get("actual", Long.class)))
+                .all();
+    }
+
+    @Override
+    public Mono<Boolean> rebuild() {
+        return databaseClient
+                .sql(named("loan_status_counter.rebuild", "SELECT rebuild_loan_status_counter() AS rebuilt"))
+                .map((row, metadata) -> Boolean.TRUE.equals(row.get("rebuilt", Boolean.class)))
+                .one();
+    }
+
+    @Override
+    public Flux<String> listenChanges() {
+        return notificationListener.listen(CHANGES_CHANNEL);
+    }
+}
@@ -0,0 +1,28 @@
+package co.com.bancolombia.r2dbc.routing;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.ContextView;
+
+/**
+ * Destino de una conexión. Las lecturas que toleran algo de atraso se marcan con
+ * {@link #onReplica}; todo lo demás, incluidas las transacciones, va al primario.
+ */
+public enum ReadRoute {
+    PRIMARY,
+    REPLICA;
+
+    private static final String KEY = ReadRoute.class.getName();
+
+    public static <T> Flux<T> onReplica(Flux<T> query) {
+        return query.contextWrite(context -> context.put(KEY, REPLICA));
+    }
+
+    public static <T> Mono<T> onReplica(Mono<T> query) {
+        return query.contextWrite(context -> context.put(KEY, REPLICA));
+    }
+
+    static boolean wantsReplica(ContextView context) {
+        return context.getOrDefault(KEY, PRIMARY) == REPLICA;
+    }
+}
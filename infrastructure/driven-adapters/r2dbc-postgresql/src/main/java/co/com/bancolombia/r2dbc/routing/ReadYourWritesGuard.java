@@ -0,0 +1,90 @@
+package co.com.bancolombia.r2dbc.routing;
+
+import co.com.bancolombia.model.context.CallerContext;
+import reactor.util.context.ContextView;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Recuerda quién escribió hace menos de {@code window} para mandar sus lecturas al primario:
+ * así un cliente no deja de ver lo que acaba de guardar mientras la réplica se pone al día.
+ * Las peticiones sin {@link CallerContext} (tareas de fondo) no se rastrean.
+ * <p>
+ * El mapa por caller solo ve las escrituras de este nodo. Entre nodos la señal es la marca
+ * {@link CallerContext#lastWrite}: se devuelve al cliente en una cabecera y, si la reenvía, el
+ * nodo que atienda la lectura la respeta. Se compara con el reloj de pared, así que el desfase
+ * entre nodos debe ser pequeño frente a {@code window}.
+ */
+public class ReadYourWritesGuard {
+
+    private final long windowNanos;
+    private final int maxCallers;
+    private final LongSupplier clock;
+    private final LongSupplier wallClock;
+    private final Map<String, Long> lastWrite = new ConcurrentHashMap<>();
+
+    public ReadYourWritesGuard(Duration window, int maxCallers) {
+        this(window, maxCallers, System::nanoTime, System::currentTimeMillis);
+    }
+
+    ReadYourWritesGuard(Duration window, int maxCallers, LongSupplier clock) {
+        this(window, maxCallers, clock, System::currentTimeMillis);
+    }
+
+    ReadYourWritesGuard(Duration window, int maxCallers, LongSupplier clock, LongSupplier wallClock) {
+        this.windowNanos = window.toNanos();
+        this.maxCallers = maxCallers;
+        this.clock = clock;
+        this.wallClock = wallClock;
+    }
+
+    public void recordWrite(ContextView context) {
+        if (windowNanos <= 0) {
+            return;
+        }
+        long nowMillis = wallClock.getAsLong();
+        CallerContext.lastWrite(context).ifPresent(mark -> mark.accumulateAndGet(nowMillis, Math::max));
+        CallerContext.caller(context).ifPresent(caller -> {
+            long now = clock.getAsLong();
+            if (lastWrite.size() >= maxCallers) {
+                lastWrite.values().removeIf(at -> now - at >= windowNanos);
+            }
+            lastWrite.put(caller, now);
+        });
+    }
+
+    public boolean recentlyWrote(ContextView context) {
+        return informedByClient(context) || wroteHere(context);
+    }
+
+    // Una marca adelantada (relojes desfasados) también cuenta, pero solo dentro de la ventana
+    private boolean informedByClient(ContextView context) {
+        long windowMillis = Duration.ofNanos(windowNanos).toMillis();
+        return CallerContext.lastWrite(context)
+                .map(mark -> mark.get() > 0 && Math.abs(wallClock.getAsLong() - mark.get()) < windowMillis)
+                .orElse(false);
+    }
+
+    private boolean wroteHere(ContextView context) {
+        return CallerContext.caller(context)
+                .map(caller -> {
+                    Long at = lastWrite.get(caller);
+                    if (at == null) {
+                        return false;
+                    }
+                    if (clock.getAsLong() - at < windowNanos) {
+                        return true;
+                    }
+                    lastWrite.remove(caller, at);
+                    return false;
+                })
+                .orElse(false);
+    }
+
+    int tracked() {
+        return lastWrite.size();
+    }
+}
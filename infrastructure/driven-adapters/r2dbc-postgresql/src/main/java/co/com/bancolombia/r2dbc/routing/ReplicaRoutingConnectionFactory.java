@@ -0,0 +1,49 @@
+package co.com.bancolombia.r2dbc.routing;
+
+import co.com.bancolombia.model.metrics.gateways.MetricsRepository;
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.r2dbc.connection.lookup.AbstractRoutingConnectionFactory;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * Entrega conexiones de la réplica a las consultas marcadas con {@link ReadRoute#onReplica},
+ * salvo que quien pregunta haya escrito hace poco; el resto sale del primario. Sin réplica
+ * configurada todo va al primario.
+ */
+public class ReplicaRoutingConnectionFactory extends AbstractRoutingConnectionFactory {
+
+    static final String ROUTE_COUNTER = "r2dbc.route";
+
+    private final boolean hasReplica;
+    private final ReadYourWritesGuard guard;
+    private final MetricsRepository metrics;
+
+    public ReplicaRoutingConnectionFactory(ConnectionFactory primary, ConnectionFactory replica,
+                                           ReadYourWritesGuard guard, MetricsRepository metrics) {
+        this.hasReplica = replica != null;
+        this.guard = guard;
+        this.metrics = metrics;
+        setTargetConnectionFactories(hasReplica
+                ? Map.of(ReadRoute.PRIMARY, primary, ReadRoute.REPLICA, replica)
+                : Map.of(ReadRoute.PRIMARY, primary));
+        setDefaultTargetConnectionFactory(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Mono<Object> determineCurrentLookupKey() {
+        return Mono.deferContextual(context -> {
+            if (!hasReplica || !ReadRoute.wantsReplica(context)) {
+                return Mono.just(ReadRoute.PRIMARY);
+            }
+            if (guard.recentlyWrote(context)) {
+                metrics.increment(ROUTE_COUNTER, "target", "primary", "reason", "read-your-writes");
+                return Mono.just(ReadRoute.PRIMARY);
+            }
+            metrics.increment(ROUTE_COUNTER, "target", "replica", "reason", "read-only");
+            return Mono.just(ReadRoute.REPLICA);
+        });
+    }
+}
@@ -0,0 +1,89 @@
+package co.com.bancolombia.r2dbc.schema;
+
+import co.com.bancolombia.model.loanApplication.gateways.LoggerRepository;
+import co.com.bancolombia.model.metrics.gateways.MetricsRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Al arrancar revisa que existan los índices de los que dependen las consultas calientes. No
+ * detiene la aplicación: avisa por log y por {@code db.index.missing}. Un índice que quedó
+ * INVALID (falló su CREATE INDEX CONCURRENTLY) cuenta como faltante: existe pero el planner
+ * no lo usa, y el IF NOT EXISTS de la migración no lo vuelve a construir.
+ */
+@Component
+@RequiredArgsConstructor
+public class IndexCheck {
+
+    static final String MISSING_COUNTER = "db.index.missing";
+
+    static final List<String> EXPECTED = List.of(
+            "ux_loan_application_pending_email",
+            "ix_loan_application_status_created",
+            "ix_loan_application_created",
+            "ix_loan_application_email_status",
+            "ix_loan_application_user_synced",
+            "ix_loan_application_user_id",
+            "ux_loan_type_name",
+            "ix_idempotency_key_expires_at");
+
+    private static final String FIND_INDEXES = "SELECT c.relname AS name, i.indisvalid AS valid " +
+            "FROM pg_index i " +
+            "JOIN pg_class c ON c.oid = i.indexrelid " +
+            "JOIN pg_namespace n ON n.oid = c.relnamespace " +
+            "WHERE n.nspname = current_schema() AND c.relname = ANY(:names)";
+
+    private final DatabaseClient databaseClient;
+    private final LoggerRepository logger;
+    private final MetricsRepository metrics;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        check().subscribe(
+                problems -> {
+                    if (problems.isEmpty()) {
+                        logger.info("Indices esperados presentes ({})", EXPECTED.size());
+                    }
+                },
+                e -> logger.warn("No se pudieron revisar los indices esperados: {}", e.getMessage()));
+    }
+
+    public Mono<List<Problem>> check() {
+        return databaseClient.sql(FIND_INDEXES)
+                .bind("names", EXPECTED.toArray(String[]::new))
+                .map((row, metadata) -> Map.entry(row.get("name", String.class),
+                        Boolean.TRUE.equals(row.get("valid", Boolean.class))))
+                .all()
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue)
+                .map(IndexCheck::problems)
+                .doOnNext(problems -> problems.forEach(problem -> {
+                    metrics.increment(MISSING_COUNTER, "index", problem.index(), "state", problem.state());
+                    logger.warn("Indice esperado {} {}: revisar las migraciones (postgresql-migrations)",
+                            problem.index(), problem.state());
+                }));
+    }
+
+    static List<Problem> problems(Map<String, Boolean> found) {
+        List<Problem> problems = new ArrayList<>();
+        for (String index : EXPECTED) {
+            Boolean valid = found.get(index);
+            if (valid == null) {
+                problems.add(new Problem(index, "missing"));
+            } else if (!valid) {
+                problems.add(new Problem(index, "invalid"));
+            }
+        }
+        return problems;
+    }
+
+    public record Problem(String index, String state) {
+    }
+}
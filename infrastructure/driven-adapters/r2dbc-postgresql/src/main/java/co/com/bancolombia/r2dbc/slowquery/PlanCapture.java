@@ -0,0 +1,91 @@
+package co.com.bancolombia.r2dbc.slowquery;
+
+import io.r2dbc.proxy.core.Binding;
+import io.r2dbc.proxy.core.Bindings;
+import io.r2dbc.proxy.core.BoundValue;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Statement;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Corre EXPLAIN (ANALYZE, BUFFERS) de una sentencia con una conexión del pool que se le pase, dentro
+ * de una transacción READ ONLY que siempre se revierte: si la sentencia intenta escribir (p. ej.
+ * un SELECT de una función que modifica datos) la base la rechaza en vez de ejecutarla dos veces.
+ * Si la captura falla o se corta por tiempo, la transacción se revierte antes de devolver la conexión.
+ */
+public class PlanCapture {
+
+    // Los comentarios del inicio (nombre de la sentencia para las métricas) no cuentan
+    private static final Pattern READ_ONLY = Pattern.compile("(?is)^\\s*(?:/\\*.*?\\*/\\s*)*(SELECT|WITH)\\b.*");
+
+    private final ConnectionFactory connectionFactory;
+    private final Duration timeout;
+
+    public PlanCapture(ConnectionFactory connectionFactory, Duration timeout) {
+        this.connectionFactory = connectionFactory;
+        this.timeout = timeout;
+    }
+
+    public static boolean canExplain(String sql) {
+        return READ_ONLY.matcher(sql).matches();
+    }
+
+    public Mono<String> explain(String sql, Bindings bindings) {
+        return Mono.usingWhen(
+                        connectionFactory.create(),
+                        connection -> run(connection, "BEGIN READ ONLY")
+                                .then(run(connection, "SET LOCAL statement_timeout = " + timeout.toMillis()))
+                                .then(Flux.from(bind(connection.createStatement("EXPLAIN (ANALYZE, BUFFERS) " + sql),
+                                                bindings).execute())
+                                        .flatMap(result -> result.map((row, metadata) -> row.get(0, String.class)))
+                                        .collect(Collectors.joining("\n")))
+                                .flatMap(plan -> run(connection, "ROLLBACK").thenReturn(plan)),
+                        Connection::close,
+                        (connection, error) -> rollbackAndClose(connection),
+                        PlanCapture::rollbackAndClose)
+                .timeout(timeout.plusSeconds(1));
+    }
+
+    private static Mono<Void> rollbackAndClose(Connection connection) {
+        return Mono.from(connection.rollbackTransaction())
+                .onErrorResume(e -> Mono.empty())
+                .then(Mono.from(connection.close()));
+    }
+
+    private static Mono<Long> run(Connection connection, String sql) {
+        return Flux.from(connection.createStatement(sql).execute())
+                .flatMap(result -> result.getRowsUpdated())
+                .reduce(0L, Long::sum);
+    }
+
+    private static Statement bind(Statement statement, Bindings bindings) {
+        if (bindings == null) {
+            return statement;
+        }
+        for (Binding binding : bindings.getIndexBindings()) {
+            int index = (Integer) binding.getKey();
+            BoundValue value = binding.getBoundValue();
+            if (value.isNull()) {
+                statement.bindNull(index, value.getNullType());
+            } else {
+                statement.bind(index, value.getValue());
+            }
+        }
+        for (Binding binding : bindings.getNamedBindings()) {
+            String name = (String) binding.getKey();
+            BoundValue value = binding.getBoundValue();
+            if (value.isNull()) {
+                statement.bindNull(name, value.getNullType());
+            } else {
+                statement.bind(name, value.getValue());
+            }
+        }
+        return statement;
+    }
+}
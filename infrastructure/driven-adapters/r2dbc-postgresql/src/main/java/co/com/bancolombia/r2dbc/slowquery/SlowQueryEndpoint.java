@@ -0,0 +1,31 @@
+package co.com.bancolombia.r2dbc.slowquery;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * /actuator/slowqueries: los planes más lentos capturados por esta instancia. DELETE los limpia,
+ * p. ej. después de desplegar un índice.
+ */
+@Component
+@Endpoint(id = "slowqueries")
+@RequiredArgsConstructor
+public class SlowQueryEndpoint {
+
+    private final WorstPlans worstPlans;
+
+    @ReadOperation
+    public List<SlowQueryPlan> plans() {
+        return worstPlans.snapshot();
+    }
+
+    @DeleteOperation
+    public void clear() {
+        worstPlans.clear();
+    }
+}
@@ -0,0 +1,118 @@
+package co.com.bancolombia.r2dbc.slowquery;
+
+import co.com.bancolombia.model.loanApplication.gateways.LoggerRepository;
+import co.com.bancolombia.model.metrics.gateways.MetricsRepository;
+import co.com.bancolombia.r2dbc.config.SlowQueryProperties;
+import io.r2dbc.proxy.core.Binding;
+import io.r2dbc.proxy.core.Bindings;
+import io.r2dbc.proxy.core.BoundValue;
+import io.r2dbc.proxy.core.QueryExecutionInfo;
+import io.r2dbc.proxy.core.QueryInfo;
+import io.r2dbc.proxy.listener.ProxyExecutionListener;
+
+import java.lang.reflect.Array;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Escucha cada sentencia que pasa por el proxy de r2dbc. Las que superan {@code threshold} se
+ * registran con la forma de sus parámetros y, para una muestra de las de solo lectura, se
+ * captura el plan real con {@link PlanCapture}. Solo hay una captura en curso a la vez: si la
+ * base está lenta no se le suman más EXPLAIN ANALYZE. Las sentencias marcadas con {@link #STREAMED}
+ * se ignoran: su duración incluye lo que tarda el cliente en descargar, no lo que tardó la base.
+ */
+public class SlowQueryListener implements ProxyExecutionListener {
+
+    static final String SLOW_COUNTER = "db.query.slow";
+    static final String EXPLAIN_COUNTER = "db.query.explain";
+    public static final String STREAMED = "/* stream */ ";
+
+    private final SlowQueryProperties properties;
+    private final PlanCapture capture;
+    private final WorstPlans worstPlans;
+    private final LoggerRepository logger;
+    private final MetricsRepository metrics;
+    private final DoubleSupplier random;
+    private final AtomicBoolean capturing = new AtomicBoolean();
+
+    public SlowQueryListener(SlowQueryProperties properties, PlanCapture capture, WorstPlans worstPlans,
+                             LoggerRepository logger, MetricsRepository metrics) {
+        this(properties, capture, worstPlans, logger, metrics, () -> ThreadLocalRandom.current().nextDouble());
+    }
+
+    SlowQueryListener(SlowQueryProperties properties, PlanCapture capture, WorstPlans worstPlans,
+                      LoggerRepository logger, MetricsRepository metrics, DoubleSupplier random) {
+        this.properties = properties;
+        this.capture = capture;
+        this.worstPlans = worstPlans;
+        this.logger = logger;
+        this.metrics = metrics;
+        this.random = random;
+    }
+
+    @Override
+    public void afterQuery(QueryExecutionInfo execInfo) {
+        Duration took = execInfo.getExecuteDuration();
+        if (took == null || took.compareTo(properties.threshold()) < 0 || execInfo.getQueries().isEmpty()) {
+            return;
+        }
+        QueryInfo query = execInfo.getQueries().get(0);
+        String sql = query.getQuery();
+        if (sql.startsWith(STREAMED)) {
+            return;
+        }
+        List<Bindings> bindingsList = query.getBindingsList();
+        Bindings first = bindingsList.isEmpty() ? null : bindingsList.get(0);
+        String parameters = shapeOf(first) + (bindingsList.size() > 1 ? " x" + bindingsList.size() : "");
+
+        metrics.increment(SLOW_COUNTER, "outcome", execInfo.isSuccess() ? "success" : "error");
+        logger.warn("Sentencia lenta {} ms parametros=[{}] sql={}", took.toMillis(), parameters, sql);
+
+        if (execInfo.isSuccess() && PlanCapture.canExplain(sql)
+                && random.getAsDouble() < properties.explainSampleRate()
+                && capturing.compareAndSet(false, true)) {
+            capture.explain(sql, first)
+                    .doFinally(signal -> capturing.set(false))
+                    .subscribe(
+                            plan -> {
+                                metrics.increment(EXPLAIN_COUNTER, "outcome", "success");
+                                worstPlans.offer(new SlowQueryPlan(sql, parameters, took.toMillis(), Instant.now(), plan));
+                            },
+                            e -> {
+                                metrics.increment(EXPLAIN_COUNTER, "outcome", "error");
+                                logger.warn("No se pudo capturar el plan de la sentencia lenta: {}", e.getMessage());
+                            });
+        }
+    }
+
+    // "$1=String[3], $2=Integer, $3=null(OffsetDateTime)": tipos y tamaños, nunca valores
+    static String shapeOf(Bindings bindings) {
+        if (bindings == null) {
+            return "";
+        }
+        StringJoiner shape = new StringJoiner(", ");
+        for (Binding binding : bindings.getIndexBindings()) {
+            shape.add("$" + ((Integer) binding.getKey() + 1) + "=" + shapeOf(binding.getBoundValue()));
+        }
+        for (Binding binding : bindings.getNamedBindings()) {
+            shape.add(binding.getKey() + "=" + shapeOf(binding.getBoundValue()));
+        }
+        return shape.toString();
+    }
+
+    private static String shapeOf(BoundValue value) {
+        if (value.isNull()) {
+            return "null(" + value.getNullType().getSimpleName() + ")";
+        }
+        Object actual = value.getValue();
+        if (actual.getClass().isArray()) {
+            return actual.getClass().getComponentType().getSimpleName() + "[" + Array.getLength(actual) + "]";
+        }
+        return actual.getClass().getSimpleName();
+    }
+}
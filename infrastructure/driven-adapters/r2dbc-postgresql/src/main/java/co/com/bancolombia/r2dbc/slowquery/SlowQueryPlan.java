@@ -0,0 +1,15 @@
+package co.com.bancolombia.r2dbc.slowquery;
+
+import java.time.Instant;
+
+/**
+ * Sentencia lenta con su plan. {@code parameters} trae solo los tipos de los valores, nunca los
+ * valores: pueden ser datos del cliente.
+ */
+public record SlowQueryPlan(
+        String sql,
+        String parameters,
+        long durationMs,
+        Instant capturedAt,
+        String plan) {
+}
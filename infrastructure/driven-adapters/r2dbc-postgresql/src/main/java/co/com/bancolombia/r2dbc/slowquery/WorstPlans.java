@@ -0,0 +1,45 @@
+package co.com.bancolombia.r2dbc.slowquery;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Los {@code capacity} planes más lentos vistos desde que arrancó la instancia. Con el buffer
+ * lleno, un plan nuevo solo entra si es más lento que el más rápido guardado.
+ */
+public class WorstPlans {
+
+    private static final Comparator<SlowQueryPlan> BY_DURATION = Comparator.comparingLong(SlowQueryPlan::durationMs);
+
+    private final int capacity;
+    private final PriorityQueue<SlowQueryPlan> plans;
+
+    public WorstPlans(int capacity) {
+        this.capacity = capacity;
+        this.plans = new PriorityQueue<>(capacity, BY_DURATION);
+    }
+
+    public synchronized boolean offer(SlowQueryPlan plan) {
+        if (plans.size() < capacity) {
+            return plans.add(plan);
+        }
+        if (plan.durationMs() <= plans.peek().durationMs()) {
+            return false;
+        }
+        plans.poll();
+        return plans.add(plan);
+    }
+
+    /** Del más lento al más rápido. */
+    public synchronized List<SlowQueryPlan> snapshot() {
+        List<SlowQueryPlan> copy = new ArrayList<>(plans);
+        copy.sort(BY_DURATION.reversed());
+        return copy;
+    }
+
+    public synchronized void clear() {
+        plans.clear();
+    }
+}
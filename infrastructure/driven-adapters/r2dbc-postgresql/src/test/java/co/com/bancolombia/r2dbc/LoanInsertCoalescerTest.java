@@ -0,0 +1,227 @@
+package co.com.bancolombia.r2dbc;
+
+import co.com.bancolombia.model.exceptions.LoanPendingException;
+import co.com.bancolombia.model.exceptions.ServiceUnavailableException;
+import co.com.bancolombia.model.loanApplication.LoanApplication;
+import co.com.bancolombia.model.metrics.gateways.MetricsRepository;
+import co.com.bancolombia.r2dbc.config.WriteCoalescerProperties;
+import co.com.bancolombia.r2dbc.reactiveLoanApplication.LoanInsertCoalescer;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import io.r2dbc.spi.Statement;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.reactivestreams.Publisher;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.RowsFetchSpec;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LoanInsertCoalescerTest {
+
+    @Mock
+    DatabaseClient databaseClient;
+
+    @Mock
+    MetricsRepository metrics;
+
+    @Mock
+    Connection connection;
+
+    @Mock
+    Statement statement;
+
+    @Mock
+    Result result;
+
+    private LoanInsertCoalescer coalescer;
+
+    @AfterEach
+    void tearDown() {
+        if (coalescer != null) {
+            coalescer.destroy();
+        }
+    }
+
+    private static final OffsetDateTime CREATED_AT = OffsetDateTime.parse("2025-09-01T10:15:30.123456-05:00");
+
+    private static LoanApplication loan(String email) {
+        return LoanApplication.builder()
+                .userId(1L).document("CC-1").email(email).loanType("HIPOTECARIO")
+                .amount(BigInteger.valueOf(5_000_000)).loanTermMonths(12).status("PENDING_REVIEW")
+                .createdAt(CREATED_AT)
+                .build();
+    }
+
+    private static Row row(int ord, long id) {
+        Row row = mock(Row.class);
+        when(row.get("ord", Integer.class)).thenReturn(ord);
+        when(row.get("id", Long.class)).thenReturn(id);
+        return row;
+    }
+
+    // Relectura tras el timeout: la pendiente del email, o ninguna si userId es null
+    @SuppressWarnings("unchecked")
+    private void givenPendingByEmail(Long userId, OffsetDateTime createdAt) {
+        DatabaseClient.GenericExecuteSpec spec = mock(DatabaseClient.GenericExecuteSpec.class);
+        RowsFetchSpec<Object> fetch = mock(RowsFetchSpec.class);
+        AtomicReference<BiFunction<Row, RowMetadata, Object>> mapping = new AtomicReference<>();
+        when(databaseClient.sql(contains("pending_by_email"))).thenReturn(spec);
+        when(spec.bind("email", "a@example.com")).thenReturn(spec);
+        when(spec.map(any(BiFunction.class))).thenAnswer(invocation -> {
+            mapping.set(invocation.getArgument(0));
+            return fetch;
+        });
+        if (userId == null) {
+            when(fetch.one()).thenReturn(Mono.empty());
+            return;
+        }
+        Row row = mock(Row.class);
+        when(row.get("id", Long.class)).thenReturn(77L);
+        when(row.get("user_id", Long.class)).thenReturn(userId);
+        when(row.get("created_at", OffsetDateTime.class)).thenReturn(createdAt);
+        when(fetch.one()).thenReturn(Mono.fromSupplier(() -> mapping.get().apply(row, null)));
+    }
+
+    private LoanInsertCoalescer hangingCoalescer() {
+        LoanInsertCoalescer hanging = new LoanInsertCoalescer(databaseClient, metrics,
+                new WriteCoalescerProperties(true, 1, Duration.ofMillis(5), 100, 1, Duration.ofMillis(100)));
+        when(databaseClient.inConnectionMany(any())).thenReturn(Flux.never());
+        return hanging;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void givenInsertReturns(Row... rows) {
+        when(databaseClient.inConnectionMany(any())).thenAnswer(invocation ->
+                ((Function<Connection, Publisher<?>>) invocation.getArgument(0)).apply(connection));
+        when(connection.createStatement(anyString())).thenReturn(statement);
+        doReturn(Flux.just(result)).when(statement).execute();
+        when(result.map(any(BiFunction.class))).thenAnswer(invocation -> {
+            BiFunction<Row, RowMetadata, ?> mapping = invocation.getArgument(0);
+            return Flux.fromArray(rows).map(row -> mapping.apply(row, null));
+        });
+    }
+
+    // ---- inserts concurrentes salen en un solo statement; los ids se asignan por ordinal ----
+    @Test
+    void insert_concurrentCalls_shouldFlushOneStatementAndAssignIds() {
+        coalescer = new LoanInsertCoalescer(databaseClient, metrics,
+                new WriteCoalescerProperties(true, 10, Duration.ofMillis(50), 100, 1, null));
+        // RETURNING en otro orden que el VALUES
+        givenInsertReturns(row(1, 12L), row(0, 11L));
+
+        Mono<LoanApplication> first = coalescer.insert(loan("a@example.com"));
+        Mono<LoanApplication> second = coalescer.insert(loan("b@example.com"));
+        Mono<Throwable> duplicate = coalescer.insert(loan("a@example.com"))
+                .flatMap(saved -> Mono.<Throwable>error(new AssertionError("no debe insertarse")))
+                .onErrorResume(LoanPendingException.class, Mono::just);
+
+        StepVerifier.create(Mono.zip(first, second, duplicate))
+                .assertNext(all -> {
+                    assertEquals(11L, all.getT1().getLoanApplicationId());
+                    assertEquals(12L, all.getT2().getLoanApplicationId());
+                    assertInstanceOf(LoanPendingException.class, all.getT3());
+                })
+                .verifyComplete();
+
+        // El email repetido no llega a la base: dos filas con su ordinal
+        verify(connection, times(1)).createStatement(argThat(sql ->
+                sql.contains("$23, $24, 1)") && !sql.contains("$25")));
+        verify(metrics).recordValue("loan.insert.coalescer.batch.size", 3.0);
+    }
+
+    // ---- error del flush: fallan todos los del lote ----
+    @Test
+    void insert_whenFlushFails_shouldFailEveryCaller() {
+        coalescer = new LoanInsertCoalescer(databaseClient, metrics,
+                new WriteCoalescerProperties(true, 10, Duration.ofMillis(20), 100, 1, null));
+        when(databaseClient.inConnectionMany(any())).thenReturn(Flux.error(new RuntimeException("db-down")));
+
+        StepVerifier.create(coalescer.insert(loan("a@example.com")))
+                .expectErrorMessage("db-down")
+                .verify(Duration.ofSeconds(5));
+    }
+
+    // ---- cola llena: vacío para ir por el camino directo ----
+    @Test
+    void insert_whenQueueFull_shouldReturnEmpty() {
+        coalescer = new LoanInsertCoalescer(databaseClient, metrics,
+                new WriteCoalescerProperties(true, 10, Duration.ofSeconds(30), 1, 1, null));
+
+        coalescer.insert(loan("a@example.com")).subscribe();
+
+        StepVerifier.create(coalescer.insert(loan("b@example.com")))
+                .verifyComplete();
+        verify(metrics).increment("loan.insert.coalescer.overflow");
+    }
+
+    // ---- al detenerse, nadie queda esperando ----
+    @Test
+    void destroy_shouldFailCallersStillWaiting() {
+        coalescer = new LoanInsertCoalescer(databaseClient, metrics,
+                new WriteCoalescerProperties(true, 10, Duration.ofSeconds(30), 100, 1, null));
+        when(databaseClient.inConnectionMany(any())).thenReturn(Flux.never());
+
+        Mono<LoanApplication> waiting = coalescer.insert(loan("a@example.com")).cache();
+        waiting.subscribe(saved -> { }, e -> { });
+        coalescer.destroy();
+
+        StepVerifier.create(waiting)
+                .expectError(IllegalStateException.class)
+                .verify(Duration.ofSeconds(5));
+    }
+
+    // ---- el flush no responde: el llamador no espera para siempre ----
+    @Test
+    void insert_whenFlushHangsAndNothingPending_shouldSurfaceUnconfirmedInsert() {
+        coalescer = hangingCoalescer();
+        givenPendingByEmail(null, null);
+
+        StepVerifier.create(coalescer.insert(loan("a@example.com")))
+                .expectError(ServiceUnavailableException.class)
+                .verify(Duration.ofSeconds(5));
+        verify(metrics).increment("loan.insert.coalescer.timeout");
+    }
+
+    // ---- vence pero la fila ya quedó escrita: se devuelve la propia, no un conflicto ----
+    @Test
+    void insert_whenTimedOutAfterCommit_shouldReturnOwnPendingLoan() {
+        coalescer = hangingCoalescer();
+        // Postgres devuelve la fecha en otra zona: cuenta el instante
+        givenPendingByEmail(1L, CREATED_AT.withOffsetSameInstant(ZoneOffset.UTC));
+
+        StepVerifier.create(coalescer.insert(loan("a@example.com")))
+                .assertNext(saved -> assertEquals(77L, saved.getLoanApplicationId()))
+                .verifyComplete();
+    }
+
+    // ---- vence y la pendiente es de otra solicitud: conflicto ----
+    @Test
+    void insert_whenTimedOutAndOtherLoanPending_shouldFailWithLoanPending() {
+        coalescer = hangingCoalescer();
+        givenPendingByEmail(1L, CREATED_AT.minusMinutes(5));
+
+        StepVerifier.create(coalescer.insert(loan("a@example.com")))
+                .expectError(LoanPendingException.class)
+                .verify(Duration.ofSeconds(5));
+    }
+}
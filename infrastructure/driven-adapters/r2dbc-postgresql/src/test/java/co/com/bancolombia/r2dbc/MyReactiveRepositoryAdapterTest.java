@@ -1,25 +1,161 @@
 package co.com.bancolombia.r2dbc;
 
 
+import co.com.bancolombia.model.exceptions.LoanPendingException;
+import co.com.bancolombia.model.exceptions.ServiceUnavailableException;
+import co.com.bancolombia.model.loanApplication.LoanApplication;
+import co.com.bancolombia.model.metrics.gateways.MetricsRepository;
+import co.com.bancolombia.r2dbc.config.StreamProperties;
+import co.com.bancolombia.r2dbc.mapper.LoanApplicationDataMapper;
+import co.com.bancolombia.r2dbc.reactiveLoanApplication.LoanInsertCoalescer;
 import co.com.bancolombia.r2dbc.reactiveLoanApplication.MyReactiveRepository;
 import co.com.bancolombia.r2dbc.reactiveLoanApplication.MyReactiveRepositoryAdapter;
+import co.com.bancolombia.r2dbc.routing.ReadYourWritesGuard;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.reactivecommons.utils.ObjectMapper;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.RowsFetchSpec;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class MyReactiveRepositoryAdapterTest {
 
-    @InjectMocks
     MyReactiveRepositoryAdapter repositoryAdapter;
 
     @Mock
     MyReactiveRepository repository;
 
     @Mock
-    ObjectMapper mapper;
+    LoanApplicationDataMapper mapper;
+
+    @Mock
+    LoanInsertCoalescer insertCoalescer;
+
+    @Mock
+    ReadYourWritesGuard writes;
+
+    @Mock
+    MetricsRepository metrics;
+
+    @Mock
+    DatabaseClient databaseClient;
+
+    @BeforeEach
+    void setUp() {
+        repositoryAdapter = adapter(new StreamProperties(1, Duration.ofSeconds(30)));
+    }
+
+    private MyReactiveRepositoryAdapter adapter(StreamProperties streamProperties) {
+        return new MyReactiveRepositoryAdapter(repository, mapper, databaseClient, insertCoalescer, writes, metrics,
+                streamProperties);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void stubStreamQuery(Flux<LoanApplication> rows) {
+        DatabaseClient.GenericExecuteSpec spec = mock(DatabaseClient.GenericExecuteSpec.class);
+        RowsFetchSpec<LoanApplication> fetch = mock(RowsFetchSpec.class);
+        when(databaseClient.sql(anyString())).thenReturn(spec);
+        when(spec.bind(anyString(), any())).thenReturn(spec);
+        when(spec.filter(any(Function.class))).thenReturn(spec);
+        doReturn(fetch).when(spec).map(any(BiFunction.class));
+        when(fetch.all()).thenReturn(rows);
+    }
+
+    private LoanApplication pendingLoan() {
+        return LoanApplication.builder()
+                .userId(123L).document("CC-9999").email("carol@example.com")
+                .loanType("HIPOTECARIO").amount(BigInteger.valueOf(5_000_000)).loanTermMonths(12)
+                .status("PENDING_REVIEW").interestRate(new BigDecimal("0.019"))
+                .createdAt(OffsetDateTime.now())
+                .build();
+    }
+
+    @Test
+    void saveIfNoPending_whenInserted_shouldReturnLoanWithGeneratedId() {
+        when(repository.insertIfNoPending(eq(123L), eq("CC-9999"), eq("carol@example.com"), eq("HIPOTECARIO"),
+                any(), eq(12), eq("PENDING_REVIEW"), any(), any(), any(), any(), any()))
+                .thenReturn(Mono.just(77L));
+
+        StepVerifier.create(repositoryAdapter.saveIfNoPending(pendingLoan()))
+                .assertNext(saved -> {
+                    assertEquals(77L, saved.getLoanApplicationId());
+                    assertEquals("carol@example.com", saved.getEmail());
+                })
+                .verifyComplete();
+
+        verify(writes).recordWrite(any());
+    }
+
+    @Test
+    void saveIfNoPending_whenConflict_shouldErrorLoanPending() {
+        when(repository.insertIfNoPending(any(), any(), any(), any(), any(), any(), any(), any(), any(), any(), any(), any()))
+                .thenReturn(Mono.empty());
+
+        StepVerifier.create(repositoryAdapter.saveIfNoPending(pendingLoan()))
+                .expectError(LoanPendingException.class)
+                .verify();
+
+        verify(writes, never()).recordWrite(any());
+    }
+
+    // ---- descargas en streaming: cupo y plazo total ----
+    @Test
+    void streamByStatusesAfter_whenAllSlotsBusy_shouldFailFastAndFreeSlotOnCancel() {
+        stubStreamQuery(Flux.never());
+        Disposable first = repositoryAdapter.streamByStatusesAfter(List.of("PENDING_REVIEW"), null, 10).subscribe();
+
+        StepVerifier.create(repositoryAdapter.streamByStatusesAfter(List.of("PENDING_REVIEW"), null, 10))
+                .expectError(ServiceUnavailableException.class)
+                .verify(Duration.ofSeconds(1));
+        verify(metrics).increment("loan_application.stream.rejected");
+
+        first.dispose();
+        StepVerifier.create(repositoryAdapter.streamByStatusesAfter(List.of("PENDING_REVIEW"), null, 10))
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(50))
+                .thenCancel()
+                .verify(Duration.ofSeconds(1));
+    }
+
+    @Test
+    void streamByStatusesAfter_whenDeadlinePasses_shouldFailAndReleaseSlot() {
+        MyReactiveRepositoryAdapter adapter = adapter(new StreamProperties(1, Duration.ofMillis(100)));
+        // Emite filas seguidas: el plazo es de toda la descarga, no entre filas
+        stubStreamQuery(Flux.interval(Duration.ofMillis(10)).map(i -> pendingLoan()));
+
+        StepVerifier.create(adapter.streamByStatusesAfter(List.of("PENDING_REVIEW"), null, 1000))
+                .thenConsumeWhile(loan -> true)
+                .expectError(ServiceUnavailableException.class)
+                .verify(Duration.ofSeconds(2));
+
+        StepVerifier.create(adapter.streamByStatusesAfter(List.of("PENDING_REVIEW"), null, 1000).take(1))
+                .expectNextCount(1)
+                .verifyComplete();
+    }
 /*
     @Test
     void mustFindValueById() {
@@ -1,12 +1,20 @@
 package co.com.bancolombia.r2dbc.config;
 
+import co.com.bancolombia.model.loanApplication.gateways.LoggerRepository;
+import co.com.bancolombia.model.metrics.gateways.MetricsRepository;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.spi.ValidationDepth;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.when;
 
 class PostgreSQLConnectionPoolTest {
@@ -17,6 +25,11 @@ class PostgreSQLConnectionPoolTest {
     @Mock
     private PostgresqlConnectionProperties properties;
 
+    @Mock
+    private MetricsRepository metrics;
+
+    @Mock
+    private LoggerRepository logger;
 
     @BeforeEach
     void setUp() {
@@ -28,10 +41,36 @@ class PostgreSQLConnectionPoolTest {
         when(properties.schema()).thenReturn("schema");
         when(properties.username()).thenReturn("username");
         when(properties.password()).thenReturn("password");
+        when(properties.pool()).thenReturn(new PostgresqlConnectionProperties.Pool(2, null, 8, null, null,
+                null, null, null, null, null, false, null));
     }
 
     @Test
     void getConnectionConfigSuccess() {
-        assertNotNull(connectionPool.getConnectionConfig(properties));
+        ConnectionPool pool = connectionPool.getConnectionConfig(properties, metrics, logger);
+
+        assertNotNull(pool);
+        assertEquals(8, pool.getMetrics().orElseThrow().getMaxAllocatedSize());
+        pool.dispose();
+    }
+
+    @Test
+    void poolDefaults_shouldBeBoundedAndUseLocalValidation() {
+        PostgresqlConnectionProperties.Pool defaults = PostgresqlConnectionProperties.Pool.DEFAULTS;
+
+        assertEquals(20, defaults.maxSize());
+        assertEquals(10, defaults.minIdle());
+        assertEquals(ValidationDepth.LOCAL, defaults.validationDepth());
+        assertEquals(Duration.ofSeconds(2), defaults.maxAcquireTime());
+        assertTrue(defaults.warmup());
+    }
+
+    @Test
+    void pool_whenInitialSizeAboveMax_shouldBeCapped() {
+        PostgresqlConnectionProperties.Pool pool = new PostgresqlConnectionProperties.Pool(50, null, 5, null, null,
+                null, null, null, null, null, null, null);
+
+        assertEquals(5, pool.initialSize());
+        assertEquals(5, pool.minIdle());
     }
 }
@@ -0,0 +1,115 @@
+package co.com.bancolombia.r2dbc.helper;
+
+import co.com.bancolombia.model.metrics.gateways.MetricsRepository;
+import co.com.bancolombia.r2dbc.slowquery.SlowQueryListener;
+import io.r2dbc.proxy.core.MutableQueryExecutionInfo;
+import io.r2dbc.proxy.core.QueryInfo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class QueryMetricsTest {
+
+    private static final String KEYSET = QueryMetrics.named("loan_application.keyset_by_status",
+            "SELECT id FROM loan_application WHERE status = ANY($1) LIMIT $2");
+
+    @Mock
+    private MetricsRepository metrics;
+
+    private final AtomicLong now = new AtomicLong();
+    private QueryMetrics listener;
+
+    @BeforeEach
+    void setUp() {
+        listener = new QueryMetrics(metrics, now::get);
+    }
+
+    private MutableQueryExecutionInfo execution(String sql, boolean success) {
+        MutableQueryExecutionInfo execInfo = new MutableQueryExecutionInfo();
+        execInfo.setQueries(List.of(new QueryInfo(sql)));
+        execInfo.setSuccess(success);
+        return execInfo;
+    }
+
+    private void advance(long millis) {
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    @Test
+    void afterQuery_shouldRecordLatencyAndRowsUnderStatementName() {
+        MutableQueryExecutionInfo execInfo = execution(KEYSET, true);
+
+        listener.beforeQuery(execInfo);
+        advance(5);
+        listener.eachQueryResult(execInfo);
+        listener.eachQueryResult(execInfo);
+        listener.eachQueryResult(execInfo);
+        advance(3);
+        listener.afterQuery(execInfo);
+
+        verify(metrics).recordTime("db.query", Duration.ofMillis(8),
+                "query", "loan_application.keyset_by_status", "outcome", "success");
+        verify(metrics).recordValue("db.query.rows", 3, "query", "loan_application.keyset_by_status");
+        verify(metrics, never()).increment(eq("db.query.errors"), any(String[].class));
+    }
+
+    @Test
+    void afterQuery_whenError_shouldCountErrorInsteadOfRows() {
+        MutableQueryExecutionInfo execInfo = execution(KEYSET, false);
+
+        listener.beforeQuery(execInfo);
+        advance(2);
+        listener.afterQuery(execInfo);
+
+        verify(metrics).recordTime("db.query", Duration.ofMillis(2),
+                "query", "loan_application.keyset_by_status", "outcome", "error");
+        verify(metrics).increment("db.query.errors", "query", "loan_application.keyset_by_status");
+        verify(metrics, never()).recordValue(eq("db.query.rows"), anyDouble(), any(String[].class));
+    }
+
+    // ---- streaming: la latencia llega a la primera fila, el resto lo marca el cliente que descarga ----
+    @Test
+    void afterQuery_whenStreamed_shouldStopLatencyAtFirstRowButCountAllRows() {
+        MutableQueryExecutionInfo execInfo = execution(SlowQueryListener.STREAMED
+                + QueryMetrics.named("loan_application.stream_by_status", "SELECT id FROM loan_application"), true);
+
+        listener.beforeQuery(execInfo);
+        advance(4);
+        listener.eachQueryResult(execInfo);
+        advance(1_000);
+        listener.eachQueryResult(execInfo);
+        listener.eachQueryResult(execInfo);
+        listener.afterQuery(execInfo);
+
+        verify(metrics).recordTime("db.query", Duration.ofMillis(4),
+                "query", "loan_application.stream_by_status", "outcome", "success");
+        verify(metrics).recordValue("db.query.rows", 3, "query", "loan_application.stream_by_status");
+    }
+
+    // ---- sin nombre (Spring Data): tabla y verbo, nunca el SQL ----
+    @Test
+    void nameOf_withoutName_shouldUseTableAndVerb() {
+        assertEquals("loan_type.select",
+                QueryMetrics.nameOf("SELECT loan_type.id, loan_type.name FROM loan_type WHERE loan_type.name = $1"));
+        assertEquals("loan_application.insert",
+                QueryMetrics.nameOf("INSERT INTO loan_application (email) VALUES ($1)"));
+        assertEquals("loan_application.update",
+                QueryMetrics.nameOf("UPDATE loan_application SET status = $1 FROM unnest($2) AS u(id)"));
+        assertEquals("other", QueryMetrics.nameOf("LISTEN loan_status_changed"));
+    }
+}
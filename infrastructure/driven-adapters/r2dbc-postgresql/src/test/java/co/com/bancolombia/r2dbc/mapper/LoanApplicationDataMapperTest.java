@@ -0,0 +1,44 @@
+package co.com.bancolombia.r2dbc.mapper;
+
+import co.com.bancolombia.model.loanApplication.LoanApplication;
+import co.com.bancolombia.r2dbc.entities.LoanApplicationEntity;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.OffsetDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class LoanApplicationDataMapperTest {
+
+    private final LoanApplicationDataMapper mapper = new LoanApplicationDataMapperImpl();
+
+    @Test
+    void roundTrip_shouldKeepEveryColumn() {
+        OffsetDateTime now = OffsetDateTime.parse("2025-01-10T10:00:00-05:00");
+        LoanApplication model = LoanApplication.builder()
+                .loanApplicationId(1L).userId(10L).document("CC-1").email("a@x.com").names("Ana Lopez")
+                .amount(BigInteger.valueOf(5_000_000)).loanTermMonths(24).loanType("LIBRE_INVERSION")
+                .status("PENDING_REVIEW").baseSalary(BigInteger.valueOf(3_000_000))
+                .interestRate(new BigDecimal("1.25")).createdAt(now).userSyncedAt(now)
+                .build();
+
+        LoanApplicationEntity entity = mapper.toData(model);
+        LoanApplication back = mapper.toModel(entity);
+
+        assertEquals(1L, entity.getLoanApplicationId());
+        assertEquals(24, entity.getLoanTermMonths());
+        assertNull(entity.getUpdatedAt());
+        assertEquals("Ana Lopez", back.getNames());
+        assertEquals(BigInteger.valueOf(3_000_000), back.getBaseSalary());
+        assertEquals(now, back.getUserSyncedAt());
+        assertEquals(model.getAmount(), back.getAmount());
+    }
+
+    @Test
+    void toModel_whenNull_shouldReturnNull() {
+        assertNull(mapper.toModel(null));
+    }
+}
@@ -0,0 +1,84 @@
+package co.com.bancolombia.r2dbc.routing;
+
+import co.com.bancolombia.model.context.CallerContext;
+import org.junit.jupiter.api.Test;
+import reactor.util.context.Context;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReadYourWritesGuardTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final AtomicLong wallMillis = new AtomicLong(1_700_000_000_000L);
+    private final ReadYourWritesGuard guard =
+            new ReadYourWritesGuard(Duration.ofSeconds(5), 2, now::get, wallMillis::get);
+
+    @Test
+    void recentlyWrote_shouldHoldOnlyDuringWindow() {
+        Context carol = CallerContext.with("carol");
+        guard.recordWrite(carol);
+
+        now.addAndGet(Duration.ofSeconds(4).toNanos());
+        assertTrue(guard.recentlyWrote(carol));
+        assertFalse(guard.recentlyWrote(CallerContext.with("otro")));
+
+        now.addAndGet(Duration.ofSeconds(2).toNanos());
+        assertFalse(guard.recentlyWrote(carol));
+        assertEquals(0, guard.tracked());
+    }
+
+    @Test
+    void withoutCaller_shouldNotTrack() {
+        guard.recordWrite(Context.empty());
+
+        assertFalse(guard.recentlyWrote(Context.empty()));
+        assertEquals(0, guard.tracked());
+    }
+
+    @Test
+    void recordWrite_whenFull_shouldPurgeExpired() {
+        guard.recordWrite(CallerContext.with("a"));
+        guard.recordWrite(CallerContext.with("b"));
+        now.addAndGet(Duration.ofSeconds(10).toNanos());
+
+        guard.recordWrite(CallerContext.with("c"));
+
+        assertEquals(1, guard.tracked());
+        assertTrue(guard.recentlyWrote(CallerContext.with("c")));
+    }
+
+    // ---- marca de escritura informada por el cliente (otro nodo) ----
+    @Test
+    void recordWrite_shouldAdvanceMarkReturnedToClient() {
+        AtomicLong mark = new AtomicLong();
+
+        guard.recordWrite(CallerContext.withLastWrite(mark));
+
+        assertEquals(wallMillis.get(), mark.get());
+    }
+
+    @Test
+    void recentlyWrote_whenClientSendsRecentMark_shouldHoldWithoutLocalWrite() {
+        Context fromOtherNode = CallerContext.with("carol")
+                .putAll(CallerContext.withLastWrite(new AtomicLong(wallMillis.get() - 3_000)).readOnly());
+
+        assertTrue(guard.recentlyWrote(fromOtherNode));
+        assertEquals(0, guard.tracked());
+
+        wallMillis.addAndGet(3_000);
+        assertFalse(guard.recentlyWrote(fromOtherNode));
+    }
+
+    @Test
+    void recentlyWrote_whenMarkIsFarInFuture_shouldIgnoreIt() {
+        Context forged = CallerContext.withLastWrite(new AtomicLong(wallMillis.get() + 3_600_000));
+
+        assertFalse(guard.recentlyWrote(forged));
+        assertFalse(guard.recentlyWrote(CallerContext.withLastWrite(new AtomicLong())));
+    }
+}
@@ -0,0 +1,88 @@
+package co.com.bancolombia.r2dbc.routing;
+
+import co.com.bancolombia.model.context.CallerContext;
+import co.com.bancolombia.model.metrics.gateways.MetricsRepository;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class ReplicaRoutingConnectionFactoryTest {
+
+    @Mock
+    private ConnectionFactory primary;
+
+    @Mock
+    private ConnectionFactory replica;
+
+    @Mock
+    private Connection primaryConnection;
+
+    @Mock
+    private Connection replicaConnection;
+
+    @Mock
+    private MetricsRepository metrics;
+
+    private final ReadYourWritesGuard guard = new ReadYourWritesGuard(Duration.ofSeconds(5), 100);
+
+    @Test
+    void unmarkedQuery_shouldUsePrimary() {
+        doReturn(Mono.just(primaryConnection)).when(primary).create();
+        var routing = new ReplicaRoutingConnectionFactory(primary, replica, guard, metrics);
+
+        StepVerifier.create(Mono.from(routing.create()))
+                .expectNext(primaryConnection)
+                .verifyComplete();
+
+        verify(replica, never()).create();
+    }
+
+    @Test
+    void readOnlyQuery_shouldUseReplica() {
+        doReturn(Mono.just(replicaConnection)).when(replica).create();
+        var routing = new ReplicaRoutingConnectionFactory(primary, replica, guard, metrics);
+
+        StepVerifier.create(ReadRoute.onReplica(Mono.from(routing.create())))
+                .expectNext(replicaConnection)
+                .verifyComplete();
+
+        verify(metrics).increment("r2dbc.route", "target", "replica", "reason", "read-only");
+    }
+
+    @Test
+    void readOnlyQuery_afterCallerWrote_shouldUsePrimary() {
+        doReturn(Mono.just(primaryConnection)).when(primary).create();
+        var routing = new ReplicaRoutingConnectionFactory(primary, replica, guard, metrics);
+        guard.recordWrite(CallerContext.with("carol"));
+
+        StepVerifier.create(ReadRoute.onReplica(Mono.from(routing.create()))
+                        .contextWrite(CallerContext.with("carol")))
+                .expectNext(primaryConnection)
+                .verifyComplete();
+
+        verify(replica, never()).create();
+        verify(metrics).increment("r2dbc.route", "target", "primary", "reason", "read-your-writes");
+    }
+
+    @Test
+    void withoutReplica_shouldAlwaysUsePrimary() {
+        doReturn(Mono.just(primaryConnection)).when(primary).create();
+        var routing = new ReplicaRoutingConnectionFactory(primary, null, guard, metrics);
+
+        StepVerifier.create(ReadRoute.onReplica(Mono.from(routing.create())))
+                .expectNext(primaryConnection)
+                .verifyComplete();
+    }
+}
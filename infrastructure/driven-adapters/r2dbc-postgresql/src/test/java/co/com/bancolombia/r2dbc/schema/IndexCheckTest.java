@@ -0,0 +1,34 @@
+package co.com.bancolombia.r2dbc.schema;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IndexCheckTest {
+
+    @Test
+    void problems_whenAllPresentAndValid_shouldBeEmpty() {
+        Map<String, Boolean> found = new HashMap<>();
+        IndexCheck.EXPECTED.forEach(index -> found.put(index, true));
+
+        assertTrue(IndexCheck.problems(found).isEmpty());
+    }
+
+    @Test
+    void problems_shouldReportMissingAndInvalidInExpectedOrder() {
+        Map<String, Boolean> found = new HashMap<>();
+        IndexCheck.EXPECTED.forEach(index -> found.put(index, true));
+        found.remove("ix_loan_application_email_status");
+        found.put("ix_loan_application_status_created", false);
+
+        assertEquals(List.of(
+                        new IndexCheck.Problem("ix_loan_application_status_created", "invalid"),
+                        new IndexCheck.Problem("ix_loan_application_email_status", "missing")),
+                IndexCheck.problems(found));
+    }
+}
@@ -0,0 +1,136 @@
+package co.com.bancolombia.r2dbc.slowquery;
+
+import co.com.bancolombia.model.loanApplication.gateways.LoggerRepository;
+import co.com.bancolombia.model.metrics.gateways.MetricsRepository;
+import co.com.bancolombia.r2dbc.config.SlowQueryProperties;
+import co.com.bancolombia.r2dbc.helper.QueryMetrics;
+import io.r2dbc.proxy.core.Bindings;
+import io.r2dbc.proxy.core.BoundValue;
+import io.r2dbc.proxy.core.QueryExecutionInfo;
+import io.r2dbc.proxy.core.QueryInfo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SlowQueryListenerTest {
+
+    private static final String LISTING = "SELECT id FROM loan_application WHERE status = ANY($1) LIMIT $2";
+
+    @Mock
+    private PlanCapture capture;
+
+    @Mock
+    private QueryExecutionInfo execInfo;
+
+    @Mock
+    private LoggerRepository logger;
+
+    @Mock
+    private MetricsRepository metrics;
+
+    private final WorstPlans worstPlans = new WorstPlans(5);
+    private final SlowQueryProperties properties =
+            new SlowQueryProperties(true, Duration.ofMillis(500), 0.5, Duration.ofSeconds(5), 5);
+    private Bindings bindings;
+
+    @BeforeEach
+    void setUp() {
+        bindings = new Bindings();
+        bindings.addIndexBinding(Bindings.indexBinding(0, BoundValue.value(new String[]{"A", "B"})));
+        bindings.addIndexBinding(Bindings.indexBinding(1, BoundValue.nullValue(OffsetDateTime.class)));
+    }
+
+    private void slowQuery(String sql, long millis) {
+        QueryInfo query = new QueryInfo(sql);
+        query.getBindingsList().add(bindings);
+        when(execInfo.getExecuteDuration()).thenReturn(Duration.ofMillis(millis));
+        when(execInfo.getQueries()).thenReturn(List.of(query));
+    }
+
+    @Test
+    void afterQuery_whenFast_shouldIgnore() {
+        when(execInfo.getExecuteDuration()).thenReturn(Duration.ofMillis(20));
+        var listener = new SlowQueryListener(properties, capture, worstPlans, logger, metrics, () -> 0.0);
+
+        listener.afterQuery(execInfo);
+
+        verify(logger, never()).warn(anyString(), any(Object[].class));
+    }
+
+    @Test
+    void afterQuery_whenSlowAndSampled_shouldCapturePlan() {
+        slowQuery(LISTING, 1500);
+        when(execInfo.isSuccess()).thenReturn(true);
+        when(capture.explain(LISTING, bindings)).thenReturn(Mono.just("Limit (actual time=0.1..1400 rows=20)"));
+        var listener = new SlowQueryListener(properties, capture, worstPlans, logger, metrics, () -> 0.1);
+
+        listener.afterQuery(execInfo);
+
+        verify(logger).warn("Sentencia lenta {} ms parametros=[{}] sql={}",
+                1500L, "$1=String[2], $2=null(OffsetDateTime)", LISTING);
+        verify(metrics).increment("db.query.explain", "outcome", "success");
+        assertEquals(1, worstPlans.snapshot().size());
+        assertTrue(worstPlans.snapshot().get(0).plan().startsWith("Limit"));
+    }
+
+    @Test
+    void afterQuery_whenWrite_shouldNeverExplain() {
+        slowQuery("UPDATE loan_application SET status = $1", 900);
+        when(execInfo.isSuccess()).thenReturn(true);
+        var listener = new SlowQueryListener(properties, capture, worstPlans, logger, metrics, () -> 0.0);
+
+        listener.afterQuery(execInfo);
+
+        verify(metrics).increment("db.query.slow", "outcome", "success");
+        verify(capture, never()).explain(anyString(), any());
+    }
+
+    @Test
+    void afterQuery_whenNotSampled_shouldOnlyLog() {
+        slowQuery(LISTING, 900);
+        when(execInfo.isSuccess()).thenReturn(true);
+        var listener = new SlowQueryListener(properties, capture, worstPlans, logger, metrics, () -> 0.9);
+
+        listener.afterQuery(execInfo);
+
+        verify(capture, never()).explain(anyString(), any());
+        assertTrue(worstPlans.snapshot().isEmpty());
+    }
+
+    @Test
+    void afterQuery_whenStreamed_shouldIgnoreDownloadTime() {
+        slowQuery(SlowQueryListener.STREAMED + LISTING, 60_000);
+        var listener = new SlowQueryListener(properties, capture, worstPlans, logger, metrics, () -> 0.0);
+
+        listener.afterQuery(execInfo);
+
+        verify(logger, never()).warn(anyString(), any(Object[].class));
+        verify(metrics, never()).increment(anyString(), any(String[].class));
+        verify(capture, never()).explain(anyString(), any());
+    }
+
+    // ---- el nombre de la sentencia va como comentario al inicio y no impide el EXPLAIN ----
+    @Test
+    void canExplain_shouldSkipLeadingNameComment() {
+        assertTrue(PlanCapture.canExplain(QueryMetrics.named("loan_application.keyset_by_status", LISTING)));
+        assertFalse(PlanCapture.canExplain(QueryMetrics.named("loan_application.estimate_by_status",
+                "EXPLAIN SELECT 1 FROM loan_application")));
+    }
+}
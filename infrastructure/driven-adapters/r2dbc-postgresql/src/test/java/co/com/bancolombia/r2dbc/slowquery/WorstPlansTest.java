@@ -0,0 +1,30 @@
+package co.com.bancolombia.r2dbc.slowquery;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WorstPlansTest {
+
+    private static SlowQueryPlan plan(long durationMs) {
+        return new SlowQueryPlan("SELECT 1", "", durationMs, Instant.EPOCH, "Result");
+    }
+
+    @Test
+    void offer_whenFull_shouldKeepOnlySlowest() {
+        WorstPlans worst = new WorstPlans(2);
+
+        assertTrue(worst.offer(plan(600)));
+        assertTrue(worst.offer(plan(900)));
+        assertFalse(worst.offer(plan(500)));
+        assertTrue(worst.offer(plan(1200)));
+
+        assertEquals(2, worst.snapshot().size());
+        assertEquals(1200, worst.snapshot().get(0).durationMs());
+        assertEquals(900, worst.snapshot().get(1).durationMs());
+    }
+}
@@ -2,33 +2,82 @@ package co.com.bancolombia.api;
 
 import co.com.bancolombia.api.dto.request.CreateLoanApplicationDTO;
 import co.com.bancolombia.api.dto.response.LoanApplicationResponseDTO;
+import co.com.bancolombia.api.config.security.JwtUserClaims;
 import co.com.bancolombia.api.mapper.LoanApplicationMapper;
+import co.com.bancolombia.api.mapper.PageCursorCodec;
+import co.com.bancolombia.model.client.UserClientDetails;
+import co.com.bancolombia.model.exceptions.BadRequestException;
 import co.com.bancolombia.model.exceptions.UnauthorizedException;
+import co.com.bancolombia.model.loanApplication.BulkLoanItem;
 import co.com.bancolombia.model.loanApplication.LoanApplication;
 import co.com.bancolombia.model.loanApplication.PageResult;
+import co.com.bancolombia.model.loanApplication.TotalKind;
 import co.com.bancolombia.model.loanApplication.gateways.LoggerRepository;
+import co.com.bancolombia.usecase.idempotency.IdempotencyUseCase;
 import co.com.bancolombia.usecase.loanApplication.LoanApplicationCase;
 import co.com.bancolombia.usecase.statusLoan.StatusUseCase;
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.context.ReactiveSecurityContextHolder;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.util.List;
+import java.util.Optional;
 
 @Component
-@RequiredArgsConstructor
 public class HandlerLoanApplication {
 
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 64;
+
     private final LoanApplicationCase loanApplicationCase;
     private final LoanApplicationMapper mapper;
     private final LoggerRepository logger;
     private final StatusUseCase statusUseCase;
+    private final RequestValidator requestValidator;
+    private final IdempotencyUseCase idempotencyUseCase;
+    private final JwtUserClaims jwtUserClaims;
+
+    private final int bulkChunkSize;
+    private final long listMaxOffset;
+    private final int listMaxSize;
+    private final int streamMaxRows;
+    private final int streamEnrichWindow;
+
+    public HandlerLoanApplication(LoanApplicationCase loanApplicationCase,
+                                  LoanApplicationMapper mapper,
+                                  LoggerRepository logger,
+                                  StatusUseCase statusUseCase,
+                                  RequestValidator requestValidator,
+                                  IdempotencyUseCase idempotencyUseCase,
+                                  JwtUserClaims jwtUserClaims,
+                                  @Value("${loan-application.bulk.chunk-size:200}") int bulkChunkSize,
+                                  @Value("${loan-application.list.max-offset:10000}") long listMaxOffset,
+                                  @Value("${loan-application.list.max-size:100}") int listMaxSize,
+                                  @Value("${loan-application.list.stream.max-rows:50000}") int streamMaxRows,
+                                  @Value("${loan-application.list.stream.enrich-window:100}") int streamEnrichWindow) {
+        this.loanApplicationCase = loanApplicationCase;
+        this.mapper = mapper;
+        this.logger = logger;
+        this.statusUseCase = statusUseCase;
+        this.requestValidator = requestValidator;
+        this.idempotencyUseCase = idempotencyUseCase;
+        this.jwtUserClaims = jwtUserClaims;
+        this.bulkChunkSize = bulkChunkSize;
+        this.listMaxOffset = listMaxOffset;
+        this.listMaxSize = listMaxSize;
+        this.streamMaxRows = streamMaxRows;
+        this.streamEnrichWindow = streamEnrichWindow;
+    }
 
-    public Mono<LoanApplication> createLoan(CreateLoanApplicationDTO body) {
+    public Mono<LoanApplication> createLoan(CreateLoanApplicationDTO body, String idempotencyKey) {
         logger.info("POST /api/v1/solicitud");
+        if (idempotencyKey != null && idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+            return Mono.error(new BadRequestException("La Idempotency-Key no puede superar "
+                    + MAX_IDEMPOTENCY_KEY_LENGTH + " caracteres"));
+        }
         return ReactiveSecurityContextHolder.getContext()
                 .map(SecurityContext::getAuthentication)
                 .cast(JwtAuthenticationToken.class)
@@ -38,14 +87,70 @@ public class HandlerLoanApplication {
                         logger.warn("Intento de suplantación: token={} body={}", emailToken, body.getEmail());
                         return Mono.error(new UnauthorizedException("Solo puedes crear solicitudes de préstamo para ti mismo"));
                     }
-                    return loanApplicationCase.create(mapper.toModel(body));
+                    LoanApplication loan = mapper.toModel(body);
+                    UserClientDetails fromToken = jwtUserClaims.from(auth.getToken()).orElse(null);
+                    if (idempotencyKey == null || idempotencyKey.isBlank()) {
+                        return loanApplicationCase.create(loan, fromToken);
+                    }
+                    // La llave se aísla por cliente para que dos usuarios no choquen con el mismo valor
+                    return idempotencyUseCase.execute(emailToken.toLowerCase() + ":" + idempotencyKey, loan,
+                            () -> loanApplicationCase.create(loan, fromToken));
                 });
     }
 
+    public Flux<BulkLoanItem> createLoans(Flux<CreateLoanApplicationDTO> body) {
+        logger.info("POST /api/v1/solicitud/bulk");
+        Flux<BulkLoanItem> items = body.index()
+                .concatMap(item -> requestValidator.validate(item.getT2())
+                        .map(dto -> BulkLoanItem.of(item.getT1(), mapper.toModel(dto)))
+                        .onErrorResume(IllegalArgumentException.class, e ->
+                                Mono.just(BulkLoanItem.failed(item.getT1(), new BadRequestException(e.getMessage())))));
+        return loanApplicationCase.createAll(items, bulkChunkSize);
+    }
+
     public Mono<PageResult<LoanApplication>>
-    listSimple(int page, int size, List<String> estados) {
-        logger.info("GET /api/v1/solicitud (simple) page={} size={} estados={}", page, size, estados);
-        return statusUseCase.list(page, size, estados);
+    listSimple(int page, int size, List<String> estados, String cursor, String withTotal, boolean liveUsers) {
+        logger.info("GET /api/v1/solicitud (simple) page={} size={} estados={} cursor={} withTotal={}",
+                page, size, estados, cursor != null, withTotal);
+        TotalKind totalKind = totalKindOf(withTotal);
+        if (totalKind == null) {
+            return Mono.error(new BadRequestException("withTotal admite true, false o estimated"));
+        }
+        if (size < 1 || size > listMaxSize) {
+            return Mono.error(new BadRequestException("size debe estar entre 1 y " + listMaxSize));
+        }
+        if (page < 0) {
+            return Mono.error(new BadRequestException("page no puede ser negativo"));
+        }
+        if (cursor != null) {
+            return Mono.fromCallable(() -> PageCursorCodec.decode(cursor))
+                    .flatMap(after -> statusUseCase.listAfter(after, size, estados, totalKind, liveUsers));
+        }
+        // El OFFSET recorre y descarta todas las filas anteriores: las páginas profundas van por cursor
+        if ((long) page * size > listMaxOffset) {
+            return Mono.error(new BadRequestException("La paginación por número de página llega hasta "
+                    + listMaxOffset + " registros; usa el parámetro cursor para continuar"));
+        }
+        return statusUseCase.list(page, size, estados, totalKind, liveUsers);
+    }
+
+    public Flux<LoanApplication> streamSimple(List<String> estados, String cursor, Integer limit, boolean liveUsers) {
+        logger.info("GET /api/v1/solicitud (stream) estados={} cursor={} limit={}", estados, cursor != null, limit);
+        int rows = limit == null ? streamMaxRows : limit;
+        if (rows < 1 || rows > streamMaxRows) {
+            return Flux.error(new BadRequestException("limit debe estar entre 1 y " + streamMaxRows));
+        }
+        return Mono.fromCallable(() -> Optional.ofNullable(PageCursorCodec.decode(cursor)))
+                .flatMapMany(after -> statusUseCase.stream(estados, after.orElse(null), rows, streamEnrichWindow, liveUsers));
+    }
+
+    private static TotalKind totalKindOf(String withTotal) {
+        return switch (withTotal.toLowerCase()) {
+            case "true" -> TotalKind.CACHED;
+            case "false" -> TotalKind.NONE;
+            case "estimated" -> TotalKind.ESTIMATED;
+            default -> null;
+        };
     }
 
 }
\ No newline at end of file
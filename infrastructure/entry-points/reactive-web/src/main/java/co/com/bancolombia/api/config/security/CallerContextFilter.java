@@ -0,0 +1,58 @@
+package co.com.bancolombia.api.config.security;
+
+import co.com.bancolombia.model.context.CallerContext;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Corre después de la cadena de seguridad y deja el subject del token en {@link CallerContext},
+ * para que los adaptadores puedan, por ejemplo, leer de la réplica sin perder lo que ese
+ * mismo cliente acaba de escribir. La marca de última escritura viaja en {@link #LAST_WRITE_HEADER}:
+ * se devuelve cuando la petición escribió y el cliente la reenvía para que cualquier nodo la vea.
+ */
+@Component
+public class CallerContextFilter implements WebFilter {
+
+    public static final String LAST_WRITE_HEADER = "X-Last-Write-At";
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        long informed = lastWriteOf(exchange.getRequest().getHeaders().getFirst(LAST_WRITE_HEADER));
+        AtomicLong lastWrite = new AtomicLong(informed);
+        exchange.getResponse().beforeCommit(() -> {
+            if (lastWrite.get() > informed) {
+                exchange.getResponse().getHeaders().set(LAST_WRITE_HEADER, Long.toString(lastWrite.get()));
+            }
+            return Mono.empty();
+        });
+        Context written = CallerContext.withLastWrite(lastWrite);
+        return ReactiveSecurityContextHolder.getContext()
+                .map(SecurityContext::getAuthentication)
+                .filter(Authentication::isAuthenticated)
+                .map(Authentication::getName)
+                .map(caller -> written.putAll(CallerContext.with(caller).readOnly()))
+                .defaultIfEmpty(written)
+                .flatMap(context -> chain.filter(exchange).contextWrite(context));
+    }
+
+    // Cabecera ausente o inválida = sin escrituras informadas
+    static long lastWriteOf(String header) {
+        if (header == null) {
+            return 0L;
+        }
+        try {
+            return Math.max(0L, Long.parseLong(header.trim()));
+        } catch (NumberFormatException e) {
+            return 0L;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package co.com.bancolombia.api.config.security;
+
+import co.com.bancolombia.model.client.UserClientDetails;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Arma los datos del cliente a partir de claims del token ya verificado. Si el modo está
+ * apagado o falta algún claim, devuelve vacío y se consulta el micro de autenticación.
+ */
+@Component
+public class JwtUserClaims {
+
+    private final boolean enabled;
+    private final String userIdClaim;
+    private final String documentClaim;
+    private final String nameClaim;
+
+    public JwtUserClaims(@Value("${jwt.user-claims.enabled:false}") boolean enabled,
+                         @Value("${jwt.user-claims.user-id:userId}") String userIdClaim,
+                         @Value("${jwt.user-claims.document:document}") String documentClaim,
+                         @Value("${jwt.user-claims.name:name}") String nameClaim) {
+        this.enabled = enabled;
+        this.userIdClaim = userIdClaim;
+        this.documentClaim = documentClaim;
+        this.nameClaim = nameClaim;
+    }
+
+    public Optional<UserClientDetails> from(Jwt jwt) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        Long userId = userId(jwt.getClaimAsString(userIdClaim));
+        String document = jwt.getClaimAsString(documentClaim);
+        String name = jwt.getClaimAsString(nameClaim);
+        if (userId == null || isBlank(document) || isBlank(name)) {
+            return Optional.empty();
+        }
+        return Optional.of(UserClientDetails.builder()
+                .userId(userId)
+                .document(document)
+                .name(name)
+                .email(jwt.getSubject())
+                .build());
+    }
+
+    private static Long userId(String value) {
+        if (isBlank(value)) {
+            return null;
+        }
+        try {
+            return Long.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
@@ -29,7 +29,10 @@ public class SecurityConfig {
             .httpBasic(ServerHttpSecurity.HttpBasicSpec::disable)
             .formLogin(ServerHttpSecurity.FormLoginSpec::disable)
                 .authorizeExchange(ex -> ex
+                        // Trae SQL de la aplicación: solo personal interno. Auth emite CLIENTE, CANAL y ASESOR
+                        .pathMatchers("/actuator/slowqueries/**").hasRole("ASESOR")
                         .pathMatchers("/v3/api-docs/**", "/swagger-ui.html", "/swagger-ui/**", "/actuator/**").permitAll()
+                        .pathMatchers(HttpMethod.POST, "/api/v1/solicitud/bulk").hasRole("CANAL")
                         .pathMatchers(HttpMethod.POST, "/api/v1/solicitud").hasRole("CLIENTE")
                         .pathMatchers(HttpMethod.GET,  "/api/v1/solicitud/**").hasRole("ASESOR")
                         .anyExchange().authenticated()
@@ -2,18 +2,23 @@ package co.com.bancolombia.api.controller;
 
 import co.com.bancolombia.api.HandlerLoanApplication;
 import co.com.bancolombia.api.dto.request.CreateLoanApplicationDTO;
+import co.com.bancolombia.api.dto.response.BulkLoanApplicationResponseDTO;
 import co.com.bancolombia.api.dto.response.LoanApplicationResponseDTO;
 import co.com.bancolombia.api.dto.response.PageDTO;
+import co.com.bancolombia.api.exceptions.GlobalErrorHandler;
 import co.com.bancolombia.api.mapper.LoanApplicationMapper;
+import co.com.bancolombia.api.mapper.PageCursorCodec;
 import io.swagger.v3.oas.annotations.OpenAPIDefinition;
 import io.swagger.v3.oas.annotations.info.Info;
 import io.swagger.v3.oas.annotations.Operation;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.security.access.prepost.PreAuthorize;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.net.URI;
@@ -35,26 +40,52 @@ public class LoanApplicationController {
     @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE,
             produces = MediaType.APPLICATION_JSON_VALUE)
     @PreAuthorize("hasRole('CLIENTE')")
-    public Mono<ResponseEntity<LoanApplicationResponseDTO>> create(@Valid @RequestBody CreateLoanApplicationDTO body) {
-        return handlerLoanApplication.createLoan(body)
+    public Mono<ResponseEntity<LoanApplicationResponseDTO>> create(
+            @Valid @RequestBody CreateLoanApplicationDTO body,
+            @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey) {
+        return handlerLoanApplication.createLoan(body, idempotencyKey)
                 .map(saved -> ResponseEntity
                         .created(URI.create("/api/v1/solicitud/" + saved.getLoanApplicationId()))
                         .contentType(MediaType.APPLICATION_JSON)
                         .body(mapper.toDto(saved)));
     }
 
-    @Operation(summary = "Listado simple por estado", tags = {"Prestamo"})
+    @Operation(summary = "Crear prestamos en lote (arreglo JSON o NDJSON)", tags = {"Prestamo"})
+    @PostMapping(path = "/bulk",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("hasRole('CANAL')")
+    public Flux<BulkLoanApplicationResponseDTO> createBulk(@RequestBody Flux<CreateLoanApplicationDTO> body) {
+        return handlerLoanApplication.createLoans(body)
+                .map(item -> item.isOk()
+                        ? BulkLoanApplicationResponseDTO.builder()
+                                .index(item.getIndex())
+                                .status(HttpStatus.CREATED.value())
+                                .loanApplication(mapper.toDto(item.getLoanApplication()))
+                                .build()
+                        : BulkLoanApplicationResponseDTO.builder()
+                                .index(item.getIndex())
+                                .status(GlobalErrorHandler.statusFor(item.getError()).value())
+                                .message(GlobalErrorHandler.messageFor(item.getError()))
+                                .build());
+    }
+
+    @Operation(summary = "Listado simple por estado (withTotal: true, false o estimated)", tags = {"Prestamo"})
     @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
     @PreAuthorize("hasRole('ASESOR')")
     public Mono<ResponseEntity<PageDTO<LoanApplicationResponseDTO>>> listSimple(
             @RequestParam(name = "page", defaultValue = "0") int page,
             @RequestParam(name = "size", defaultValue = "20") int size,
-            @RequestParam(name = "estado") List<String> estados
+            @RequestParam(name = "estado") List<String> estados,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "withTotal", defaultValue = "true") String withTotal,
+            @RequestParam(name = "liveUsers", defaultValue = "false") boolean liveUsers
     ) {
-        return handlerLoanApplication.listSimple(page, size, estados)
+        return handlerLoanApplication.listSimple(page, size, estados, cursor, withTotal, liveUsers)
                 .map(pr -> {
                     var content = pr.getContent().stream().map(mapper::toDto).toList();
-                    long totalPages = (long) Math.ceil(pr.getTotalElements() / (double) pr.getSize());
+                    Long totalPages = pr.getTotalElements() == null ? null
+                            : (long) Math.ceil(pr.getTotalElements() / (double) pr.getSize());
                     return ResponseEntity.ok(
                             PageDTO.<LoanApplicationResponseDTO>builder()
                                     .content(content)
@@ -62,9 +93,25 @@ public class LoanApplicationController {
                                     .size(pr.getSize())
                                     .totalElements(pr.getTotalElements())
                                     .totalPages(totalPages)
+                                    .totalKind(pr.getTotalKind().name())
+                                    .hasNext(pr.isHasNext())
+                                    .nextCursor(PageCursorCodec.encode(pr.getNextCursor()))
                                     .build()
                     );
                 });
     }
 
-}
\ No newline at end of file
+    @Operation(summary = "Listado por estado en streaming (NDJSON o SSE)", tags = {"Prestamo"})
+    @GetMapping(produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    @PreAuthorize("hasRole('ASESOR')")
+    public Flux<LoanApplicationResponseDTO> listStream(
+            @RequestParam(name = "estado") List<String> estados,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "limit", required = false) Integer limit,
+            @RequestParam(name = "liveUsers", defaultValue = "false") boolean liveUsers
+    ) {
+        return handlerLoanApplication.streamSimple(estados, cursor, limit, liveUsers)
+                .map(mapper::toDto);
+    }
+
+}
@@ -0,0 +1,21 @@
+package co.com.bancolombia.api.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkLoanApplicationResponseDTO {
+
+    private long index;
+    private int status;
+    private String message;
+    private LoanApplicationResponseDTO loanApplication;
+
+}
@@ -15,6 +15,12 @@ public class PageDTO<T> {
     private List<T> content;
     private int page;
     private int size;
-    private long totalElements;
-    private long totalPages;
+    // Nulos cuando totalKind es NONE
+    private Long totalElements;
+    private Long totalPages;
+    // CACHED, ESTIMATED o NONE
+    private String totalKind;
+    private boolean hasNext;
+    // Cursor para pedir la página siguiente; nulo en la última
+    private String nextCursor;
 }
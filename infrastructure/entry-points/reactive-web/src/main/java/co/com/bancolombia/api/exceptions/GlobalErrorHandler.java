@@ -8,18 +8,50 @@ import org.springframework.validation.FieldError;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.bind.support.WebExchangeBindException;
+
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 
 @RestControllerAdvice
 public class GlobalErrorHandler {
 
+    private static final String UNAVAILABLE_MESSAGE = "Servicio no disponible, intenta de nuevo";
+    private static final String INTERNAL_MESSAGE = "Error interno del servidor";
+
+    // Única tabla excepción -> estado; la usan las respuestas HTTP y el resultado por ítem de la carga masiva
+    private static final Map<Class<? extends Throwable>, HttpStatus> STATUS = new LinkedHashMap<>();
+
+    static {
+        STATUS.put(NotFoundException.class, HttpStatus.NOT_FOUND);
+        STATUS.put(LoanPendingException.class, HttpStatus.CONFLICT);
+        STATUS.put(IdempotencyInProgressException.class, HttpStatus.CONFLICT);
+        STATUS.put(BadRequestException.class, HttpStatus.BAD_REQUEST);
+        STATUS.put(UnauthorizedException.class, HttpStatus.UNAUTHORIZED);
+        STATUS.put(ForbiddenRoleException.class, HttpStatus.FORBIDDEN);
+        STATUS.put(ServiceUnavailableException.class, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
     private final LoggerRepository logger;
 
     public GlobalErrorHandler(LoggerRepository logger) {
         this.logger = logger;
     }
 
+    public static HttpStatus statusFor(Throwable ex) {
+        return STATUS.entrySet().stream()
+                .filter(entry -> entry.getKey().isInstance(ex))
+                .map(Map.Entry::getValue)
+                .findFirst()
+                .orElse(HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    // Los 5xx no exponen el detalle interno al cliente
+    public static String messageFor(Throwable ex) {
+        if (ex instanceof ServiceUnavailableException) return UNAVAILABLE_MESSAGE;
+        return statusFor(ex).is5xxServerError() ? INTERNAL_MESSAGE : ex.getMessage();
+    }
+
     @ExceptionHandler(WebExchangeBindException.class)
     public ResponseEntity<Map<String, Object>> handleValidation(WebExchangeBindException ex) {
         String msg = ex.getFieldErrors().stream()
@@ -31,69 +63,19 @@ public class GlobalErrorHandler {
                 .body(Map.of("status", HttpStatus.BAD_REQUEST.value(), "message", msg));
     }
 
-    @ExceptionHandler(NotFoundException.class)
-    public ResponseEntity<Map<String, Object>> handleNotFound(NotFoundException ex) {
-        logger.warn("No encontrado: {}", ex.getMessage());
-        return ResponseEntity
-                .status(HttpStatus.NOT_FOUND)
-                .body(Map.of(
-                        "status", HttpStatus.NOT_FOUND.value(),
-                        "message", ex.getMessage()
-                ));
-    }
-
-    @ExceptionHandler(LoanPendingException.class)
-    public ResponseEntity<Map<String, Object>> handleDuplicate(LoanPendingException ex) {
-        logger.warn("El usuario tiene un prestamo en estado pendiente: {}", ex.getMessage());
-        return ResponseEntity
-                .status(HttpStatus.CONFLICT)
-                .body(Map.of(
-                        "status", HttpStatus.CONFLICT.value(),
-                        "message", ex.getMessage()
-                ));
-    }
-
     @ExceptionHandler(Throwable.class)
-    public ResponseEntity<Map<String, Object>> handleAny(Throwable ex) {
-        logger.error("Error interno : {}", ex.getMessage());
-        return ResponseEntity
-                .status(HttpStatus.INTERNAL_SERVER_ERROR)
-                .body(Map.of(
-                        "status", HttpStatus.INTERNAL_SERVER_ERROR.value(),
-                        "message", "Error interno del servidor"
-                ));
-    }
-
-    @ExceptionHandler(BadRequestException.class)
-    public ResponseEntity<Map<String, Object>> handleBadRequest(BadRequestException ex) {
-        logger.warn("Solicitud inválida: {}", ex.getMessage());
-        return ResponseEntity
-                .status(HttpStatus.BAD_REQUEST)
-                .body(Map.of(
-                        "status", HttpStatus.BAD_REQUEST.value(),
-                        "message", ex.getMessage()
-                ));
-    }
-
-    @ExceptionHandler(UnauthorizedException.class)
-    public ResponseEntity<Map<String, Object>> handleUnauthorized(UnauthorizedException ex) {
-        logger.warn("No autorizado: {}", ex.getMessage());
-        return ResponseEntity
-                .status(HttpStatus.UNAUTHORIZED)
-                .body(Map.of(
-                        "status", HttpStatus.UNAUTHORIZED.value(),
-                        "message", ex.getMessage()
-                ));
-    }
-
-    @ExceptionHandler(ForbiddenRoleException.class)
-    public ResponseEntity<Map<String, Object>> handleForbiddenRoleException(ForbiddenRoleException ex) {
-        logger.warn("No autorizado: {}", ex.getMessage());
+    public ResponseEntity<Map<String, Object>> handle(Throwable ex) {
+        HttpStatus status = statusFor(ex);
+        if (status == HttpStatus.INTERNAL_SERVER_ERROR) {
+            logger.error("Error interno : {}", ex.getMessage());
+        } else {
+            logger.warn("Solicitud rechazada con {}: {}", status.value(), ex.getMessage());
+        }
         return ResponseEntity
-                .status(HttpStatus.FORBIDDEN)
+                .status(status)
                 .body(Map.of(
-                        "status", HttpStatus.FORBIDDEN.value(),
-                        "message", ex.getMessage()
+                        "status", status.value(),
+                        "message", messageFor(ex)
                 ));
     }
-}
\ No newline at end of file
+}
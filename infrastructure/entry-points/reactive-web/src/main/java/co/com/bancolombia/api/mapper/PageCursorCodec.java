@@ -0,0 +1,41 @@
+package co.com.bancolombia.api.mapper;
+
+import co.com.bancolombia.model.exceptions.BadRequestException;
+import co.com.bancolombia.model.loanApplication.PageCursor;
+
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.Base64;
+
+/**
+ * Cursor opaco para el cliente: base64url de "createdAt|id". No se firma; un cursor
+ * alterado solo cambia desde dónde se lee, nunca qué filas puede ver el asesor.
+ */
+public final class PageCursorCodec {
+
+    private static final String SEPARATOR = "|";
+
+    private PageCursorCodec() {
+    }
+
+    public static String encode(PageCursor cursor) {
+        if (cursor == null) {
+            return null;
+        }
+        String raw = cursor.getCreatedAt() + SEPARATOR + cursor.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static PageCursor decode(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+            int sep = raw.lastIndexOf(SEPARATOR);
+            return new PageCursor(OffsetDateTime.parse(raw.substring(0, sep)), Long.parseLong(raw.substring(sep + 1)));
+        } catch (RuntimeException e) {
+            throw new BadRequestException("Cursor inválido");
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package co.com.bancolombia.api.metrics;
+
+import co.com.bancolombia.model.metrics.gateways.MetricsRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@RequiredArgsConstructor
+public class MetricsAdapter implements MetricsRepository {
+
+    private final MeterRegistry registry;
+
+    @Override
+    public void recordTime(String name, Duration duration, String... tags) {
+        registry.timer(name, tags).record(duration);
+    }
+
+    @Override
+    public void increment(String name, String... tags) {
+        registry.counter(name, tags).increment();
+    }
+
+    @Override
+    public void recordValue(String name, double value, String... tags) {
+        registry.summary(name, tags).record(value);
+    }
+}
@@ -0,0 +1,49 @@
+package co.com.bancolombia.api.userclient;
+
+import io.netty.channel.ChannelOption;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+@Configuration
+public class AuthHttpClientConfig {
+
+    private static final String POOL_NAME = "auth-service";
+    private static final String EMAIL_PATH = "/api/v1/usuarios/email/";
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider authConnectionProvider(AuthHttpClientProperties properties) {
+        // metrics(true) publica reactor.netty.connection.provider.* con el nombre del pool
+        return ConnectionProvider.builder(POOL_NAME)
+                .maxConnections(properties.maxConnections())
+                .pendingAcquireMaxCount(properties.pendingAcquireMaxCount())
+                .pendingAcquireTimeout(properties.pendingAcquireTimeout())
+                .maxIdleTime(properties.maxIdleTime())
+                .maxLifeTime(properties.maxLifeTime())
+                .evictInBackground(properties.evictInterval())
+                .metrics(true)
+                .build();
+    }
+
+    @Bean
+    public HttpClient authHttpClient(ConnectionProvider authConnectionProvider, AuthHttpClientProperties properties) {
+        HttpProtocol[] protocols = properties.h2c()
+                ? new HttpProtocol[]{HttpProtocol.H2C, HttpProtocol.HTTP11}
+                : new HttpProtocol[]{HttpProtocol.HTTP11};
+        return HttpClient.create(authConnectionProvider)
+                .protocol(protocols)
+                .compress(properties.compress())
+                .keepAlive(true)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) properties.connectTimeout().toMillis())
+                .responseTimeout(properties.readTimeout())
+                .resolver(spec -> spec
+                        .cacheMaxTimeToLive(properties.dnsCacheTtl())
+                        .cacheNegativeTimeToLive(properties.dnsCacheTtl()))
+                // El email va en el path: se agrupa para no crear una métrica por usuario
+                .metrics(true, uri -> uri.startsWith(EMAIL_PATH) && !uri.equals(EMAIL_PATH + "bulk")
+                        ? EMAIL_PATH + "{email}"
+                        : uri);
+    }
+}
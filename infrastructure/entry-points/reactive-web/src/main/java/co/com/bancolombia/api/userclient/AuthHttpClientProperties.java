@@ -0,0 +1,36 @@
+package co.com.bancolombia.api.userclient;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Pool y cliente HTTP propios del micro de autenticación.
+ */
+@ConfigurationProperties(prefix = "services.auth.http")
+public record AuthHttpClientProperties(
+        Integer maxConnections,
+        Integer pendingAcquireMaxCount,
+        Duration pendingAcquireTimeout,
+        Duration maxIdleTime,
+        Duration maxLifeTime,
+        Duration evictInterval,
+        Duration connectTimeout,
+        Duration readTimeout,
+        Duration dnsCacheTtl,
+        boolean h2c,
+        Boolean compress) {
+
+    public AuthHttpClientProperties {
+        maxConnections = maxConnections == null ? 50 : maxConnections;
+        pendingAcquireMaxCount = pendingAcquireMaxCount == null ? 200 : pendingAcquireMaxCount;
+        pendingAcquireTimeout = pendingAcquireTimeout == null ? Duration.ofSeconds(1) : pendingAcquireTimeout;
+        maxIdleTime = maxIdleTime == null ? Duration.ofSeconds(30) : maxIdleTime;
+        maxLifeTime = maxLifeTime == null ? Duration.ofMinutes(5) : maxLifeTime;
+        evictInterval = evictInterval == null ? Duration.ofSeconds(30) : evictInterval;
+        connectTimeout = connectTimeout == null ? Duration.ofSeconds(1) : connectTimeout;
+        readTimeout = readTimeout == null ? Duration.ofSeconds(2) : readTimeout;
+        dnsCacheTtl = dnsCacheTtl == null ? Duration.ofSeconds(30) : dnsCacheTtl;
+        compress = compress == null || compress;
+    }
+}
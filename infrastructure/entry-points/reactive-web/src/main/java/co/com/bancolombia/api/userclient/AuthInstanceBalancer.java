@@ -0,0 +1,176 @@
+package co.com.bancolombia.api.userclient;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Reparte las llamadas entre las instancias del micro de autenticación con "power of two choices":
+ * se toman dos al azar y gana la de menor latencia promedio por peticiones en curso.
+ * Las lecturas se cubren con una segunda petición a otra instancia cuando la primera
+ * pasa del percentil configurado de las latencias recientes de esa misma operación: un bulk
+ * tarda naturalmente más que una búsqueda individual y no debe medirse contra ella.
+ */
+@Component
+public class AuthInstanceBalancer {
+
+    private static final String HEDGE_COUNTER = "auth.client.hedge";
+    private static final double EWMA_ALPHA = 0.3;
+    private static final int LATENCY_WINDOW = 512;
+    private static final int MIN_SAMPLES = 50;
+
+    private final List<Instance> instances;
+    private final boolean hedgeEnabled;
+    private final Duration minHedgeDelay;
+    private final MeterRegistry registry;
+    private final double hedgePercentile;
+    private final Map<String, LatencyWindow> latencies = new ConcurrentHashMap<>();
+
+    public AuthInstanceBalancer(@Value("${services.auth.instances:${services.auth.url}}") List<String> urls,
+                                @Value("${services.auth.hedge.enabled:true}") boolean hedgeEnabled,
+                                @Value("${services.auth.hedge.percentile:0.95}") double hedgePercentile,
+                                @Value("${services.auth.hedge.min-delay:PT0.01S}") Duration minHedgeDelay,
+                                MeterRegistry registry) {
+        this.instances = urls.stream()
+                .map(String::trim)
+                .filter(url -> !url.isEmpty())
+                .map(url -> url.endsWith("/") ? url.substring(0, url.length() - 1) : url)
+                .map(Instance::new)
+                .toList();
+        if (instances.isEmpty()) {
+            throw new IllegalArgumentException("services.auth.instances no tiene ninguna URL");
+        }
+        this.hedgeEnabled = hedgeEnabled;
+        this.minHedgeDelay = minHedgeDelay;
+        this.registry = registry;
+        this.hedgePercentile = hedgePercentile;
+    }
+
+    /**
+     * Ejecuta una lectura idempotente. Gana la primera señal (valor o error) de cualquiera
+     * de los dos intentos y el otro se cancela. {@code operation} es el mismo nombre que usa
+     * {@link UserClientResilience}: cada operación tiene su propia ventana de latencias.
+     */
+    public <T> Mono<T> hedged(String operation, Function<String, Mono<T>> request) {
+        return Mono.defer(() -> {
+            LatencyWindow window = latencies.computeIfAbsent(operation,
+                    name -> new LatencyWindow(LATENCY_WINDOW, hedgePercentile));
+            Instance primary = pick(null);
+            Mono<T> first = call(primary, window, request);
+            long delayNanos = window.percentileNanos();
+            // Sin suficientes muestras todavía no sabemos qué es "lento": no se cubre
+            if (!hedgeEnabled || instances.size() < 2 || delayNanos < 0) {
+                return first;
+            }
+            Duration delay = Duration.ofNanos(Math.max(delayNanos, minHedgeDelay.toNanos()));
+            Mono<T> second = Mono.delay(delay)
+                    .then(Mono.defer(() -> {
+                        registry.counter(HEDGE_COUNTER, "operation", operation, "outcome", "sent").increment();
+                        return call(pick(primary), window, request);
+                    }))
+                    .doOnNext(value -> registry.counter(HEDGE_COUNTER, "operation", operation, "outcome", "won")
+                            .increment());
+            return Mono.firstWithSignal(first, second);
+        });
+    }
+
+    private Instance pick(Instance exclude) {
+        List<Instance> candidates = exclude == null
+                ? instances
+                : instances.stream().filter(instance -> instance != exclude).toList();
+        if (candidates.size() == 1) {
+            return candidates.get(0);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int a = random.nextInt(candidates.size());
+        int b = random.nextInt(candidates.size() - 1);
+        if (b >= a) {
+            b++;
+        }
+        Instance x = candidates.get(a);
+        Instance y = candidates.get(b);
+        return x.load() <= y.load() ? x : y;
+    }
+
+    private <T> Mono<T> call(Instance instance, LatencyWindow latencies, Function<String, Mono<T>> request) {
+        return Mono.defer(() -> {
+            instance.outstanding.incrementAndGet();
+            long start = System.nanoTime();
+            return request.apply(instance.baseUrl)
+                    .doFinally(signal -> {
+                        long elapsed = System.nanoTime() - start;
+                        instance.outstanding.decrementAndGet();
+                        // Un intento cancelado (perdió la carrera) igual delata a una instancia lenta
+                        instance.observe(elapsed);
+                        if (signal != SignalType.CANCEL) {
+                            latencies.record(elapsed);
+                        }
+                    });
+        });
+    }
+
+    private static final class Instance {
+        private final String baseUrl;
+        private final AtomicInteger outstanding = new AtomicInteger();
+        // Actualización sin lock: perder alguna muestra con concurrencia no afecta la heurística
+        private volatile double ewmaNanos;
+
+        private Instance(String baseUrl) {
+            this.baseUrl = baseUrl;
+        }
+
+        private void observe(long nanos) {
+            double current = ewmaNanos;
+            ewmaNanos = current == 0 ? nanos : current + EWMA_ALPHA * (nanos - current);
+        }
+
+        private double load() {
+            return ewmaNanos * (outstanding.get() + 1);
+        }
+    }
+
+    /**
+     * Últimas N latencias en un arreglo circular. El percentil se recalcula cada
+     * {@code RECOMPUTE_EVERY} muestras para no ordenar en cada petición.
+     */
+    private static final class LatencyWindow {
+        private static final int RECOMPUTE_EVERY = 32;
+
+        private final long[] samples;
+        private final double percentile;
+        private final AtomicLong count = new AtomicLong();
+        private volatile long cachedNanos = -1;
+
+        private LatencyWindow(int size, double percentile) {
+            this.samples = new long[size];
+            this.percentile = percentile;
+        }
+
+        private void record(long nanos) {
+            long n = count.getAndIncrement();
+            samples[(int) (n % samples.length)] = nanos;
+            if (n + 1 >= MIN_SAMPLES && (n + 1) % RECOMPUTE_EVERY == 0) {
+                int filled = (int) Math.min(n + 1, samples.length);
+                long[] copy = Arrays.copyOf(samples, filled);
+                Arrays.sort(copy);
+                cachedNanos = copy[Math.min(filled - 1, (int) Math.ceil(percentile * filled) - 1)];
+            }
+        }
+
+        private long percentileNanos() {
+            return cachedNanos;
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package co.com.bancolombia.api.userclient;
+
+/**
+ * 5xx del micro de autenticación. Tipo propio para poder reintentarlo sin reintentar los 4xx.
+ */
+public class AuthServiceException extends RuntimeException {
+    public AuthServiceException(String m) {
+        super(m);
+    }
+}
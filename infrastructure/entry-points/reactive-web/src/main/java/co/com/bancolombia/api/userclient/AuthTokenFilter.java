@@ -0,0 +1,43 @@
+package co.com.bancolombia.api.userclient;
+
+import co.com.bancolombia.model.exceptions.UnauthorizedException;
+import co.com.bancolombia.usecase.client.IUserClient;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+
+/**
+ * Propaga al micro de autenticación el token de quien hizo la petición. El token del servicio
+ * solo se usa cuando la llamada trae la marca {@link IUserClient#SERVICE_CALL} (tareas de fondo):
+ * una petición que perdió su contexto de seguridad falla en vez de salir con otra identidad.
+ */
+@Component
+@RequiredArgsConstructor
+public class AuthTokenFilter implements ExchangeFilterFunction {
+
+    private final ServiceTokenProvider serviceTokens;
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        return ReactiveSecurityContextHolder.getContext()
+                .map(SecurityContext::getAuthentication)
+                .filter(JwtAuthenticationToken.class::isInstance)
+                .map(authentication -> ((JwtAuthenticationToken) authentication).getToken().getTokenValue())
+                .switchIfEmpty(Mono.deferContextual(context ->
+                        context.getOrDefault(IUserClient.SERVICE_CALL, false)
+                                ? Mono.fromSupplier(serviceTokens::token)
+                                : Mono.error(new UnauthorizedException(
+                                        "Llamada a autenticacion sin usuario ni marca de servicio"))))
+                .map(token -> ClientRequest.from(request)
+                        .headers(headers -> headers.setBearerAuth(token))
+                        .build())
+                .flatMap(next::exchange);
+    }
+}
@@ -0,0 +1,184 @@
+package co.com.bancolombia.api.userclient;
+
+import co.com.bancolombia.model.client.UserClientDetails;
+import co.com.bancolombia.model.exceptions.NotFoundException;
+import co.com.bancolombia.usecase.client.IUserClient;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.ContextView;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Near-cache delante del micro de autenticación. Un solo almacén indexado por email y por userId:
+ * lo que se carga por una llave queda disponible por la otra. Las búsquedas concurrentes de la
+ * misma llave con las mismas credenciales comparten una sola llamada HTTP; entre tokens distintos
+ * solo se comparte el resultado ya guardado, nunca una carga en curso (un 401 de un token vencido
+ * no debe llegarle a otro). Los 404 se recuerdan por {@code not-found-ttl}.
+ */
+@Primary
+@Component
+public class CachedUserClient implements IUserClient {
+
+    private static final String EMAIL_KEY = "email:";
+    private static final String ID_KEY = "id:";
+
+    private final UserClientConexion delegate;
+    private final UserEmailBatcher emailBatcher;
+    private final Cache<String, Optional<UserClientDetails>> cache;
+    private final Map<InFlight, CompletableFuture<Optional<UserClientDetails>>> inFlight = new ConcurrentHashMap<>();
+
+    public CachedUserClient(UserClientConexion delegate, UserEmailBatcher emailBatcher, MeterRegistry registry,
+                            @Value("${services.auth.cache.maximum-size:10000}") long maximumSize,
+                            @Value("${services.auth.cache.ttl:PT10M}") Duration ttl,
+                            @Value("${services.auth.cache.not-found-ttl:PT30S}") Duration notFoundTtl) {
+        this.delegate = delegate;
+        this.emailBatcher = emailBatcher;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(Expiry.writing((String key, Optional<UserClientDetails> user) ->
+                        user.isPresent() ? ttl : notFoundTtl))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, cache, "auth-users");
+    }
+
+    @Override
+    public Mono<UserClientDetails> findByEmail(String email) {
+        // La carga corre fuera del flujo reactivo: se le pasa el contexto para que lleve el token del llamador
+        return UserEmailBatcher.credentials()
+                .flatMap(credentials -> Mono.deferContextual(context -> Mono.fromFuture(
+                        lookup(emailKey(email), credentials, () -> loadByEmail(email, context)), true)))
+                .flatMap(user -> user.map(Mono::just)
+                        .orElseGet(() -> Mono.error(new NotFoundException("El usuario no existe"))));
+    }
+
+    @Override
+    public Flux<UserClientDetails> findByIds(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) return Flux.empty();
+
+        List<String> keys = ids.stream().filter(Objects::nonNull).distinct().map(id -> ID_KEY + id).toList();
+        return UserEmailBatcher.credentials().flatMapMany(credentials -> Flux.deferContextual(context -> {
+            Map<String, CompletableFuture<Optional<UserClientDetails>>> results = new LinkedHashMap<>();
+            Map<String, CompletableFuture<Optional<UserClientDetails>>> owned = new LinkedHashMap<>();
+            for (String key : keys) {
+                Optional<UserClientDetails> cached = cache.getIfPresent(key);
+                if (cached != null) {
+                    results.put(key, CompletableFuture.completedFuture(cached));
+                    continue;
+                }
+                CompletableFuture<Optional<UserClientDetails>> mine = new CompletableFuture<>();
+                CompletableFuture<Optional<UserClientDetails>> shared =
+                        inFlight.putIfAbsent(new InFlight(credentials, key), mine);
+                results.put(key, shared != null ? shared : mine);
+                if (shared == null) {
+                    owned.put(key, mine);
+                }
+            }
+            // Al bulk solo van las llaves que no están en memoria ni las está cargando el mismo token
+            if (!owned.isEmpty()) {
+                loadByIds(owned.keySet(), context).whenComplete((found, error) -> owned.forEach((key, future) ->
+                        settle(new InFlight(credentials, key), future, found == null ? null : found.get(key), error)));
+            }
+            return Flux.fromIterable(keys)
+                    .concatMap(key -> Mono.fromFuture(results.get(key), true))
+                    .filter(Optional::isPresent)
+                    .map(Optional::get);
+        }));
+    }
+
+    private CompletableFuture<Optional<UserClientDetails>> lookup(
+            String key, String credentials, Supplier<CompletableFuture<Optional<UserClientDetails>>> loader) {
+        Optional<UserClientDetails> cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        InFlight flight = new InFlight(credentials, key);
+        CompletableFuture<Optional<UserClientDetails>> mine = new CompletableFuture<>();
+        CompletableFuture<Optional<UserClientDetails>> shared = inFlight.putIfAbsent(flight, mine);
+        if (shared != null) {
+            return shared;
+        }
+        loader.get().whenComplete((user, error) -> settle(flight, mine, user, error));
+        return mine;
+    }
+
+    // Primero se guarda y luego se suelta la carga en curso: no queda hueco en el que nadie la tenga
+    private void settle(InFlight flight, CompletableFuture<Optional<UserClientDetails>> future,
+                        Optional<UserClientDetails> user, Throwable error) {
+        if (error == null) {
+            cache.put(flight.key(), user);
+        }
+        inFlight.remove(flight, future);
+        if (error == null) {
+            future.complete(user);
+        } else {
+            future.completeExceptionally(error);
+        }
+    }
+
+    private CompletableFuture<Optional<UserClientDetails>> loadByEmail(String email, ContextView context) {
+        Mono<UserClientDetails> lookup = emailBatcher.isEnabled()
+                ? emailBatcher.findByEmail(email)
+                : delegate.findByEmail(email);
+        return lookup
+                .map(Optional::of)
+                .onErrorResume(NotFoundException.class, e -> Mono.just(Optional.empty()))
+                .defaultIfEmpty(Optional.empty())
+                .doOnNext(user -> user.ifPresent(found -> store(ID_KEY + found.getUserId(), found)))
+                .contextWrite(context)
+                .toFuture();
+    }
+
+    private CompletableFuture<Map<String, Optional<UserClientDetails>>> loadByIds(Set<String> missing,
+                                                                                ContextView context) {
+        List<Long> ids = missing.stream()
+                .map(key -> Long.valueOf(key.substring(ID_KEY.length())))
+                .toList();
+        return delegate.findByIds(ids)
+                .doOnNext(user -> {
+                    if (user.getEmail() != null) {
+                        store(emailKey(user.getEmail()), user);
+                    }
+                })
+                .collectMap(user -> ID_KEY + user.getUserId(), Optional::of)
+                .map(found -> {
+                    Map<String, Optional<UserClientDetails>> all = new HashMap<>(found);
+                    // El bulk omite los ids que no existen: se guardan como ausentes
+                    missing.forEach(key -> all.putIfAbsent(key, Optional.empty()));
+                    return all;
+                })
+                .contextWrite(context)
+                .toFuture();
+    }
+
+    private void store(String key, UserClientDetails user) {
+        cache.put(key, Optional.of(user));
+    }
+
+    private static String emailKey(String email) {
+        return EMAIL_KEY + email.toLowerCase(Locale.ROOT);
+    }
+
+    private record InFlight(String credentials, String key) {
+    }
+}
@@ -0,0 +1,39 @@
+package co.com.bancolombia.api.userclient;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Presupuesto de reintentos: cada llamada exitosa abona {@code ratio} de reintento y cada
+ * reintento gasta uno, con un tope de {@code maxTokens}. Así los reintentos nunca superan
+ * ese porcentaje del tráfico y no se multiplica la carga cuando el servicio ya está caído.
+ */
+public class RetryBudget {
+
+    private static final long SCALE = 1000;
+
+    private final long depositPerCall;
+    private final long capacity;
+    private final AtomicLong tokens;
+
+    public RetryBudget(double ratio, int maxTokens) {
+        this.depositPerCall = Math.round(ratio * SCALE);
+        this.capacity = maxTokens * SCALE;
+        this.tokens = new AtomicLong(capacity);
+    }
+
+    public void deposit() {
+        tokens.accumulateAndGet(depositPerCall, (current, amount) -> Math.min(capacity, current + amount));
+    }
+
+    public boolean tryWithdraw() {
+        while (true) {
+            long current = tokens.get();
+            if (current < SCALE) {
+                return false;
+            }
+            if (tokens.compareAndSet(current, current - SCALE)) {
+                return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package co.com.bancolombia.api.userclient;
+
+import com.nimbusds.jose.jwk.source.ImmutableSecret;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Token propio del servicio para las llamadas al micro de autenticación que no nacen de una
+ * petición (p. ej. el refresco de snapshots). Lleva un rol de servicio, distinto de los roles de
+ * usuario, y se firma con su propia credencial para que auth distinga estas llamadas de las de un
+ * asesor. Se renueva cuando le queda menos de una quinta parte de vida.
+ */
+@Component
+public class ServiceTokenProvider {
+
+    private static final String ROLE_CLAIM = "role";
+
+    private final JwtEncoder encoder;
+    private final String subject;
+    private final String role;
+    private final Duration ttl;
+    private final AtomicReference<Jwt> current = new AtomicReference<>();
+
+    public ServiceTokenProvider(@Value("${services.auth.service-token.secret:${jwt.secret}}") String secret,
+                                @Value("${services.auth.service-token.subject:loan-applications}") String subject,
+                                @Value("${services.auth.service-token.role:SERVICE}") String role,
+                                @Value("${services.auth.service-token.ttl:PT5M}") Duration ttl) {
+        this.encoder = new NimbusJwtEncoder(new ImmutableSecret<>(new SecretKeySpec(secret.getBytes(), "HmacSHA256")));
+        this.subject = subject;
+        this.role = role;
+        this.ttl = ttl;
+    }
+
+    public String token() {
+        Instant now = Instant.now();
+        Jwt jwt = current.get();
+        if (jwt == null || jwt.getExpiresAt().minus(ttl.dividedBy(5)).isBefore(now)) {
+            // Dos hilos pueden firmar a la vez: cualquiera de los dos tokens sirve
+            jwt = mint(now);
+            current.set(jwt);
+        }
+        return jwt.getTokenValue();
+    }
+
+    private Jwt mint(Instant now) {
+        JwtClaimsSet claims = JwtClaimsSet.builder()
+                .subject(subject)
+                .issuedAt(now)
+                .expiresAt(now.plus(ttl))
+                .claim(ROLE_CLAIM, role)
+                .build();
+        return encoder.encode(JwtEncoderParameters.from(JwsHeader.with(MacAlgorithm.HS256).build(), claims));
+    }
+}
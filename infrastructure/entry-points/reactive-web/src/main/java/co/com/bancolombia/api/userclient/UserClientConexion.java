@@ -5,18 +5,16 @@ import co.com.bancolombia.model.exceptions.BadRequestException;
 import co.com.bancolombia.model.exceptions.ForbiddenRoleException;
 import co.com.bancolombia.model.exceptions.NotFoundException;
 import co.com.bancolombia.usecase.client.IUserClient;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.HttpStatusCode;
 import co.com.bancolombia.model.exceptions.UnauthorizedException;
 import org.springframework.http.MediaType;
-import org.springframework.security.core.context.ReactiveSecurityContextHolder;
-import org.springframework.security.core.context.SecurityContext;
-import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.stereotype.Component;
-import org.springframework.web.reactive.function.client.ClientRequest;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
 
 import java.util.List;
 
@@ -25,30 +23,27 @@ public class UserClientConexion implements IUserClient {
 
 
     private final WebClient webClient;
+    private final UserClientResilience resilience;
+    private final AuthInstanceBalancer balancer;
 
     public UserClientConexion(WebClient.Builder webClientBuilder,
-                              @Value("${services.auth.url}") String userServiceUrl) {
+                              AuthInstanceBalancer balancer,
+                              UserClientResilience resilience,
+                              @Qualifier("authHttpClient") HttpClient authHttpClient,
+                              AuthTokenFilter authTokenFilter) {
+        this.resilience = resilience;
+        this.balancer = balancer;
+        // Sin baseUrl: cada llamada va a la instancia que elija el balanceador
         this.webClient = webClientBuilder
-                .baseUrl(userServiceUrl)
-                .filter((request, next) ->
-                        ReactiveSecurityContextHolder.getContext()
-                                .map(SecurityContext::getAuthentication)
-                                .cast(JwtAuthenticationToken.class)
-                                .map(JwtAuthenticationToken::getToken)
-                                .map(jwt -> ClientRequest.from(request)
-                                        .headers(h -> h.setBearerAuth(jwt.getTokenValue()))
-                                        .build()
-                                )
-                                .defaultIfEmpty(request)
-                                .flatMap(next::exchange)
-                )
+                .clientConnector(new ReactorClientHttpConnector(authHttpClient))
+                .filter(authTokenFilter)
                 .build();
     }
 
     @Override
     public Mono<UserClientDetails> findByEmail(String email) {
-        return webClient.get()
-                .uri("/api/v1/usuarios/email/{email}", email)
+        return resilience.mono("auth-find-by-email", balancer.hedged("auth-find-by-email", baseUrl -> webClient.get()
+                .uri(baseUrl + "/api/v1/usuarios/email/{email}", email)
                 .retrieve()
                 .onStatus(s -> s.value() == 401,
                         resp -> Mono.error(new UnauthorizedException("No autorizado")))
@@ -63,16 +58,41 @@ public class UserClientConexion implements IUserClient {
                 .onStatus(HttpStatusCode::is5xxServerError, resp ->
                         resp.bodyToMono(String.class)
                                 .defaultIfEmpty("Error del servicio externo")
-                                .flatMap(body -> Mono.error(new RuntimeException(body))))
-                .bodyToMono(UserClientDetails.class);
+                                .flatMap(body -> Mono.error(new AuthServiceException(body))))
+                .bodyToMono(UserClientDetails.class)));
+    }
+
+    /**
+     * Búsqueda de varios usuarios por email en una sola llamada. Igual que el bulk por id,
+     * devuelve solo los que existen.
+     */
+    public Flux<UserClientDetails> findByEmails(List<String> emails) {
+        if (emails == null || emails.isEmpty()) return Flux.empty();
+
+        return resilience.mono("auth-find-by-emails", balancer.hedged("auth-find-by-emails", baseUrl -> webClient.post()
+                .uri(baseUrl + "/api/v1/usuarios/email/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(emails)
+                .retrieve()
+                .onStatus(s -> s.value() == 401, resp -> Mono.error(new UnauthorizedException("No autorizado")))
+                .onStatus(s -> s.value() == 403, resp -> Mono.error(new ForbiddenRoleException("No autorizado")))
+                .onStatus(HttpStatusCode::is4xxClientError, resp ->
+                        resp.bodyToMono(String.class).defaultIfEmpty("Solicitud inválida")
+                                .flatMap(body -> Mono.error(new BadRequestException(body))))
+                .onStatus(HttpStatusCode::is5xxServerError, resp ->
+                        resp.bodyToMono(String.class).defaultIfEmpty("Error del servicio externo")
+                                .flatMap(body -> Mono.error(new AuthServiceException(body))))
+                .bodyToFlux(UserClientDetails.class)
+                .collectList())
+                .flatMapIterable(users -> users));
     }
 
     @Override
     public Flux<UserClientDetails> findByIds(List<Long> ids) {
         if (ids == null || ids.isEmpty()) return Flux.empty();
 
-        return webClient.post()
-                .uri("/api/v1/usuarios/bulk")
+        return resilience.mono("auth-find-by-ids", balancer.hedged("auth-find-by-ids", baseUrl -> webClient.post()
+                .uri(baseUrl + "/api/v1/usuarios/bulk")
                 .contentType(MediaType.APPLICATION_JSON)
                 .bodyValue(ids)
                 .retrieve()
@@ -84,7 +104,9 @@ public class UserClientConexion implements IUserClient {
                                 .flatMap(body -> Mono.error(new BadRequestException(body))))
                 .onStatus(HttpStatusCode::is5xxServerError, resp ->
                         resp.bodyToMono(String.class).defaultIfEmpty("Error del servicio externo")
-                                .flatMap(body -> Mono.error(new RuntimeException(body))))
-                .bodyToFlux(UserClientDetails.class);
+                                .flatMap(body -> Mono.error(new AuthServiceException(body))))
+                .bodyToFlux(UserClientDetails.class)
+                .collectList())
+                .flatMapIterable(users -> users));
     }
 }
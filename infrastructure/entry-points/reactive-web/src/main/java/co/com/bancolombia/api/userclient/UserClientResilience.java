@@ -0,0 +1,99 @@
+package co.com.bancolombia.api.userclient;
+
+import co.com.bancolombia.model.exceptions.ServiceUnavailableException;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Protección por operación para las llamadas al micro de autenticación. Cada intento tiene
+ * timeout y pasa por el circuit breaker y el bulkhead de la operación. Solo se reintentan
+ * timeouts, errores de conexión y 5xx, con backoff con jitter y dentro del {@link RetryBudget}.
+ * Breaker abierto, bulkhead lleno o servicio caído salen como {@link ServiceUnavailableException}.
+ * Solo hay variante Mono: las respuestas con varios elementos se juntan en una lista antes de
+ * protegerlas, así el timeout cubre la llamada completa y un reintento no repite elementos ya emitidos.
+ */
+@Component
+public class UserClientResilience {
+
+    private static final String BUDGET_EXHAUSTED = "auth.client.retry.budget.exhausted";
+    private static final double JITTER = 0.5;
+
+    private final CircuitBreakerRegistry circuitBreakers;
+    private final BulkheadRegistry bulkheads;
+    private final MeterRegistry registry;
+    private final Duration timeout;
+    private final int maxRetries;
+    private final Duration retryBackoff;
+    private final RetryBudget retryBudget;
+
+    public UserClientResilience(CircuitBreakerRegistry circuitBreakers,
+                                BulkheadRegistry bulkheads,
+                                MeterRegistry registry,
+                                @Value("${services.auth.timeout:PT2S}") Duration timeout,
+                                @Value("${services.auth.retry.max-retries:2}") int maxRetries,
+                                @Value("${services.auth.retry.backoff:PT0.05S}") Duration retryBackoff,
+                                @Value("${services.auth.retry.budget-ratio:0.1}") double budgetRatio,
+                                @Value("${services.auth.retry.budget-max-tokens:10}") int budgetMaxTokens) {
+        this.circuitBreakers = circuitBreakers;
+        this.bulkheads = bulkheads;
+        this.registry = registry;
+        this.timeout = timeout;
+        this.maxRetries = maxRetries;
+        this.retryBackoff = retryBackoff;
+        this.retryBudget = new RetryBudget(budgetRatio, budgetMaxTokens);
+    }
+
+    public <T> Mono<T> mono(String operation, Mono<T> call) {
+        return call.timeout(timeout)
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreakers.circuitBreaker(operation)))
+                .transformDeferred(BulkheadOperator.of(bulkheads.bulkhead(operation)))
+                .doOnSuccess(value -> retryBudget.deposit())
+                .retryWhen(retry(operation))
+                .onErrorMap(UserClientResilience::isUnavailable, e -> unavailable(operation, e));
+    }
+
+    private Retry retry(String operation) {
+        return Retry.backoff(maxRetries, retryBackoff)
+                .jitter(JITTER)
+                .filter(e -> isRetryable(e) && withdraw(operation))
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure());
+    }
+
+    private boolean withdraw(String operation) {
+        if (retryBudget.tryWithdraw()) {
+            return true;
+        }
+        registry.counter(BUDGET_EXHAUSTED, "operation", operation).increment();
+        return false;
+    }
+
+    private static boolean isRetryable(Throwable e) {
+        return e instanceof TimeoutException
+                || e instanceof WebClientRequestException
+                || e instanceof AuthServiceException;
+    }
+
+    private static boolean isUnavailable(Throwable e) {
+        return isRetryable(e)
+                || e instanceof CallNotPermittedException
+                || e instanceof BulkheadFullException;
+    }
+
+    private static ServiceUnavailableException unavailable(String operation, Throwable e) {
+        return new ServiceUnavailableException("Servicio de autenticación no disponible (" + operation + "): "
+                + e.getMessage());
+    }
+}
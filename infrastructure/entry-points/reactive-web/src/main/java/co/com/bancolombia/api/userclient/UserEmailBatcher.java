@@ -0,0 +1,164 @@
+package co.com.bancolombia.api.userclient;
+
+import co.com.bancolombia.model.client.UserClientDetails;
+import co.com.bancolombia.model.exceptions.NotFoundException;
+import co.com.bancolombia.usecase.client.IUserClient;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.context.ContextView;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Junta las búsquedas por email que llegan dentro de {@code window} (hasta {@code max-size})
+ * y las resuelve con una llamada al bulk por email del micro de autenticación por cada token
+ * distinto del lote: nadie consulta con credenciales ajenas, y un 401/403 solo le llega a los
+ * llamadores de ese token. Si no se puede encolar se consulta directo; si el pipeline termina,
+ * los que seguían esperando reciben el error.
+ */
+@Component
+public class UserEmailBatcher implements DisposableBean {
+
+    private static final int MAX_CONCURRENT_BATCHES = 4;
+    // Reintentos cortos cuando otro hilo está emitiendo; después se consulta directo
+    private static final int EMIT_ATTEMPTS = 8;
+    private static final String SERVICE_CREDENTIALS = "";
+    private static final String NO_CREDENTIALS = "-";
+
+    private final UserClientConexion delegate;
+    private final boolean enabled;
+    private final Duration waitTimeout;
+    private final Sinks.Many<PendingLookup> queue = Sinks.many().unicast().onBackpressureBuffer();
+    private final Set<PendingLookup> waiting = ConcurrentHashMap.newKeySet();
+    private final Disposable pipeline;
+
+    public UserEmailBatcher(UserClientConexion delegate,
+                            @Value("${services.auth.batch.enabled:false}") boolean enabled,
+                            @Value("${services.auth.batch.window:PT0.01S}") Duration window,
+                            @Value("${services.auth.batch.max-size:100}") int maxSize,
+                            @Value("${services.auth.batch.wait-timeout:PT5S}") Duration waitTimeout) {
+        this.delegate = delegate;
+        this.enabled = enabled;
+        this.waitTimeout = waitTimeout;
+        this.pipeline = enabled
+                ? queue.asFlux()
+                        // fairBackpressure: con todos los lotes en vuelo se espera en vez de desbordar
+                        .bufferTimeout(maxSize, window, true)
+                        .concatMapIterable(UserEmailBatcher::byCredentials)
+                        .flatMap(this::flush, MAX_CONCURRENT_BATCHES)
+                        .subscribe(null,
+                                this::failWaiting,
+                                () -> failWaiting(new IllegalStateException("Agrupador de busquedas detenido")))
+                : Disposables.disposed();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Mono<UserClientDetails> findByEmail(String email) {
+        return credentials().flatMap(credentials -> Mono.deferContextual(context -> {
+            // Sin usuario ni marca de servicio no se agrupa: el filtro de token rechaza la llamada
+            if (NO_CREDENTIALS.equals(credentials)) {
+                return delegate.findByEmail(email);
+            }
+            PendingLookup pending = new PendingLookup(email, credentials, Sinks.one(), context);
+            waiting.add(pending);
+            Sinks.EmitResult emitted = queue.tryEmitNext(pending);
+            for (int attempt = 1; emitted == Sinks.EmitResult.FAIL_NON_SERIALIZED && attempt < EMIT_ATTEMPTS;
+                 attempt++) {
+                Thread.onSpinWait();
+                emitted = queue.tryEmitNext(pending);
+            }
+            if (emitted.isFailure()) {
+                waiting.remove(pending);
+                return delegate.findByEmail(email);
+            }
+            return pending.result().asMono()
+                    .timeout(waitTimeout)
+                    .doFinally(signal -> waiting.remove(pending));
+        }));
+    }
+
+    @Override
+    public void destroy() {
+        queue.tryEmitComplete();
+        pipeline.dispose();
+        failWaiting(new IllegalStateException("Agrupador de busquedas detenido"));
+    }
+
+    private void failWaiting(Throwable error) {
+        waiting.removeIf(pending -> {
+            pending.result().tryEmitError(error);
+            return true;
+        });
+    }
+
+    // Token de quien pregunta; las llamadas marcadas como del servicio comparten el token del servicio.
+    // Lo usa también la caché para no compartir cargas en curso entre credenciales distintas
+    static Mono<String> credentials() {
+        return ReactiveSecurityContextHolder.getContext()
+                .map(SecurityContext::getAuthentication)
+                .filter(JwtAuthenticationToken.class::isInstance)
+                .map(authentication -> ((JwtAuthenticationToken) authentication).getToken().getTokenValue())
+                .switchIfEmpty(Mono.deferContextual(context -> Mono.just(
+                        context.getOrDefault(IUserClient.SERVICE_CALL, false) ? SERVICE_CREDENTIALS : NO_CREDENTIALS)));
+    }
+
+    private static Iterable<List<PendingLookup>> byCredentials(List<PendingLookup> batch) {
+        return batch.stream()
+                .collect(Collectors.groupingBy(PendingLookup::credentials, LinkedHashMap::new, Collectors.toList()))
+                .values();
+    }
+
+    private Mono<Void> flush(List<PendingLookup> batch) {
+        List<String> emails = batch.stream()
+                .map(PendingLookup::email)
+                .distinct()
+                .toList();
+        return delegate.findByEmails(emails)
+                .filter(user -> user.getEmail() != null)
+                .collectMap(user -> normalize(user.getEmail()))
+                .contextWrite(batch.get(0).context())
+                .doOnNext(found -> complete(batch, found))
+                // Cada llamador recibe el error tal cual (también 401/403); el pipeline sigue vivo
+                .doOnError(e -> batch.forEach(pending -> pending.result().tryEmitError(e)))
+                .onErrorResume(e -> Mono.empty())
+                .then();
+    }
+
+    private static void complete(List<PendingLookup> batch, Map<String, UserClientDetails> found) {
+        for (PendingLookup pending : batch) {
+            UserClientDetails user = found.get(normalize(pending.email()));
+            if (user != null) {
+                pending.result().tryEmitValue(user);
+            } else {
+                // El bulk omite los que no existen: mismo error que el 404 de la búsqueda individual
+                pending.result().tryEmitError(new NotFoundException("El usuario no existe"));
+            }
+        }
+    }
+
+    private static String normalize(String email) {
+        return email.toLowerCase(Locale.ROOT);
+    }
+
+    private record PendingLookup(String email, String credentials, Sinks.One<UserClientDetails> result,
+                                 ContextView context) {
+    }
+}
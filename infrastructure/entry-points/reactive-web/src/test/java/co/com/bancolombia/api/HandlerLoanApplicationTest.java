@@ -0,0 +1,119 @@
+package co.com.bancolombia.api;
+
+import co.com.bancolombia.api.config.security.JwtUserClaims;
+import co.com.bancolombia.api.mapper.LoanApplicationMapper;
+import co.com.bancolombia.model.exceptions.BadRequestException;
+import co.com.bancolombia.model.loanApplication.LoanApplication;
+import co.com.bancolombia.model.loanApplication.PageResult;
+import co.com.bancolombia.model.loanApplication.TotalKind;
+import co.com.bancolombia.model.loanApplication.gateways.LoggerRepository;
+import co.com.bancolombia.usecase.idempotency.IdempotencyUseCase;
+import co.com.bancolombia.usecase.loanApplication.LoanApplicationCase;
+import co.com.bancolombia.usecase.statusLoan.StatusUseCase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class HandlerLoanApplicationTest {
+
+    private static final List<String> PENDING = List.of("PENDING_REVIEW");
+
+    @Mock
+    private LoanApplicationCase loanApplicationCase;
+
+    @Mock
+    private LoanApplicationMapper mapper;
+
+    @Mock
+    private LoggerRepository logger;
+
+    @Mock
+    private StatusUseCase statusUseCase;
+
+    @Mock
+    private RequestValidator requestValidator;
+
+    @Mock
+    private IdempotencyUseCase idempotencyUseCase;
+
+    @Mock
+    private JwtUserClaims jwtUserClaims;
+
+    private HandlerLoanApplication handler;
+
+    @BeforeEach
+    void setUp() {
+        handler = new HandlerLoanApplication(loanApplicationCase, mapper, logger, statusUseCase, requestValidator,
+                idempotencyUseCase, jwtUserClaims, 200, 10_000L, 100, 50_000, 100);
+    }
+
+    // ---- size fuera de rango: 400 antes de tocar la base ----
+    @Test
+    void listSimple_whenSizeIsZero_shouldFailWithBadRequest() {
+        StepVerifier.create(handler.listSimple(0, 0, PENDING, null, "true", false))
+                .expectError(BadRequestException.class)
+                .verify();
+
+        verifyNoInteractions(statusUseCase);
+    }
+
+    @Test
+    void listSimple_whenSizeIsNegativeOrTooLarge_shouldFailWithBadRequest() {
+        StepVerifier.create(handler.listSimple(0, -5, PENDING, null, "true", false))
+                .expectError(BadRequestException.class)
+                .verify();
+        StepVerifier.create(handler.listSimple(0, 101, PENDING, "cursor", "true", false))
+                .expectError(BadRequestException.class)
+                .verify();
+
+        verifyNoInteractions(statusUseCase);
+    }
+
+    @Test
+    void listSimple_whenPageIsNegative_shouldFailWithBadRequest() {
+        StepVerifier.create(handler.listSimple(-1, 20, PENDING, null, "true", false))
+                .expectError(BadRequestException.class)
+                .verify();
+
+        verifyNoInteractions(statusUseCase);
+    }
+
+    // ---- cursor inválido y tope de OFFSET ----
+    @Test
+    void listSimple_whenCursorIsMalformed_shouldFailWithBadRequest() {
+        StepVerifier.create(handler.listSimple(0, 20, PENDING, "no es un cursor!", "true", false))
+                .expectError(BadRequestException.class)
+                .verify();
+
+        verifyNoInteractions(statusUseCase);
+    }
+
+    @Test
+    void listSimple_whenOffsetPassesMax_shouldAskForCursor() {
+        StepVerifier.create(handler.listSimple(501, 20, PENDING, null, "true", false))
+                .expectErrorMatches(e -> e instanceof BadRequestException && e.getMessage().contains("cursor"))
+                .verify();
+
+        verifyNoInteractions(statusUseCase);
+    }
+
+    @Test
+    void listSimple_whenOffsetIsAtMax_shouldList() {
+        PageResult<LoanApplication> empty = new PageResult<>(List.of(), 500, 20, 0L, TotalKind.CACHED, false, null);
+        when(statusUseCase.list(500, 20, PENDING, TotalKind.CACHED, false)).thenReturn(Mono.just(empty));
+
+        StepVerifier.create(handler.listSimple(500, 20, PENDING, null, "true", false))
+                .expectNext(empty)
+                .verifyComplete();
+    }
+}
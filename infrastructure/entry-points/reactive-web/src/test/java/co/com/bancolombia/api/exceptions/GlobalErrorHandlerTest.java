@@ -0,0 +1,54 @@
+package co.com.bancolombia.api.exceptions;
+
+import co.com.bancolombia.model.exceptions.IdempotencyInProgressException;
+import co.com.bancolombia.model.exceptions.NotFoundException;
+import co.com.bancolombia.model.exceptions.ServiceUnavailableException;
+import co.com.bancolombia.model.loanApplication.gateways.LoggerRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class GlobalErrorHandlerTest {
+
+    @Mock
+    private LoggerRepository logger;
+
+    @Test
+    void handle_shouldAnswerWithTheSameStatusAndMessageAsTheBulkItems() {
+        GlobalErrorHandler handler = new GlobalErrorHandler(logger);
+        RuntimeException conflict = new IdempotencyInProgressException("clave-1");
+
+        ResponseEntity<Map<String, Object>> response = handler.handle(conflict);
+
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+        assertEquals(GlobalErrorHandler.statusFor(conflict).value(), response.getBody().get("status"));
+        assertEquals(GlobalErrorHandler.messageFor(conflict), response.getBody().get("message"));
+    }
+
+    @Test
+    void statusFor_shouldMapDomainErrorsAndHideInternalDetail() {
+        assertEquals(HttpStatus.NOT_FOUND, GlobalErrorHandler.statusFor(new NotFoundException("no existe")));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE,
+                GlobalErrorHandler.statusFor(new ServiceUnavailableException("breaker abierto")));
+        assertEquals("Servicio no disponible, intenta de nuevo",
+                GlobalErrorHandler.messageFor(new ServiceUnavailableException("breaker abierto")));
+
+        IllegalStateException bug = new IllegalStateException("detalle interno");
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, GlobalErrorHandler.statusFor(bug));
+        assertEquals("Error interno del servidor", GlobalErrorHandler.messageFor(bug));
+
+        new GlobalErrorHandler(logger).handle(bug);
+        verify(logger).error(anyString(), eq("detalle interno"));
+    }
+}
@@ -0,0 +1,45 @@
+package co.com.bancolombia.api.mapper;
+
+import co.com.bancolombia.model.exceptions.BadRequestException;
+import co.com.bancolombia.model.loanApplication.PageCursor;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PageCursorCodecTest {
+
+    private static String base64(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void decode_shouldReadWhatEncodeWrote() {
+        PageCursor cursor = new PageCursor(OffsetDateTime.parse("2025-03-01T10:15:30.123-05:00"), 987L);
+
+        assertEquals(cursor, PageCursorCodec.decode(PageCursorCodec.encode(cursor)));
+    }
+
+    @Test
+    void decode_whenBlank_shouldMeanFirstPage() {
+        assertNull(PageCursorCodec.decode(null));
+        assertNull(PageCursorCodec.decode("  "));
+    }
+
+    @Test
+    void decode_whenNotBase64_shouldFailWithBadRequest() {
+        assertThrows(BadRequestException.class, () -> PageCursorCodec.decode("no es base64!"));
+    }
+
+    @Test
+    void decode_whenTampered_shouldFailWithBadRequest() {
+        assertThrows(BadRequestException.class, () -> PageCursorCodec.decode(base64("2025-03-01T10:15:30Z")));
+        assertThrows(BadRequestException.class, () -> PageCursorCodec.decode(base64("ayer|987")));
+        assertThrows(BadRequestException.class, () -> PageCursorCodec.decode(base64("2025-03-01T10:15:30Z|uno")));
+    }
+}
@@ -0,0 +1,108 @@
+package co.com.bancolombia.api.userclient;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Las instancias son funciones con demoras fijas sobre tiempo virtual: se verifica cuándo sale
+ * la segunda petición y quién gana, no milisegundos medidos.
+ */
+class AuthInstanceBalancerTest {
+
+    private static final List<String> URLS = List.of("http://auth-a", "http://auth-b");
+    private static final Duration MIN_HEDGE_DELAY = Duration.ofMillis(20);
+    // Primer múltiplo de 32 por encima de las 50 muestras mínimas: la ventana ya tiene percentil
+    private static final int WARMUP = 64;
+
+    private SimpleMeterRegistry registry;
+    private AuthInstanceBalancer balancer;
+    private List<String> hits;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        balancer = new AuthInstanceBalancer(URLS, true, 0.9, MIN_HEDGE_DELAY, registry);
+        hits = new CopyOnWriteArrayList<>();
+    }
+
+    // Respuestas inmediatas: el percentil queda por debajo del mínimo y la demora es MIN_HEDGE_DELAY
+    private void warmUp(String operation) {
+        for (int i = 0; i < WARMUP; i++) {
+            balancer.hedged(operation, Mono::just).block();
+        }
+    }
+
+    // El primer intento responde tras primaryDelay; cualquier intento posterior, tras 5 ms
+    private Function<String, Mono<String>> request(Duration primaryDelay) {
+        return url -> {
+            hits.add(url);
+            return hits.size() == 1
+                    ? Mono.delay(primaryDelay).thenReturn("primary:" + url)
+                    : Mono.delay(Duration.ofMillis(5)).thenReturn("hedge:" + url);
+        };
+    }
+
+    @Test
+    void hedged_whenPrimaryIsSlow_shouldHitOtherInstanceAfterDelayAndFirstResponseWins() {
+        warmUp("auth-find-by-email");
+
+        StepVerifier.withVirtualTime(() -> balancer.hedged("auth-find-by-email", request(Duration.ofSeconds(1))))
+                .expectSubscription()
+                .expectNoEvent(MIN_HEDGE_DELAY.minusMillis(1))
+                .then(() -> assertEquals(1, hits.size()))
+                .thenAwait(Duration.ofMillis(1))
+                .then(() -> {
+                    assertEquals(2, hits.size());
+                    assertNotEquals(hits.get(0), hits.get(1));
+                })
+                .thenAwait(Duration.ofMillis(5))
+                .assertNext(value -> assertEquals("hedge:" + hits.get(1), value))
+                .verifyComplete();
+
+        assertEquals(1, registry.get("auth.client.hedge").tag("outcome", "sent").counter().count());
+        assertEquals(1, registry.get("auth.client.hedge").tag("outcome", "won").counter().count());
+    }
+
+    @Test
+    void hedged_whenPrimaryAnswersBeforeDelay_shouldNotHitSecondInstance() {
+        warmUp("auth-find-by-email");
+
+        StepVerifier.withVirtualTime(() -> balancer.hedged("auth-find-by-email", request(Duration.ofMillis(10))))
+                .expectSubscription()
+                .thenAwait(Duration.ofMillis(10))
+                .assertNext(value -> assertTrue(value.startsWith("primary:")))
+                .verifyComplete();
+
+        assertEquals(1, hits.size());
+        assertNull(registry.find("auth.client.hedge").counter());
+    }
+
+    @Test
+    void hedged_shouldKeepOneLatencyWindowPerOperation() {
+        warmUp("auth-find-by-email");
+
+        // El bulk no tiene muestras propias: no se cubre aunque la búsqueda individual sí tenga percentil
+        StepVerifier.withVirtualTime(() -> balancer.hedged("auth-find-by-emails", request(Duration.ofSeconds(1))))
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(999))
+                .thenAwait(Duration.ofMillis(1))
+                .assertNext(value -> assertTrue(value.startsWith("primary:")))
+                .verifyComplete();
+
+        assertEquals(1, hits.size());
+        assertNull(registry.find("auth.client.hedge").counter());
+    }
+}
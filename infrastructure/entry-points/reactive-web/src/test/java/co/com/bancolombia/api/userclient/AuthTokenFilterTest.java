@@ -0,0 +1,118 @@
+package co.com.bancolombia.api.userclient;
+
+import co.com.bancolombia.model.exceptions.UnauthorizedException;
+import co.com.bancolombia.usecase.client.IUserClient;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.NimbusReactiveJwtDecoder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.server.HttpServer;
+import reactor.test.StepVerifier;
+import reactor.util.context.Context;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Pasa por el cliente real contra un micro de autenticación falso que responde 401 si la
+ * llamada llega sin token, como lo hace el de verdad.
+ */
+class AuthTokenFilterTest {
+
+    static final String SECRET = "a-string-secret-at-least-256-bits-long";
+    private static final String SERVICE_SECRET = "another-secret-only-for-service-calls-256";
+
+    private final AtomicReference<String> authorization = new AtomicReference<>();
+    private DisposableServer authStub;
+    private UserClientConexion conexion;
+
+    @BeforeEach
+    void setUp() {
+        authStub = HttpServer.create()
+                .port(0)
+                .route(routes -> routes.post("/api/v1/usuarios/bulk", (request, response) -> {
+                    String header = request.requestHeaders().get("Authorization");
+                    authorization.set(header);
+                    if (header == null) {
+                        return response.status(401).send();
+                    }
+                    return response.header("Content-Type", "application/json")
+                            .sendString(Mono.just("[{\"userId\":10,\"email\":\"ana@example.com\"}]"))
+                            .then();
+                }))
+                .bindNow();
+
+        UserClientResilience resilience = new UserClientResilience(CircuitBreakerRegistry.ofDefaults(),
+                BulkheadRegistry.ofDefaults(), new SimpleMeterRegistry(),
+                Duration.ofSeconds(2), 0, Duration.ofMillis(10), 0.1, 10);
+        AuthInstanceBalancer balancer = new AuthInstanceBalancer(List.of("http://localhost:" + authStub.port()),
+                false, 0.95, Duration.ofMillis(10), new SimpleMeterRegistry());
+        conexion = new UserClientConexion(WebClient.builder(), balancer, resilience, HttpClient.create(),
+                new AuthTokenFilter(new ServiceTokenProvider(SERVICE_SECRET, "loan-applications", "SERVICE",
+                        Duration.ofMinutes(5))));
+    }
+
+    @AfterEach
+    void tearDown() {
+        authStub.disposeNow();
+    }
+
+    // ---- tarea de fondo: la marca de servicio hace salir el token del servicio ----
+    @Test
+    void findByIds_markedAsServiceCall_shouldSendServiceToken() {
+        StepVerifier.create(conexion.findByIds(List.of(10L))
+                        .contextWrite(Context.of(IUserClient.SERVICE_CALL, Boolean.TRUE)))
+                .assertNext(user -> assertEquals(10L, user.getUserId()))
+                .verifyComplete();
+
+        Jwt token = NimbusReactiveJwtDecoder.withSecretKey(new SecretKeySpec(SERVICE_SECRET.getBytes(), "HmacSHA256"))
+                .build()
+                .decode(authorization.get().substring("Bearer ".length()))
+                .block();
+        assertEquals("loan-applications", token.getSubject());
+        assertEquals("SERVICE", token.getClaimAsString("role"));
+    }
+
+    // ---- petición que perdió su contexto: se rechaza en vez de salir con la identidad del servicio ----
+    @Test
+    void findByIds_withoutCallerOrServiceMark_shouldFailWithoutCallingAuth() {
+        StepVerifier.create(conexion.findByIds(List.of(10L)))
+                .expectError(UnauthorizedException.class)
+                .verify();
+
+        assertNull(authorization.get());
+    }
+
+    // ---- petición de un usuario: se propaga su propio token ----
+    @Test
+    void findByIds_withCaller_shouldForwardCallerToken() {
+        Jwt caller = Jwt.withTokenValue("caller-token")
+                .header("alg", "HS256")
+                .subject("asesor@example.com")
+                .claim("role", "ASESOR")
+                .build();
+
+        StepVerifier.create(conexion.findByIds(List.of(10L))
+                        .contextWrite(ReactiveSecurityContextHolder.withAuthentication(
+                                new JwtAuthenticationToken(caller))))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        assertEquals("Bearer caller-token", authorization.get());
+    }
+}
@@ -0,0 +1,153 @@
+package co.com.bancolombia.api.userclient;
+
+import co.com.bancolombia.model.client.UserClientDetails;
+import co.com.bancolombia.model.exceptions.NotFoundException;
+import co.com.bancolombia.model.exceptions.UnauthorizedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CachedUserClientTest {
+
+    @Mock
+    private UserClientConexion delegate;
+
+    @Mock
+    private UserEmailBatcher emailBatcher;
+
+    private SimpleMeterRegistry registry;
+    private CachedUserClient client;
+    private UserClientDetails carol;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        client = new CachedUserClient(delegate, emailBatcher, registry, 100, Duration.ofMinutes(10), Duration.ofSeconds(30));
+        carol = UserClientDetails.builder().userId(1L).email("carol@example.com").name("Carol").build();
+    }
+
+    @Test
+    void findByEmail_concurrentMisses_shouldCallAuthOnce() {
+        Sinks.One<UserClientDetails> response = Sinks.one();
+        when(delegate.findByEmail("carol@example.com")).thenReturn(response.asMono());
+
+        StepVerifier.create(Mono.zip(client.findByEmail("carol@example.com"), client.findByEmail("carol@example.com")))
+                .then(() -> response.tryEmitValue(carol))
+                .assertNext(both -> assertEquals(both.getT1(), both.getT2()))
+                .verifyComplete();
+
+        StepVerifier.create(client.findByEmail("CAROL@example.com"))
+                .expectNext(carol)
+                .verifyComplete();
+
+        verify(delegate, times(1)).findByEmail("carol@example.com");
+        assertNotNull(registry.find("cache.gets").tag("cache", "auth-users").tag("result", "hit").functionCounter());
+    }
+
+    private Mono<UserClientDetails> findAs(String token, String email) {
+        Jwt jwt = Jwt.withTokenValue(token).header("alg", "HS256").subject(token).claim("role", "ASESOR").build();
+        return client.findByEmail(email)
+                .contextWrite(ReactiveSecurityContextHolder.withAuthentication(new JwtAuthenticationToken(jwt)));
+    }
+
+    // ---- cada token hace su propia carga; entre tokens solo se comparte lo ya guardado ----
+    @Test
+    void findByEmail_concurrentMissesWithDifferentTokens_shouldNotShareInFlightLoad() {
+        Sinks.Empty<Void> gate = Sinks.empty();
+        when(delegate.findByEmail("carol@example.com")).thenAnswer(invocation -> gate.asMono()
+                .then(ReactiveSecurityContextHolder.getContext())
+                .map(context -> ((JwtAuthenticationToken) context.getAuthentication()).getToken().getTokenValue())
+                .flatMap(token -> "vencido".equals(token)
+                        ? Mono.<UserClientDetails>error(new UnauthorizedException("No autorizado"))
+                        : Mono.just(carol)));
+
+        StepVerifier.create(Mono.zip(
+                        findAs("vencido", "carol@example.com")
+                                .map(UserClientDetails::getEmail)
+                                .onErrorResume(UnauthorizedException.class, e -> Mono.just("401")),
+                        findAs("ana", "carol@example.com")))
+                .then(gate::tryEmitEmpty)
+                .assertNext(both -> {
+                    assertEquals("401", both.getT1());
+                    assertEquals(carol, both.getT2());
+                })
+                .verifyComplete();
+        // Ya guardado: cualquier token lo lee sin volver a llamar
+        StepVerifier.create(findAs("luis", "carol@example.com"))
+                .expectNext(carol)
+                .verifyComplete();
+
+        verify(delegate, times(2)).findByEmail("carol@example.com");
+    }
+
+    @Test
+    void findByEmail_notFound_shouldBeCached() {
+        when(delegate.findByEmail("nadie@example.com"))
+                .thenReturn(Mono.error(new NotFoundException("El usuario no existe")));
+
+        StepVerifier.create(client.findByEmail("nadie@example.com"))
+                .expectError(NotFoundException.class)
+                .verify();
+        StepVerifier.create(client.findByEmail("nadie@example.com"))
+                .expectError(NotFoundException.class)
+                .verify();
+
+        verify(delegate, times(1)).findByEmail("nadie@example.com");
+    }
+
+    @Test
+    void findByEmail_serviceError_shouldNotBeCached() {
+        when(delegate.findByEmail("carol@example.com"))
+                .thenReturn(Mono.error(new RuntimeException("auth-down")))
+                .thenReturn(Mono.just(carol));
+
+        StepVerifier.create(client.findByEmail("carol@example.com"))
+                .expectErrorMessage("auth-down")
+                .verify();
+        StepVerifier.create(client.findByEmail("carol@example.com"))
+                .expectNext(carol)
+                .verifyComplete();
+    }
+
+    @Test
+    void findByIds_shouldOnlyRequestMissingIds() {
+        UserClientDetails pedro = UserClientDetails.builder().userId(2L).email("pedro@example.com").build();
+        when(delegate.findByEmail("carol@example.com")).thenReturn(Mono.just(carol));
+        when(delegate.findByIds(argThat(ids -> ids.size() == 2 && ids.containsAll(List.of(2L, 3L))))).thenReturn(Flux.just(pedro));
+
+        client.findByEmail("carol@example.com").block();
+
+        StepVerifier.create(client.findByIds(List.of(1L, 2L, 3L)))
+                .expectNext(carol, pedro)
+                .verifyComplete();
+        // Segunda vez: todo sale de memoria, incluido el 3 que no existe
+        StepVerifier.create(client.findByIds(List.of(1L, 2L, 3L)))
+                .expectNext(carol, pedro)
+                .verifyComplete();
+        StepVerifier.create(client.findByEmail("pedro@example.com"))
+                .expectNext(pedro)
+                .verifyComplete();
+
+        verify(delegate, times(1)).findByIds(anyList());
+        verify(delegate, never()).findByEmail("pedro@example.com");
+    }
+}
@@ -0,0 +1,117 @@
+package co.com.bancolombia.api.userclient;
+
+import co.com.bancolombia.model.exceptions.NotFoundException;
+import co.com.bancolombia.model.exceptions.ServiceUnavailableException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class UserClientResilienceTest {
+
+    private CircuitBreakerRegistry circuitBreakers;
+    private SimpleMeterRegistry registry;
+    private UserClientResilience resilience;
+
+    @BeforeEach
+    void setUp() {
+        circuitBreakers = CircuitBreakerRegistry.ofDefaults();
+        registry = new SimpleMeterRegistry();
+        resilience = new UserClientResilience(circuitBreakers, BulkheadRegistry.ofDefaults(), registry,
+                Duration.ofMillis(100), 2, Duration.ofMillis(1), 0.1, 10);
+    }
+
+    @Test
+    void mono_whenServerErrorThenOk_shouldRetry() {
+        AtomicInteger attempts = new AtomicInteger();
+        Mono<String> call = Mono.defer(() -> attempts.incrementAndGet() == 1
+                ? Mono.error(new AuthServiceException("boom"))
+                : Mono.just("ok"));
+
+        StepVerifier.create(resilience.mono("op", call))
+                .expectNext("ok")
+                .verifyComplete();
+        assertEquals(2, attempts.get());
+    }
+
+    @Test
+    void mono_whenNotFound_shouldNotRetry() {
+        AtomicInteger attempts = new AtomicInteger();
+        Mono<String> call = Mono.defer(() -> {
+            attempts.incrementAndGet();
+            return Mono.error(new NotFoundException("El usuario no existe"));
+        });
+
+        StepVerifier.create(resilience.mono("op", call))
+                .expectError(NotFoundException.class)
+                .verify();
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    void mono_whenTimeout_shouldFailAsServiceUnavailable() {
+        StepVerifier.create(resilience.mono("op", Mono.never()))
+                .expectError(ServiceUnavailableException.class)
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void mono_whenCollectedListIsSlow_shouldTimeOutTheWholeCall() {
+        AtomicInteger attempts = new AtomicInteger();
+        // Cada elemento llega antes del timeout, pero la respuesta completa no
+        Mono<List<Long>> slowList = Flux.defer(() -> {
+                    attempts.incrementAndGet();
+                    return Flux.interval(Duration.ofMillis(60)).take(3);
+                })
+                .collectList();
+
+        StepVerifier.create(resilience.mono("op", slowList))
+                .expectError(ServiceUnavailableException.class)
+                .verify(Duration.ofSeconds(2));
+
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    void mono_whenBreakerOpen_shouldFailFastWithoutCalling() {
+        circuitBreakers.circuitBreaker("op").transitionToOpenState();
+        AtomicInteger attempts = new AtomicInteger();
+
+        StepVerifier.create(resilience.mono("op", Mono.fromCallable(attempts::incrementAndGet)))
+                .expectError(ServiceUnavailableException.class)
+                .verify();
+
+        assertEquals(0, attempts.get());
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreakers.circuitBreaker("op").getState());
+    }
+
+    @Test
+    void mono_whenBudgetExhausted_shouldStopRetrying() {
+        resilience = new UserClientResilience(circuitBreakers, BulkheadRegistry.ofDefaults(), registry,
+                Duration.ofMillis(100), 2, Duration.ofMillis(1), 0.1, 1);
+        AtomicInteger attempts = new AtomicInteger();
+        Mono<String> failing = Mono.defer(() -> {
+            attempts.incrementAndGet();
+            return Mono.error(new AuthServiceException("boom"));
+        });
+
+        StepVerifier.create(resilience.mono("op", failing))
+                .expectError(ServiceUnavailableException.class)
+                .verify();
+
+        // Un solo token: primer intento más un reintento
+        assertEquals(2, attempts.get());
+        assertEquals(1.0, registry.get("auth.client.retry.budget.exhausted").counter().count());
+    }
+}
@@ -0,0 +1,167 @@
+package co.com.bancolombia.api.userclient;
+
+import co.com.bancolombia.model.client.UserClientDetails;
+import co.com.bancolombia.model.exceptions.NotFoundException;
+import co.com.bancolombia.model.exceptions.UnauthorizedException;
+import co.com.bancolombia.usecase.client.IUserClient;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.server.HttpServer;
+import reactor.test.StepVerifier;
+import reactor.util.context.Context;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Levanta un micro de autenticación falso para contar cuántas llamadas llegan realmente.
+ */
+class UserEmailBatcherTest {
+
+    private final ObjectMapper json = new ObjectMapper();
+    private final AtomicInteger bulkCalls = new AtomicInteger();
+    private final AtomicInteger singleCalls = new AtomicInteger();
+    private final List<String> bulkTokens = new CopyOnWriteArrayList<>();
+
+    private DisposableServer authStub;
+    private UserEmailBatcher batcher;
+
+    @BeforeEach
+    void setUp() {
+        authStub = HttpServer.create()
+                .port(0)
+                .route(routes -> routes
+                        .post("/api/v1/usuarios/email/bulk", (request, response) -> {
+                            String token = request.requestHeaders().get("Authorization");
+                            bulkTokens.add(token);
+                            if ("Bearer rechazado".equals(token)) {
+                                return response.status(401).send();
+                            }
+                            return request.receive()
+                                    .aggregate()
+                                    .asString()
+                                    .flatMap(body -> Mono.fromCallable(() -> {
+                                        bulkCalls.incrementAndGet();
+                                        List<String> emails = json.readValue(body, new TypeReference<List<String>>() {
+                                        });
+                                        return json.writeValueAsString(emails.stream()
+                                                .filter(email -> !email.startsWith("nadie"))
+                                                .map(email -> Map.of("userId", Math.abs(email.hashCode()),
+                                                        "email", email))
+                                                .toList());
+                                    }))
+                                    .flatMap(payload -> response.header("Content-Type", "application/json")
+                                            .sendString(Mono.just(payload))
+                                            .then());
+                        })
+                        .get("/api/v1/usuarios/email/{email}", (request, response) -> {
+                            singleCalls.incrementAndGet();
+                            return response.status(404).send();
+                        }))
+                .bindNow();
+
+        UserClientResilience resilience = new UserClientResilience(CircuitBreakerRegistry.ofDefaults(),
+                BulkheadRegistry.ofDefaults(), new SimpleMeterRegistry(),
+                Duration.ofSeconds(2), 0, Duration.ofMillis(10), 0.1, 10);
+        AuthInstanceBalancer balancer = new AuthInstanceBalancer(List.of("http://localhost:" + authStub.port()),
+                false, 0.95, Duration.ofMillis(10), new SimpleMeterRegistry());
+        UserClientConexion conexion = new UserClientConexion(WebClient.builder(), balancer, resilience,
+                HttpClient.create(), new AuthTokenFilter(new ServiceTokenProvider(AuthTokenFilterTest.SECRET,
+                "loan-applications", "SERVICE", Duration.ofMinutes(5))));
+        batcher = new UserEmailBatcher(conexion, true, Duration.ofMillis(50), 20, Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        batcher.destroy();
+        authStub.disposeNow();
+    }
+
+    @Test
+    void findByEmail_concurrentLookups_shouldBeSentAsFewBulkCalls() {
+        StepVerifier.create(Flux.range(0, 50)
+                        .flatMap(i -> findAsService("user" + i + "@example.com"), 50)
+                        .map(UserClientDetails::getEmail)
+                        .collectList())
+                .assertNext(emails -> assertEquals(50, emails.size()))
+                .verifyComplete();
+
+        assertEquals(0, singleCalls.get());
+        // 50 búsquedas en lotes de 20: 3 llamadas, con algo de margen por el corte por tiempo
+        assertTrue(bulkCalls.get() <= 5, "llamadas bulk: " + bulkCalls.get());
+    }
+
+    @Test
+    void findByEmail_whenMissingFromBulk_shouldFailNotFound() {
+        StepVerifier.create(Mono.zip(
+                        findAsService("carol@example.com"),
+                        findAsService("nadie@example.com").onErrorResume(NotFoundException.class, e -> Mono.just(
+                                UserClientDetails.builder().email("no-encontrado").build()))))
+                .assertNext(both -> {
+                    assertEquals("carol@example.com", both.getT1().getEmail());
+                    assertEquals("no-encontrado", both.getT2().getEmail());
+                })
+                .verify(Duration.ofSeconds(5));
+
+        assertEquals(1, bulkCalls.get());
+    }
+
+    private Mono<UserClientDetails> findAsService(String email) {
+        return batcher.findByEmail(email).contextWrite(Context.of(IUserClient.SERVICE_CALL, Boolean.TRUE));
+    }
+
+    private Mono<UserClientDetails> findAs(String token, String email) {
+        Jwt jwt = Jwt.withTokenValue(token).header("alg", "HS256").subject(email).claim("role", "ASESOR").build();
+        return batcher.findByEmail(email)
+                .contextWrite(ReactiveSecurityContextHolder.withAuthentication(new JwtAuthenticationToken(jwt)));
+    }
+
+    // ---- cada token consulta con sus propias credenciales; un 401 no arrastra a los demás ----
+    @Test
+    void findByEmail_differentCallers_shouldNotShareCredentials() {
+        StepVerifier.create(Mono.zip(
+                        findAs("ana", "ana@example.com"),
+                        findAs("rechazado", "luis@example.com")
+                                .map(UserClientDetails::getEmail)
+                                .onErrorResume(UnauthorizedException.class, e -> Mono.just("401"))))
+                .assertNext(both -> {
+                    assertEquals("ana@example.com", both.getT1().getEmail());
+                    assertEquals("401", both.getT2());
+                })
+                .verify(Duration.ofSeconds(5));
+
+        assertEquals(2, bulkTokens.size());
+        assertTrue(bulkTokens.containsAll(List.of("Bearer ana", "Bearer rechazado")));
+    }
+
+    // ---- sin usuario ni marca de servicio no se agrupa ni sale ninguna llamada ----
+    @Test
+    void findByEmail_withoutCallerOrServiceMark_shouldFailUnauthorized() {
+        StepVerifier.create(batcher.findByEmail("ana@example.com"))
+                .expectError(UnauthorizedException.class)
+                .verify(Duration.ofSeconds(5));
+
+        assertEquals(0, bulkCalls.get());
+        assertEquals(0, singleCalls.get());
+    }
+}